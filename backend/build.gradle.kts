@@ -7,8 +7,11 @@ plugins {
 group = "com.example"
 version = "0.0.1-SNAPSHOT"
 
+// Java 21 for virtual threads (spring.threads.virtual.enabled), matching the Docker image
 java {
-    sourceCompatibility = JavaVersion.VERSION_17
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
 }
 
 repositories {
@@ -16,12 +19,30 @@ repositories {
 }
 
 extra["testcontainersVersion"] = "1.19.3"
+extra["jmhVersion"] = "1.37"
+
+// JMH microbenchmarks live in src/jmh/java and see the main classes and their dependencies
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets["main"].output
+        runtimeClasspath += sourceSets["main"].output
+    }
+}
+configurations["jmhImplementation"].extendsFrom(configurations["implementation"])
+configurations["jmhRuntimeOnly"].extendsFrom(configurations["runtimeOnly"])
 
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.postgresql:postgresql")
     implementation("org.flywaydb:flyway-core")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    
+    // Metrics: /actuator/prometheus, @Timed methods and Hibernate statistics
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-aop")
+    implementation("io.micrometer:micrometer-registry-prometheus")
+    implementation("org.hibernate.orm:hibernate-micrometer")
     
     // Keep H2 for tests and local development
     runtimeOnly("com.h2database:h2")
@@ -33,8 +54,50 @@ dependencies {
     testImplementation(platform("org.testcontainers:testcontainers-bom:${property("testcontainersVersion")}"))
     testImplementation("org.testcontainers:junit-jupiter")
     testImplementation("org.testcontainers:postgresql")
+    
+    // JMH
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:${property("jmhVersion")}")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${property("jmhVersion")}")
 }
 
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// Benchmarks: ./gradlew benchmarkTest [-Dbenchmark.rows=N] [-Dbenchmark.increments=N]
+//             [-Dbenchmark.clients=N] [-Dbenchmark.requests=N]
+tasks.register<Test>("benchmarkTest") {
+    description = "Runs the benchmark-tagged tests."
+    group = "verification"
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    System.getProperty("benchmark.rows")?.let { systemProperty("benchmark.rows", it) }
+    System.getProperty("benchmark.increments")?.let { systemProperty("benchmark.increments", it) }
+    System.getProperty("benchmark.clients")?.let { systemProperty("benchmark.clients", it) }
+    System.getProperty("benchmark.requests")?.let { systemProperty("benchmark.requests", it) }
+    maxHeapSize = "1g"
+    testLogging {
+        showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+}
+
+// Microbenchmarks: ./gradlew jmh [-Pjmh.includes=<regex>]
+// Runs from the classpath rather than an uber jar, so Spring's auto-configuration files stay
+// intact. Results go to build/results/jmh/<version>.json; keep one per release to compare.
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks and writes the results as JSON."
+    group = "verification"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = layout.buildDirectory.file("results/jmh/${project.version}.json").get().asFile
+    args("-rf", "json", "-rff", results.path)
+    findProperty("jmh.includes")?.let { args(it.toString()) }
+    doFirst { results.parentFile.mkdirs() }
+    outputs.upToDateWhen { false }
 }
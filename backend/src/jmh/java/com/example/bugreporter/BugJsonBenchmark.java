@@ -0,0 +1,101 @@
+package com.example.bugreporter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory part of ingest and read: building a {@link Bug} from a create request,
+ * and the JSON on either side of it, as metadata maps grow
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BugJsonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int metadataEntries;
+
+    private ObjectMapper objectMapper;
+    private BugController.CreateBugRequest request;
+    private String requestJson;
+    private Bug bug;
+    private String bugJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Configured like Spring Boot's own mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (int i = 0; i < metadataEntries; i++) {
+            metadata.put("key" + i, "value of metadata entry " + i);
+        }
+        request = new BugController.CreateBugRequest();
+        request.setTitle("Checkout button does nothing");
+        request.setDescription("Clicking the button on the cart page has no effect in Firefox 120.");
+        request.setScreenshotUrl("https://example.com/screenshots/checkout.png");
+        request.setPriority(Bug.Priority.HIGH);
+        request.setMetadata(metadata);
+        requestJson = objectMapper.writeValueAsString(request);
+        bug = toBug(request);
+        bug.setId(42L);
+        bugJson = objectMapper.writeValueAsString(bug);
+    }
+
+    // Same steps as the controller's mapping from a create request
+    private static Bug toBug(BugController.CreateBugRequest request) {
+        Bug bug = new Bug(request.getTitle(), request.getDescription(), request.getScreenshotUrl());
+        if (request.getPriority() != null) {
+            bug.setPriority(request.getPriority());
+        }
+        for (Map.Entry<String, String> entry : request.getMetadata().entrySet()) {
+            bug.addMetadata(entry.getKey(), entry.getValue());
+        }
+        return bug;
+    }
+
+    @Benchmark
+    public Bug constructBug() {
+        return toBug(request);
+    }
+
+    @Benchmark
+    public BugController.CreateBugRequest deserializeCreateRequest() throws Exception {
+        return objectMapper.readValue(requestJson, BugController.CreateBugRequest.class);
+    }
+
+    @Benchmark
+    public Bug deserializeAndConstruct() throws Exception {
+        return toBug(objectMapper.readValue(requestJson, BugController.CreateBugRequest.class));
+    }
+
+    @Benchmark
+    public String serializeBug() throws Exception {
+        return objectMapper.writeValueAsString(bug);
+    }
+
+    @Benchmark
+    public Bug deserializeBug() throws Exception {
+        return objectMapper.readValue(bugJson, Bug.class);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugReporterApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BugService} writes and reads through the whole stack (transactions, Hibernate,
+ * cache eviction, change events) on embedded H2, plus the metadata merge of
+ * {@code updateBug} on its own. Each benchmark starts the application in its own fork,
+ * with the web server off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BugServiceBenchmark {
+
+    private static final int SEEDED_BUGS = 1_000;
+    private static final int METADATA_PER_BUG = 10;
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        ConfigurableApplicationContext context;
+        BugService bugService;
+        List<Long> ids;
+        int next;
+        int pass;
+        int created;
+
+        @Setup
+        public void start() {
+            context = new SpringApplicationBuilder(BugReporterApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .bannerMode(Banner.Mode.OFF)
+                    .properties(
+                            "spring.datasource.url=jdbc:h2:mem:jmh",
+                            "spring.jpa.show-sql=false",
+                            "logging.level.root=WARN")
+                    .run();
+            bugService = context.getBean(BugService.class);
+            List<Bug> bugs = new ArrayList<>();
+            for (int i = 0; i < SEEDED_BUGS; i++) {
+                bugs.add(newBug(i));
+            }
+            ids = new ArrayList<>();
+            for (Bug bug : bugService.createBugs(bugs)) {
+                ids.add(bug.getId());
+            }
+        }
+
+        // Cycles through the seeded bugs; pass counts completed cycles
+        Long nextId() {
+            if (++next == ids.size()) {
+                next = 0;
+                pass++;
+            }
+            return ids.get(next);
+        }
+
+        @TearDown
+        public void stop() {
+            context.close();
+        }
+    }
+
+    /**
+     * Metadata updates: up to half of the keys overwrite entries every bug has, the rest are new.
+     * Two versions with different values alternate between passes over the seeded bugs,
+     * so every update changes something.
+     */
+    @State(Scope.Benchmark)
+    public static class Updates {
+        @Param({"10", "100", "1000"})
+        int metadataEntries;
+
+        Map<String, String> existing;
+        Map<String, String> even;
+        Map<String, String> odd;
+
+        @Setup
+        public void setUp() {
+            existing = newBug(0).getMetadata();
+            even = new HashMap<>();
+            odd = new HashMap<>();
+            int overwritten = Math.min(metadataEntries / 2, METADATA_PER_BUG);
+            for (int i = 0; i < metadataEntries; i++) {
+                String key = i < overwritten ? "key" + i : "extra" + i;
+                even.put(key, "even value " + i);
+                odd.put(key, "odd value " + i);
+            }
+        }
+
+        Map<String, String> forPass(int pass) {
+            return pass % 2 == 0 ? even : odd;
+        }
+    }
+
+    private static Bug newBug(int i) {
+        Bug bug = new Bug("Benchmark bug #" + i, "Seeded for the service benchmark", null, Bug.Priority.MEDIUM);
+        for (int k = 0; k < METADATA_PER_BUG; k++) {
+            bug.addMetadata("key" + k, "value " + k + " of bug " + i);
+        }
+        return bug;
+    }
+
+    @Benchmark
+    public Bug createBug(Application app) {
+        return app.bugService.createBug(newBug(SEEDED_BUGS + app.created++));
+    }
+
+    @Benchmark
+    public List<Bug> getAllBugs(Application app) {
+        return app.bugService.getAllBugs();
+    }
+
+    @Benchmark
+    public Optional<Bug> updateBugWithMetadata(Application app, Updates updates) {
+        Long id = app.nextId();
+        Bug details = new Bug();
+        details.setMetadata(updates.forPass(app.pass));
+        return app.bugService.updateBug(id, details);
+    }
+
+    // In memory only; includes copying the bug's ten existing entries
+    @Benchmark
+    public Bug mergeMetadata(Updates updates) {
+        Bug target = new Bug();
+        target.setMetadata(new HashMap<>(updates.existing));
+        BugService.mergeMetadata(target, updates.even);
+        return target;
+    }
+}
@@ -1,15 +1,27 @@
 package com.example.bugreporter;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
 
 @Entity
-@Table(name = "bugs")
+@Table(name = "bugs", indexes = {
+        @Index(name = "idx_bugs_status_priority_created_at", columnList = "status, priority, created_at, id"),
+        @Index(name = "idx_bugs_fingerprint", columnList = "fingerprint"),
+        @Index(name = "idx_bugs_change_seq", columnList = "change_seq")
+})
 public class Bug {
+    // Each bugs_id_seq value reserves this many ids (pooled-lo); bulk loads allocate the same way
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Ids come from bugs_id_seq in blocks of 50 so inserts can be JDBC-batched;
+    // IDENTITY would force Hibernate to insert row by row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bugs_id_seq")
+    @SequenceGenerator(name = "bugs_id_seq", sequenceName = "bugs_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(nullable = false)
@@ -20,9 +32,43 @@ public class Bug {
     
     private String screenshotUrl;
     
+    // SHA-256 of an uploaded screenshot, its key in the ScreenshotStore; screenshotUrl then points at it
+    @Column(length = 64)
+    @JsonIgnore
+    private String screenshotHash;
+    
+    @Column(length = 100)
+    @JsonIgnore
+    private String screenshotContentType;
+    
+    // Downscaled copy of an uploaded screenshot, generated in the background
+    private String thumbnailUrl;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Position in bug_change_seq of the last write; set by BugService for delta sync
+    @Column(nullable = false)
+    private long changeSeq;
+    
+    // Optimistic lock, raised by every write except folded occurrences; clients send it
+    // back to update the bug only as they last saw it
+    @Version
+    @Column(nullable = false)
+    private long version;
+    
+    // Hash of the normalized report, set when created through duplicate detection
+    @Column(length = 64)
+    @JsonIgnore
+    private String fingerprint;
+    
+    // Reports folded into this bug, the original one included
+    @Column(nullable = false)
+    private long occurrences = 1;
+    
     @Enumerated(EnumType.STRING)
     private Status status = Status.OPEN;
     
@@ -33,7 +79,9 @@ public class Bug {
     // Add support for custom metadata fields
     @ElementCollection
     @CollectionTable(name = "bug_metadata", 
-                    joinColumns = @JoinColumn(name = "bug_id"))
+                    joinColumns = @JoinColumn(name = "bug_id"),
+                    indexes = @Index(name = "idx_bug_metadata_key_value",
+                                     columnList = "metadata_key, metadata_value, bug_id"))
     @MapKeyColumn(name = "metadata_key")
     @Column(name = "metadata_value")
     private Map<String, String> metadata = new HashMap<>();
@@ -48,7 +96,8 @@ public class Bug {
     
     // Default constructor
     public Bug() {
-        this.createdAt = LocalDateTime.now();
+        this.createdAt = now();
+        this.updatedAt = this.createdAt;
     }
     
     // Constructor
@@ -81,6 +130,30 @@ public class Bug {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(long changeSeq) { this.changeSeq = changeSeq; }
+    
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    
+    public String getScreenshotHash() { return screenshotHash; }
+    public void setScreenshotHash(String screenshotHash) { this.screenshotHash = screenshotHash; }
+    
+    public String getScreenshotContentType() { return screenshotContentType; }
+    public void setScreenshotContentType(String screenshotContentType) { this.screenshotContentType = screenshotContentType; }
+    
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+    
+    public long getOccurrences() { return occurrences; }
+    public void setOccurrences(long occurrences) { this.occurrences = occurrences; }
+    
     public Status getStatus() { return status; }
     public void setStatus(Status status) { this.status = status; }
     
@@ -97,4 +170,14 @@ public class Bug {
         }
         this.metadata.put(key, value);
     }
+    
+    // Helper method to record a modification; every write path must call it
+    public void markUpdated() {
+        this.updatedAt = now();
+    }
+    
+    // Truncated to what the database stores, so values compare equal after a round trip
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
\ No newline at end of file
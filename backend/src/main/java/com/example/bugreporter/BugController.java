@@ -1,38 +1,492 @@
 package com.example.bugreporter;
 
+import com.example.bugreporter.service.BugBulkUpdateResult;
+import com.example.bugreporter.service.BugCache;
+import com.example.bugreporter.service.BugChanges;
+import com.example.bugreporter.service.BugCursor;
+import com.example.bugreporter.service.BugDeduplicator;
+import com.example.bugreporter.service.BugEventStream;
+import com.example.bugreporter.service.BugExportFormat;
+import com.example.bugreporter.service.BugExporter;
+import com.example.bugreporter.service.BugFilter;
+import com.example.bugreporter.service.BugIdempotency;
+import com.example.bugreporter.service.BugIngestQueue;
+import com.example.bugreporter.service.BugListVersion;
+import com.example.bugreporter.service.BugPage;
+import com.example.bugreporter.service.BugScreenshots;
+import com.example.bugreporter.service.BugSearchPage;
+import com.example.bugreporter.service.BugSort;
 import com.example.bugreporter.service.BugService;
+import com.example.bugreporter.service.BugStats;
+import com.example.bugreporter.service.BugStatsCounters;
+import com.example.bugreporter.service.BugVersionConflictException;
+import com.example.bugreporter.service.ChangeToken;
+import com.example.bugreporter.service.ConnectionGate;
+import com.example.bugreporter.service.IdempotencyKeyInUseException;
+import com.example.bugreporter.service.ScreenshotStore;
+import com.example.bugreporter.service.ScreenshotThumbnails;
+import com.example.bugreporter.service.ScreenshotTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/bugs")
 @CrossOrigin // Use CORS configuration from application properties
 public class BugController {
-    
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final String INGEST_ID_METADATA_KEY = "ingestId";
+    // meta.<key>=<value>; metadata.<key> is accepted as a longer alias
+    private static final String[] METADATA_FILTER_PREFIXES = {"meta.", "metadata."};
+    private static final int INGEST_RETRY_AFTER_SECONDS = 1;
+    private static final int STREAM_RETRY_AFTER_SECONDS = 5;
+    private static final int DB_RETRY_AFTER_SECONDS = 1;
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    // How soon to retry a request whose Idempotency-Key is held by one still in progress
+    private static final int IDEMPOTENCY_RETRY_AFTER_SECONDS = 1;
+    // Tomcat sends a file named in these request attributes itself, straight from the page cache
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final BugService bugService;
+    private final BugIngestQueue ingestQueue;
+    private final BugCache bugCache;
+    private final BugEventStream eventStream;
+    private final BugStatsCounters statsCounters;
+    private final BugExporter exporter;
+    private final BugDeduplicator deduplicator;
+    private final ConnectionGate connectionGate;
+    private final BugScreenshots screenshots;
+    private final ScreenshotThumbnails thumbnails;
+    private final BugIdempotency idempotency;
     
     @Autowired
-    public BugController(BugService bugService) {
+    public BugController(BugService bugService, BugIngestQueue ingestQueue, BugCache bugCache,
+                         BugEventStream eventStream, BugStatsCounters statsCounters, BugExporter exporter,
+                         BugDeduplicator deduplicator, ConnectionGate connectionGate,
+                         BugScreenshots screenshots, ScreenshotThumbnails thumbnails,
+                         BugIdempotency idempotency) {
         this.bugService = bugService;
+        this.ingestQueue = ingestQueue;
+        this.bugCache = bugCache;
+        this.eventStream = eventStream;
+        this.statsCounters = statsCounters;
+        this.exporter = exporter;
+        this.deduplicator = deduplicator;
+        this.connectionGate = connectionGate;
+        this.screenshots = screenshots;
+        this.thumbnails = thumbnails;
+        this.idempotency = idempotency;
     }
     
+    /**
+     * Lists bugs newest first, one keyset page at a time ({@code limit}, default
+     * {@link BugService#DEFAULT_PAGE_SIZE}); the cursor for the next page is returned in the
+     * {@value #NEXT_CURSOR_HEADER} header and is absent on the last page.
+     * {@code status}, {@code priority} (both multi-valued), {@code createdFrom}/{@code createdTo},
+     * {@code meta.<key>=<value>} and {@code sort} filter and order the list on the server.
+     * {@code all=true}, without any other parameter, returns the whole table in one response.
+     * Supports If-None-Match, answered from two index lookups without loading bugs.
+     */
     @GetMapping
-    public List<Bug> getAllBugs() {
-        return bugService.getAllBugs();
+    public ResponseEntity<List<Bug>> getAllBugs(@RequestParam(defaultValue = "false") boolean all,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) List<Bug.Status> status,
+                                                @RequestParam(required = false) List<Bug.Priority> priority,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                                @RequestParam(required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                                @RequestParam(required = false) String sort,
+                                                WebRequest webRequest) {
+        // checkNotModified also sets the ETag header on the response when it doesn't match
+        String eTag = listETag(bugService.getListVersion(), webRequest);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        BugPage page;
+        try {
+            BugFilter filter = metadataFilter(webRequest)
+                    .setStatuses(status)
+                    .setPriorities(priority)
+                    .setCreatedFrom(createdFrom)
+                    .setCreatedTo(createdTo);
+            BugSort order = sort != null ? BugSort.parse(sort) : BugSort.DEFAULT;
+            boolean unpaged = limit == null && after == null && filter.isEmpty() && order == BugSort.DEFAULT;
+            if (all) {
+                if (!unpaged) {
+                    return ResponseEntity.badRequest().build();
+                }
+                return response.body(bugService.getAllBugs());
+            }
+            BugCursor cursor = after != null ? BugCursor.decode(after) : null;
+            page = bugService.getBugsPage(filter, order, cursor, limit != null ? limit : BugService.DEFAULT_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().encode());
+        }
+        return response.body(page.getBugs());
+    }
+    
+    /**
+     * Streams every bug matching the filters, in id order, as NDJSON or CSV with metadata
+     * inline. Rows are written as they are read, so memory use doesn't grow with the
+     * export. {@code updatedFrom} selects bugs created or written since a previous export.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBugs(@RequestParam(defaultValue = "ndjson") String format,
+                                                            @RequestParam(required = false) List<Bug.Status> status,
+                                                            @RequestParam(required = false) List<Bug.Priority> priority,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedFrom,
+                                                            WebRequest webRequest) {
+        BugExportFormat exportFormat;
+        BugFilter filter;
+        try {
+            exportFormat = BugExportFormat.parse(format);
+            filter = metadataFilter(webRequest)
+                    .setStatuses(status)
+                    .setPriorities(priority)
+                    .setCreatedFrom(createdFrom)
+                    .setCreatedTo(createdTo)
+                    .setUpdatedFrom(updatedFrom);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bugs." + exportFormat.getExtension() + "\"")
+                .body(out -> exporter.export(filter, exportFormat, out));
     }
     
+    /**
+     * @throws IllegalArgumentException if a key is empty or too long, or is given more than once
+     */
+    private static BugFilter metadataFilter(WebRequest webRequest) {
+        BugFilter filter = BugFilter.none();
+        for (Map.Entry<String, String[]> parameter : webRequest.getParameterMap().entrySet()) {
+            for (String prefix : METADATA_FILTER_PREFIXES) {
+                if (!parameter.getKey().startsWith(prefix)) {
+                    continue;
+                }
+                String key = parameter.getKey().substring(prefix.length());
+                if (key.isEmpty() || key.length() > 255 || parameter.getValue().length != 1
+                        || filter.getMetadata().containsKey(key)) {
+                    throw new IllegalArgumentException("Invalid metadata filter: " + parameter.getKey());
+                }
+                filter.addMetadata(key, parameter.getValue()[0]);
+            }
+        }
+        return filter;
+    }
+    
+    /**
+     * Supports If-None-Match; a matching poll is answered with 304 from the cache
+     * or a single-column lookup, without serializing the bug.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Bug> getBugById(@PathVariable Long id) {
+    public ResponseEntity<Bug> getBugById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<LocalDateTime> version = bugService.getBugVersion(id);
+        if (version.isPresent() && webRequest.checkNotModified(bugETag(id, version.get()))) {
+            return null;
+        }
         return bugService.getBugById(id)
-                .map(ResponseEntity::ok)
+                .map(bug -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+                    // When the version was known, checkNotModified has already set the ETag header
+                    if (version.isEmpty()) {
+                        response.eTag(bugETag(bug.getId(), bug.getUpdatedAt()));
+                    }
+                    return response.body(bug);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    /**
+     * Full-text search over title and description, most relevant first. The offset of
+     * the next page is returned in the {@value #NEXT_OFFSET_HEADER} header and is absent
+     * on the last page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Bug>> searchBugs(@RequestParam String q,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(defaultValue = "0") int offset) {
+        if (q.isBlank() || offset < 0 || offset > BugService.MAX_SEARCH_OFFSET) {
+            return ResponseEntity.badRequest().build();
+        }
+        BugSearchPage page = bugService.searchBugs(q.trim(), offset,
+                limit != null ? limit : BugService.DEFAULT_PAGE_SIZE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_OFFSET_HEADER, String.valueOf(page.getNextOffset()));
+        }
+        return response.body(page.getBugs());
+    }
+    
+    /**
+     * Delta sync: everything created, updated or deleted after {@code since}. Omit
+     * {@code since} on the first call, then pass back the {@code nextToken} of each
+     * response. Keep fetching while {@code hasMore} is true.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<BugChanges> getChanges(@RequestParam(required = false) String since,
+                                                 @RequestParam(required = false) Integer limit) {
+        ChangeToken token;
+        try {
+            token = since != null ? ChangeToken.decode(since) : ChangeToken.INITIAL;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bugService.getChanges(token, limit != null ? limit : BugService.DEFAULT_PAGE_SIZE));
+    }
+    
+    /**
+     * Server-Sent Events feed of committed changes, one event per change, named after
+     * its type. Replaces polling; a client that falls too far behind is disconnected
+     * and should reload the list when its EventSource reconnects.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges() {
+        return eventStream.subscribe()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(STREAM_RETRY_AFTER_SECONDS))
+                        .build());
+    }
+    
+    @GetMapping("/stream/stats")
+    public BugEventStream.StreamStats getStreamStats() {
+        return eventStream.getStats();
+    }
+    
+    /**
+     * Counts by status and priority, and creations per day, served from in-memory
+     * counters rather than a scan of the table
+     */
+    @GetMapping("/stats")
+    public BugStats getStats() {
+        return statsCounters.getStats();
+    }
+    
+    // Strong validator: changes whenever the bug or its metadata is written
+    private static String bugETag(Long id, LocalDateTime updatedAt) {
+        return "\"" + id + "-" + Long.toHexString(toEpochMicros(updatedAt)) + "\"";
+    }
+    
+    // Table fingerprint plus the query parameters, since each query is its own representation
+    private static String listETag(BugListVersion version, WebRequest webRequest) {
+        if (version == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        new TreeMap<>(webRequest.getParameterMap()).forEach((name, values) ->
+                query.append(name).append('=').append(String.join(",", values)).append('&'));
+        return "\"list-" + Long.toHexString(version.getLastChangeSeq()) + "-" + Long.toHexString(version.getLastDeletedSeq())
+                + "-" + Integer.toHexString(query.toString().hashCode()) + "\"";
+    }
+    
+    private static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+    
+    /**
+     * A report with the same title, description and key metadata as an open bug is
+     * folded into it: the existing bug is returned with its {@code occurrences} raised.
+     * A retry with the same {@code Idempotency-Key} returns the first attempt's bug and
+     * neither inserts nor counts anything; 410 if that bug has been deleted since.
+     */
     @PostMapping
-    public Bug createBug(@RequestBody CreateBugRequest request) {
+    public ResponseEntity<Bug> createBug(@RequestBody CreateBugRequest request,
+                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Bug bug = toBug(request);
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(deduplicator.report(bug));
+        }
+        try {
+            return idempotency.create(idempotencyKey, () -> deduplicator.report(bug))
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Fire-and-forget variant of {@link #createBug}: the report is queued and written
+     * in a later group commit. The returned ingest id is stored as the
+     * {@value #INGEST_ID_METADATA_KEY} metadata entry so clients can find the bug later.
+     */
+    @PostMapping(params = "async=true")
+    public ResponseEntity<IngestReceipt> createBugAsync(@RequestBody CreateBugRequest request) {
+        String error = request.validate();
+        if (error != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String ingestId = UUID.randomUUID().toString();
+        Bug bug = toBug(request);
+        bug.addMetadata(INGEST_ID_METADATA_KEY, ingestId);
+        
+        if (!ingestQueue.offer(bug)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(INGEST_RETRY_AFTER_SECONDS))
+                    .build();
+        }
+        return ResponseEntity.accepted().body(new IngestReceipt(ingestId));
+    }
+    
+    @GetMapping("/ingest/stats")
+    public BugIngestQueue.IngestStats getIngestStats() {
+        return ingestQueue.getStats();
+    }
+    
+    @GetMapping("/dedup/stats")
+    public BugDeduplicator.DedupStats getDedupStats() {
+        return deduplicator.getStats();
+    }
+    
+    @GetMapping("/cache/stats")
+    public BugCache.BugCacheStats getCacheStats() {
+        return bugCache.getStats();
+    }
+    
+    /**
+     * Connections in use and queued at the gate in front of the pool, with wait times
+     */
+    @GetMapping("/db/stats")
+    public ConnectionGate.GateStats getDbStats() {
+        return connectionGate.getStats();
+    }
+    
+    /**
+     * Screenshots queued for and being turned into thumbnails, with generation time
+     */
+    @GetMapping("/thumbnails/stats")
+    public ScreenshotThumbnails.ThumbnailStats getThumbnailStats() {
+        return thumbnails.getStats();
+    }
+    
+    @GetMapping("/idempotency/stats")
+    public BugIdempotency.IdempotencyStats getIdempotencyStats() {
+        return idempotency.getStats();
+    }
+    
+    /**
+     * No database connection became free in time: the database is saturated, so the
+     * client is asked to come back shortly rather than shown a server error
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<Void> databaseBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(DB_RETRY_AFTER_SECONDS))
+                .build();
+    }
+    
+    /**
+     * Another request with the same Idempotency-Key is still running; once it is done,
+     * a retry gets its result
+     */
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ResponseEntity<Void> idempotencyKeyInUse() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(IDEMPOTENCY_RETRY_AFTER_SECONDS))
+                .build();
+    }
+    
+    /**
+     * Creates up to {@value #MAX_BATCH_SIZE} bugs in one transaction. Items are
+     * validated individually; invalid ones are reported back without failing the rest.
+     * A retry with the same {@code Idempotency-Key} gets the first attempt's ids back.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createBugs(@RequestBody List<CreateBugRequest> requests,
+                                                            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<Bug> accepted = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String error = requests.get(i) == null ? "Missing item" : requests.get(i).validate();
+            if (error != null) {
+                results[i] = BatchItemResult.rejected(i, error);
+            } else {
+                acceptedIndexes.add(i);
+                accepted.add(toBug(requests.get(i)));
+            }
+        }
+        
+        if (!accepted.isEmpty()) {
+            List<Long> ids;
+            try {
+                ids = idempotencyKey == null
+                        ? createBugIds(accepted)
+                        : idempotency.createAll(idempotencyKey, accepted.size(), () -> createBugIds(accepted));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            for (int j = 0; j < ids.size(); j++) {
+                int index = acceptedIndexes.get(j);
+                results[index] = BatchItemResult.created(index, ids.get(j));
+            }
+        }
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+    
+    private List<Long> createBugIds(List<Bug> bugs) {
+        return bugService.createBugs(bugs).stream().map(Bug::getId).toList();
+    }
+    
+    private Bug toBug(CreateBugRequest request) {
         Bug bug = new Bug(request.getTitle(), request.getDescription(), request.getScreenshotUrl());
         
         if (request.getPriority() != null) {
@@ -45,41 +499,216 @@ public class BugController {
                 bug.addMetadata(entry.getKey(), entry.getValue());
             }
         }
-        
-        return bugService.createBug(bug);
+        return bug;
     }
     
+    /**
+     * Sets only the status column, so a concurrent change to another field is never lost.
+     * With {@code version} in the body, the update applies only if the bug is still at that
+     * version; otherwise the response is 409 with the bug as it is now.
+     */
     @PutMapping("/{id}/status")
     public ResponseEntity<Bug> updateBugStatus(@PathVariable Long id, @RequestBody UpdateStatusRequest request) {
-        Bug bugUpdate = new Bug();
-        bugUpdate.setStatus(request.getStatus());
-        
-        return bugService.updateBug(id, bugUpdate)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        return updateTriage(id, request.getStatus(), null, request.getVersion());
     }
     
+    // Like updateBugStatus, for the priority column
     @PutMapping("/{id}/priority")
     public ResponseEntity<Bug> updateBugPriority(@PathVariable Long id, @RequestBody UpdatePriorityRequest request) {
-        Bug bugUpdate = new Bug();
-        bugUpdate.setPriority(request.getPriority());
-        
-        return bugService.updateBug(id, bugUpdate)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        return updateTriage(id, null, request.getPriority(), request.getVersion());
+    }
+    
+    private ResponseEntity<Bug> updateTriage(Long id, Bug.Status status, Bug.Priority priority, Long version) {
+        try {
+            return bugService.updateTriage(id, status, priority, version)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @ExceptionHandler(BugVersionConflictException.class)
+    public ResponseEntity<Bug> versionConflict(BugVersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getCurrent());
+    }
+    
+    /**
+     * A whole-entity write lost to a concurrent update of the same bug; answered like a
+     * stale version, with the bug as it is now
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Bug> optimisticLockingFailure(ObjectOptimisticLockingFailureException e) {
+        Optional<Bug> current = e.getIdentifier() instanceof Long id ? bugService.getBugById(id) : Optional.empty();
+        return current.map(bug -> ResponseEntity.status(HttpStatus.CONFLICT).body(bug))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+    
+    /**
+     * JSON merge patch of the bug's metadata: a key with a value is added or overwritten,
+     * a key with null is removed, and keys not mentioned are kept. Only the named entries
+     * are written; the bug's other metadata is never loaded or rewritten.
+     */
+    @PatchMapping(path = "/{id}/metadata", consumes = {MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH_JSON})
+    public ResponseEntity<Bug> patchBugMetadata(@PathVariable Long id, @RequestBody Map<String, String> metadata) {
+        try {
+            return bugService.updateBugMetadata(id, metadata)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
+    // Older form of patchBugMetadata, kept for existing clients; same semantics
     @PutMapping("/{id}/metadata")
     public ResponseEntity<Bug> updateBugMetadata(@PathVariable Long id, @RequestBody Map<String, String> metadata) {
-        return bugService.getBugById(id)
-                .map(bug -> {
-                    // Update metadata
-                    for (Map.Entry<String, String> entry : metadata.entrySet()) {
-                        bug.addMetadata(entry.getKey(), entry.getValue());
-                    }
-                    return ResponseEntity.ok(bugService.createBug(bug));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        return patchBugMetadata(id, metadata);
+    }
+    
+    /**
+     * Sets the status and/or priority of the listed bugs, or of every bug matching a
+     * filter, in one transaction with a single UPDATE statement. At most
+     * {@value BugService#MAX_BULK_UPDATE_SIZE} bugs can match.
+     */
+    @PatchMapping("/bulk")
+    public ResponseEntity<BugBulkUpdateResult> bulkUpdateBugs(@RequestBody BulkUpdateRequest request) {
+        try {
+            return ResponseEntity.ok(bugService.bulkUpdate(request.toFilter(), request.getStatus(), request.getPriority()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Attaches a screenshot sent as the {@code file} part of a multipart form. The bug's
+     * screenshotUrl then points at {@link #downloadScreenshot}.
+     */
+    @PutMapping(path = "/{id}/screenshot", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Bug> uploadScreenshotForm(@PathVariable Long id,
+                                                    @RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return uploadScreenshot(id, content);
+        }
+    }
+    
+    /**
+     * Attaches a screenshot sent as the raw request body. The image is streamed to the
+     * screenshot store rather than read into memory, and an image already stored for
+     * another bug is not stored again.
+     */
+    @PutMapping(path = "/{id}/screenshot", consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE,
+            MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    public ResponseEntity<Bug> uploadScreenshotBody(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        return uploadScreenshot(id, request.getInputStream());
+    }
+    
+    private ResponseEntity<Bug> uploadScreenshot(Long id, InputStream content) throws IOException {
+        String url = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/bugs/{id}/screenshot").buildAndExpand(id).toUriString();
+        try {
+            return ResponseEntity.of(screenshots.upload(id, content, url));
+        } catch (ScreenshotTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Serves the uploaded screenshot, revalidated by ETag. A single byte range is
+     * answered with 206; several ranges get the whole image. The bytes go from the file
+     * to the socket with sendfile when Tomcat supports it, otherwise through
+     * {@code FileChannel.transferTo}, and never pass through the heap as a whole.
+     */
+    @GetMapping("/{id}/screenshot")
+    public void downloadScreenshot(@PathVariable Long id, HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        Optional<BugScreenshots.Screenshot> screenshot = screenshots.find(id);
+        if (screenshot.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        sendScreenshot(screenshot.get(), "\"" + screenshot.get().getHash() + "\"", request, response);
+    }
+    
+    /**
+     * Serves the screenshot's thumbnail like {@link #downloadScreenshot}. Until it has
+     * been generated, redirects to the full screenshot.
+     */
+    @GetMapping("/{id}/screenshot/thumbnail")
+    public void downloadThumbnail(@PathVariable Long id, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        Optional<BugScreenshots.Screenshot> thumbnail = screenshots.findThumbnail(id);
+        if (thumbnail.isPresent()) {
+            sendScreenshot(thumbnail.get(), "\"" + thumbnail.get().getHash() + "-thumbnail\"", request, response);
+            return;
+        }
+        if (screenshots.find(id).isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        response.setHeader(HttpHeaders.LOCATION, ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/bugs/{id}/screenshot").buildAndExpand(id).toUriString());
+    }
+    
+    private void sendScreenshot(BugScreenshots.Screenshot screenshot, String eTag, HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        ScreenshotStore.Blob blob = screenshot.getBlob();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+        
+        long size = blob.size();
+        long start = 0;
+        long end = size - 1;
+        List<HttpRange> ranges = requestedRanges(request, eTag);
+        if (ranges.size() == 1) {
+            // HttpRange clamps the end to the size but doesn't check the start against it
+            start = ranges.get(0).getRangeStart(size);
+            end = ranges.get(0).getRangeEnd(size);
+            if (start >= size || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        long length = end - start + 1;
+        response.setContentType(screenshot.getContentType());
+        response.setContentLengthLong(length);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+        
+        Optional<Path> file = blob.file();
+        if (file.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.get().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        blob.transferTo(start, length, Channels.newChannel(response.getOutputStream()));
+    }
+    
+    // Ranges apply only while If-Range, when sent, still matches; malformed ranges are ignored
+    private static List<HttpRange> requestedRanges(HttpServletRequest request, String eTag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range == null || (ifRange != null && !ifRange.equals(eTag))) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
     }
     
     @DeleteMapping("/{id}")
@@ -113,19 +742,168 @@ public class BugController {
         
         public Map<String, String> getMetadata() { return metadata; }
         public void setMetadata(Map<String, String> metadata) { this.metadata = metadata; }
+        
+        /**
+         * Checks the request against the column limits of bugs and bug_metadata
+         * @return a description of the first problem found, or null if the request is valid
+         */
+        public String validate() {
+            if (title == null || title.isBlank()) {
+                return "title is required";
+            }
+            if (title.length() > 255) {
+                return "title must be at most 255 characters";
+            }
+            if (description != null && description.length() > 1000) {
+                return "description must be at most 1000 characters";
+            }
+            if (screenshotUrl != null && screenshotUrl.length() > 1024) {
+                return "screenshotUrl must be at most 1024 characters";
+            }
+            if (metadata != null) {
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    if (entry.getKey() == null || entry.getKey().isEmpty() || entry.getKey().length() > 255) {
+                        return "metadata keys must be 1-255 characters";
+                    }
+                    if (entry.getValue() != null && entry.getValue().length() > 1024) {
+                        return "metadata value for '" + entry.getKey() + "' must be at most 1024 characters";
+                    }
+                }
+            }
+            return null;
+        }
+    }
+    
+    public static class IngestReceipt {
+        private final String ingestId;
+        
+        public IngestReceipt(String ingestId) {
+            this.ingestId = ingestId;
+        }
+        
+        public String getIngestId() { return ingestId; }
+    }
+    
+    public static class BatchItemResult {
+        private final int index;
+        private final Long id;
+        private final String error;
+        
+        private BatchItemResult(int index, Long id, String error) {
+            this.index = index;
+            this.id = id;
+            this.error = error;
+        }
+        
+        static BatchItemResult created(int index, Long id) {
+            return new BatchItemResult(index, id, null);
+        }
+        
+        static BatchItemResult rejected(int index, String error) {
+            return new BatchItemResult(index, null, error);
+        }
+        
+        public int getIndex() { return index; }
+        public Long getId() { return id; }
+        public String getError() { return error; }
+        public boolean isCreated() { return id != null; }
+    }
+    
+    public static class BulkUpdateRequest {
+        private List<Long> ids;
+        private BulkFilter filter;
+        private Bug.Status status;
+        private Bug.Priority priority;
+        
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+        
+        public BulkFilter getFilter() { return filter; }
+        public void setFilter(BulkFilter filter) { this.filter = filter; }
+        
+        public Bug.Status getStatus() { return status; }
+        public void setStatus(Bug.Status status) { this.status = status; }
+        
+        public Bug.Priority getPriority() { return priority; }
+        public void setPriority(Bug.Priority priority) { this.priority = priority; }
+        
+        /**
+         * @throws IllegalArgumentException unless exactly one of ids and filter is given and it is valid
+         */
+        BugFilter toFilter() {
+            if ((ids == null) == (filter == null)) {
+                throw new IllegalArgumentException("Exactly one of ids and filter is required");
+            }
+            if (ids != null) {
+                if (ids.isEmpty() || ids.size() > BugService.MAX_BULK_UPDATE_SIZE || ids.contains(null)) {
+                    throw new IllegalArgumentException("ids must list 1-" + BugService.MAX_BULK_UPDATE_SIZE + " bugs");
+                }
+                return BugFilter.none().setIds(ids);
+            }
+            BugFilter bugFilter = BugFilter.none()
+                    .setStatuses(filter.getStatus())
+                    .setPriorities(filter.getPriority())
+                    .setCreatedFrom(filter.getCreatedFrom())
+                    .setCreatedTo(filter.getCreatedTo());
+            if (filter.getMetadata() != null) {
+                for (Map.Entry<String, String> entry : filter.getMetadata().entrySet()) {
+                    if (entry.getKey().isEmpty() || entry.getKey().length() > 255) {
+                        throw new IllegalArgumentException("Invalid metadata filter: " + entry.getKey());
+                    }
+                    bugFilter.addMetadata(entry.getKey(), entry.getValue());
+                }
+            }
+            return bugFilter;
+        }
+    }
+    
+    /**
+     * Same conditions as the query parameters of {@link #getAllBugs}
+     */
+    public static class BulkFilter {
+        private List<Bug.Status> status;
+        private List<Bug.Priority> priority;
+        private LocalDateTime createdFrom;
+        private LocalDateTime createdTo;
+        private Map<String, String> metadata;
+        
+        public List<Bug.Status> getStatus() { return status; }
+        public void setStatus(List<Bug.Status> status) { this.status = status; }
+        
+        public List<Bug.Priority> getPriority() { return priority; }
+        public void setPriority(List<Bug.Priority> priority) { this.priority = priority; }
+        
+        public LocalDateTime getCreatedFrom() { return createdFrom; }
+        public void setCreatedFrom(LocalDateTime createdFrom) { this.createdFrom = createdFrom; }
+        
+        public LocalDateTime getCreatedTo() { return createdTo; }
+        public void setCreatedTo(LocalDateTime createdTo) { this.createdTo = createdTo; }
+        
+        public Map<String, String> getMetadata() { return metadata; }
+        public void setMetadata(Map<String, String> metadata) { this.metadata = metadata; }
     }
     
     public static class UpdateStatusRequest {
         private Bug.Status status;
+        // Version the client last read; optional
+        private Long version;
         
         public Bug.Status getStatus() { return status; }
         public void setStatus(Bug.Status status) { this.status = status; }
+        
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
     }
     
     public static class UpdatePriorityRequest {
         private Bug.Priority priority;
+        // Version the client last read; optional
+        private Long version;
         
         public Bug.Priority getPriority() { return priority; }
         public void setPriority(Bug.Priority priority) { this.priority = priority; }
+        
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.example.bugreporter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Idempotency keys of bug creates. A request claims its key by inserting it; the primary
+ * key lets exactly one of several concurrent requests do so, on any instance. The
+ * claim is completed with the created bug's id, or deleted if creating failed.
+ * Every method runs in a transaction of its own, or joins the caller's. Under
+ * open-in-view that transaction uses the connection the request's EntityManager already
+ * holds, so a request never needs a second connection for its key.
+ */
+@Repository
+public class BugIdempotencyKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BugIdempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claims {@code key} for the calling request
+     * @throws DuplicateKeyException if the key is already claimed or completed; on Postgres
+     *         the failed insert aborts the transaction, so follow up with {@link #takeOver}
+     *         in a new one
+     */
+    @Transactional
+    public void insert(String key) {
+        jdbcTemplate.update("INSERT INTO bug_idempotency_keys (idempotency_key, created_at) VALUES (?, ?)", key, now());
+    }
+
+    /**
+     * Claims {@code key} if it is still in progress but was claimed before {@code abandonedBefore}
+     * @return false if the key is completed or claimed by a request still in progress
+     */
+    @Transactional
+    public boolean takeOver(String key, LocalDateTime abandonedBefore) {
+        return jdbcTemplate.update("UPDATE bug_idempotency_keys SET created_at = ? "
+                + "WHERE idempotency_key = ? AND completed_at IS NULL AND created_at < ?",
+                now(), key, Timestamp.valueOf(abandonedBefore)) == 1;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Entry> find(String key) {
+        List<Entry> entries = jdbcTemplate.query(
+                "SELECT bug_id, completed_at FROM bug_idempotency_keys WHERE idempotency_key = ?",
+                (rs, row) -> new Entry(rs.getObject("bug_id", Long.class), rs.getTimestamp("completed_at") != null),
+                key);
+        return entries.stream().findFirst();
+    }
+
+    @Transactional
+    public void complete(String key, Long bugId) {
+        jdbcTemplate.update("UPDATE bug_idempotency_keys SET bug_id = ?, completed_at = ? WHERE idempotency_key = ?",
+                bugId, now(), key);
+    }
+
+    /**
+     * Completes a batch claim, recording each created bug under its own item key
+     */
+    @Transactional
+    public void completeBatch(String key, List<String> itemKeys, List<Long> bugIds) {
+        Timestamp now = now();
+        List<Object[]> items = new ArrayList<>(itemKeys.size());
+        for (int i = 0; i < itemKeys.size(); i++) {
+            items.add(new Object[] {itemKeys.get(i), bugIds.get(i), now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bug_idempotency_keys (idempotency_key, bug_id, created_at, completed_at) "
+                + "VALUES (?, ?, ?, ?)", items);
+        jdbcTemplate.update("UPDATE bug_idempotency_keys SET completed_at = ? WHERE idempotency_key = ?", now, key);
+    }
+
+    /**
+     * @return the bug id of each of {@code keys} that is completed; missing keys are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> findBugIds(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Long> bugIds = new HashMap<>();
+        jdbcTemplate.query("SELECT idempotency_key, bug_id FROM bug_idempotency_keys WHERE idempotency_key IN ("
+                        + String.join(", ", Collections.nCopies(keys.size(), "?")) + ") AND completed_at IS NOT NULL",
+                rs -> {
+                    bugIds.put(rs.getString("idempotency_key"), rs.getObject("bug_id", Long.class));
+                },
+                keys.toArray());
+        return bugIds;
+    }
+
+    /**
+     * Gives up a claim that is still in progress, so a retry can claim the key again
+     */
+    @Transactional
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM bug_idempotency_keys WHERE idempotency_key = ? AND completed_at IS NULL", key);
+    }
+
+    /**
+     * @return the number of keys deleted
+     */
+    @Transactional
+    public int deleteClaimedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM bug_idempotency_keys WHERE created_at < ?", Timestamp.valueOf(cutoff));
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+    }
+
+    /**
+     * A claimed key; the bug id is null until completed, and for whole batches
+     */
+    public static class Entry {
+        private final Long bugId;
+        private final boolean completed;
+
+        public Entry(Long bugId, boolean completed) {
+            this.bugId = bugId;
+            this.completed = completed;
+        }
+
+        public Long getBugId() { return bugId; }
+        public boolean isCompleted() { return completed; }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bugreporter;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Progress of a bulk import, committed together with each loaded batch so an
+ * interrupted import resumes after the last line that made it into the database.
+ */
+@Entity
+@Table(name = "bug_import_checkpoints")
+public class BugImportCheckpoint {
+    @Id
+    private String importId;
+    
+    // Last source line whose outcome (loaded or rejected) is committed
+    @Column(nullable = false)
+    private long lineNumber;
+    
+    @Column(nullable = false)
+    private long imported;
+    
+    @Column(nullable = false)
+    private long rejected;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Default constructor
+    protected BugImportCheckpoint() {
+    }
+    
+    public BugImportCheckpoint(String importId) {
+        this.importId = importId;
+        this.updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+    
+    public void advance(long lineNumber, long imported, long rejected) {
+        this.lineNumber = lineNumber;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+    
+    public String getImportId() { return importId; }
+    
+    public long getLineNumber() { return lineNumber; }
+    
+    public long getImported() { return imported; }
+    
+    public long getRejected() { return rejected; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,8 @@
+package com.example.bugreporter;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BugImportCheckpointRepository extends JpaRepository<BugImportCheckpoint, String> {
+}
@@ -0,0 +1,49 @@
+package com.example.bugreporter;
+
+import com.example.bugreporter.service.BugImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Imports an NDJSON file at startup and exits, when started with
+ * {@code --bugreporter.import.file=<path>}. Run it again with the same import id to
+ * resume an interrupted import.
+ */
+@Component
+@ConditionalOnProperty("bugreporter.import.file")
+public class BugImportRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BugImportRunner.class);
+
+    private final BugImporter importer;
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+    private final String importId;
+
+    @Autowired
+    public BugImportRunner(BugImporter importer, ConfigurableApplicationContext context,
+                           @Value("${bugreporter.import.file}") String file,
+                           @Value("${bugreporter.import.id:}") String importId) {
+        this.importer = importer;
+        this.context = context;
+        this.file = Path.of(file);
+        // Defaults to the file name, so rerunning the same command resumes
+        this.importId = importId.isEmpty() ? this.file.getFileName().toString() : importId;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        BugImporter.ImportResult result = importer.importFile(file, importId);
+        result.getErrors().forEach(error -> logger.warn("Rejected {}", error));
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
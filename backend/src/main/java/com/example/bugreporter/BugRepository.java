@@ -1,11 +1,108 @@
 package com.example.bugreporter;
 
+import com.example.bugreporter.service.BugListVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BugRepository extends JpaRepository<Bug, Long> {
+public interface BugRepository extends JpaRepository<Bug, Long>, BugRepositoryCustom {
     List<Bug> findByStatusOrderByCreatedAtDesc(Bug.Status status);
+
+    // Metadata is fetched in the same statement so serializing the list doesn't
+    // lazily load one map per bug
+    @EntityGraph(attributePaths = "metadata")
     List<Bug> findAllByOrderByCreatedAtDesc();
-}
\ No newline at end of file
+
+    // Single bug with metadata in one statement, safe to use after the session closes
+    @EntityGraph(attributePaths = "metadata")
+    Optional<Bug> findWithMetadataById(Long id);
+
+    // Validators for conditional GETs, answered without loading entities
+    @Query("SELECT b.updatedAt FROM Bug b WHERE b.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    // Both maxima come off an index (idx_bugs_change_seq and the tombstones' primary key)
+    @Query("SELECT new com.example.bugreporter.service.BugListVersion(COALESCE(MAX(b.changeSeq), 0), "
+            + "(SELECT COALESCE(MAX(t.changeSeq), 0) FROM BugTombstone t)) FROM Bug b")
+    BugListVersion findListVersion();
+
+    // First page of the keyset listing
+    @Query("SELECT b.id FROM Bug b ORDER BY b.createdAt DESC, b.id DESC")
+    List<Long> findFirstPageIds(Pageable pageable);
+
+    // Keyset page strictly after (createdAt, id). The leading range on created_at
+    // keeps the predicate sargable against idx_bugs_created_at.
+    @Query("SELECT b.id FROM Bug b WHERE b.createdAt <= :createdAt "
+            + "AND (b.createdAt < :createdAt OR b.id < :id) "
+            + "ORDER BY b.createdAt DESC, b.id DESC")
+    List<Long> findPageIdsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+
+    // Delta sync: bugs written after (changeSeq, id), oldest change first
+    @Query("SELECT b.id FROM Bug b WHERE b.changeSeq >= :changeSeq "
+            + "AND (b.changeSeq > :changeSeq OR b.id > :id) "
+            + "ORDER BY b.changeSeq ASC, b.id ASC")
+    List<Long> findIdsChangedAfter(@Param("changeSeq") long changeSeq,
+                                   @Param("id") long id,
+                                   Pageable pageable);
+
+    // Stats reconciliation: one row per (status, priority) pair that has bugs
+    @Query("SELECT b.status, b.priority, COUNT(b) FROM Bug b GROUP BY b.status, b.priority")
+    List<Object[]> countByStatusAndPriority();
+
+    // Stats reconciliation: one row per day with creations since the given instant
+    @Query("SELECT CAST(b.createdAt AS LocalDate), COUNT(b) FROM Bug b WHERE b.createdAt >= :since "
+            + "GROUP BY CAST(b.createdAt AS LocalDate)")
+    List<Object[]> countCreatedPerDaySince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT COALESCE(MAX(b.changeSeq), 0) FROM Bug b")
+    long findMaxChangeSeq();
+
+    // Duplicate detection: bugs with this fingerprint not in the excluded status, oldest first
+    @Query("SELECT b.id FROM Bug b WHERE b.fingerprint = :fingerprint AND b.status <> :excluded ORDER BY b.id")
+    List<Long> findIdsByFingerprint(@Param("fingerprint") String fingerprint,
+                                    @Param("excluded") Bug.Status excluded,
+                                    Pageable pageable);
+
+    // Duplicate detection: fingerprints of bugs not in the excluded status, for warming the filter
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.fingerprint FROM Bug b WHERE b.fingerprint IS NOT NULL AND b.status <> :excluded")
+    Stream<String> streamFingerprints(@Param("excluded") Bug.Status excluded);
+
+    // Adds folded duplicate reports to the bug without loading it; concurrent additions can't lose a count
+    @Modifying
+    @Query("UPDATE Bug b SET b.occurrences = b.occurrences + :count, b.updatedAt = :updatedAt, "
+            + "b.changeSeq = :changeSeq WHERE b.id = :id")
+    int addOccurrences(@Param("id") Long id,
+                       @Param("count") long count,
+                       @Param("updatedAt") LocalDateTime updatedAt,
+                       @Param("changeSeq") long changeSeq);
+
+    // Stamps a write on the bug without loading it, for changes made with statements of their own.
+    // Clears the session, so a copy of the bug loaded earlier in the transaction is read again.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Bug b SET b.updatedAt = :updatedAt, b.changeSeq = :changeSeq, b.version = b.version + 1 "
+            + "WHERE b.id = :id")
+    int markUpdated(@Param("id") Long id,
+                    @Param("updatedAt") LocalDateTime updatedAt,
+                    @Param("changeSeq") long changeSeq);
+
+    // Loads a page worth of bugs and their metadata in a single round trip.
+    // Paging happens on ids first because a fetch join can't be limited in SQL.
+    @Query("SELECT b FROM Bug b LEFT JOIN FETCH b.metadata WHERE b.id IN :ids")
+    List<Bug> findAllWithMetadataByIdIn(@Param("ids") Collection<Long> ids);
+}
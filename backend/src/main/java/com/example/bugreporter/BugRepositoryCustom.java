@@ -0,0 +1,82 @@
+package com.example.bugreporter;
+
+import com.example.bugreporter.service.BugCursor;
+import com.example.bugreporter.service.BugFilter;
+import com.example.bugreporter.service.BugSort;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Repository operations that need more than derived or annotated queries
+ */
+public interface BugRepositoryCustom {
+    /**
+     * Draws the next value of the global change sequence shared by bug writes and tombstones
+     */
+    long nextChangeSeq();
+
+    /**
+     * Reserves {@code count} bug ids from bugs_id_seq for rows inserted outside Hibernate,
+     * drawing whole blocks the way the entity's pooled-lo generator does
+     */
+    List<Long> allocateIds(int count);
+
+    /**
+     * Ids of bugs whose title or description match {@code query}, most relevant first.
+     * Uses the tsvector index on Postgres and substring matching elsewhere.
+     */
+    List<Long> searchIds(String query, int offset, int limit);
+
+    /**
+     * Ids of bugs matching {@code filter} in {@code sort} order, starting after {@code after} if given
+     */
+    List<Long> findFilteredIds(BugFilter filter, BugSort sort, BugCursor after, int limit);
+
+    /**
+     * Bugs matching {@code filter} in id order, read from a forward-only cursor
+     * {@code fetchSize} rows at a time. Metadata is not loaded; pair the stream with
+     * {@link #streamFilteredMetadata}. Must be consumed and closed inside a transaction.
+     */
+    Stream<Bug> streamFiltered(BugFilter filter, int fetchSize);
+
+    /**
+     * Metadata entries of the bugs matching {@code filter} as (bug id, key, value) rows,
+     * in bug id order, so they can be merged with {@link #streamFiltered} without a lookup per bug
+     */
+    Stream<Object[]> streamFilteredMetadata(BugFilter filter, int fetchSize);
+
+    /**
+     * (id, status, priority, version) of at most {@code limit} bugs matching {@code filter},
+     * in id order, locked for update until the transaction ends. Nothing else is loaded.
+     */
+    List<Object[]> lockFiltered(BugFilter filter, int limit);
+
+    /**
+     * Sets status and/or priority (null leaves the column unchanged), updatedAt and
+     * changeSeq of the bugs in {@code ids}, and raises their version, with a single
+     * UPDATE statement that writes no other column. Flushes pending changes first and
+     * clears the persistence context afterwards; evicting cached copies is up to the caller.
+     * @return the number of rows updated
+     */
+    int bulkUpdate(Collection<Long> ids, Bug.Status status, Bug.Priority priority,
+                   LocalDateTime updatedAt, long changeSeq);
+
+    /**
+     * Adds or overwrites the given metadata entries of a bug with a single statement,
+     * leaving its other entries alone: INSERT ... ON CONFLICT on Postgres, MERGE elsewhere.
+     * Bypasses the persistence context; a loaded metadata map is not updated.
+     * @return the number of entries written
+     */
+    int upsertMetadata(Long bugId, Map<String, String> entries);
+
+    /**
+     * Removes the metadata entries with the given keys from a bug with a single statement.
+     * Bypasses the persistence context, like {@link #upsertMetadata}.
+     * @return the number of entries removed
+     */
+    int deleteMetadata(Long bugId, Collection<String> keys);
+}
@@ -0,0 +1,335 @@
+package com.example.bugreporter;
+
+import com.example.bugreporter.service.BugCursor;
+import com.example.bugreporter.service.BugFilter;
+import com.example.bugreporter.service.BugSort;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.MapJoin;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Picked up by Spring Data as the implementation of {@link BugRepositoryCustom}
+ */
+public class BugRepositoryImpl implements BugRepositoryCustom {
+
+    static final String CHANGE_SEQUENCE = "bug_change_seq";
+    static final String ID_SEQUENCE = "bugs_id_seq";
+
+    // Ranked by cover density over the weighted vector of V7__Add_bug_search_vector
+    private static final String POSTGRES_SEARCH_SQL =
+            "SELECT b.id FROM bugs b, websearch_to_tsquery('english', :query) q "
+            + "WHERE b.search_vector @@ q "
+            + "ORDER BY ts_rank_cd(b.search_vector, q) DESC, b.id DESC";
+
+    // Fallback terms beyond this are ignored, to bound the size of the statement
+    private static final int MAX_FALLBACK_TERMS = 8;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String nextChangeSeqSql;
+
+    @Override
+    public long nextChangeSeq() {
+        return ((Number) entityManager.createNativeQuery(nextChangeSeqSql()).getSingleResult()).longValue();
+    }
+
+    // Resolved through the dialect so the same code runs on Postgres and H2
+    private String nextChangeSeqSql() {
+        if (nextChangeSeqSql == null) {
+            nextChangeSeqSql = dialect().getSequenceSupport().getSequenceNextValString(CHANGE_SEQUENCE);
+        }
+        return nextChangeSeqSql;
+    }
+
+    @Override
+    public List<Long> allocateIds(int count) {
+        int blocks = (count + Bug.ID_ALLOCATION_SIZE - 1) / Bug.ID_ALLOCATION_SIZE;
+        List<?> values;
+        if (dialect() instanceof PostgreSQLDialect) {
+            // One round trip however many blocks are needed
+            values = entityManager.createNativeQuery("SELECT nextval('" + ID_SEQUENCE + "') FROM generate_series(1, :blocks)")
+                    .setParameter("blocks", blocks)
+                    .getResultList();
+        } else {
+            String nextVal = dialect().getSequenceSupport().getSequenceNextValString(ID_SEQUENCE);
+            List<Object> drawn = new ArrayList<>(blocks);
+            for (int i = 0; i < blocks; i++) {
+                drawn.add(entityManager.createNativeQuery(nextVal).getSingleResult());
+            }
+            values = drawn;
+        }
+        List<Long> ids = new ArrayList<>(count);
+        for (Object value : values) {
+            long low = ((Number) value).longValue();
+            for (int i = 0; i < Bug.ID_ALLOCATION_SIZE && ids.size() < count; i++) {
+                ids.add(low + i);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Long> searchIds(String query, int offset, int limit) {
+        Query search = dialect() instanceof PostgreSQLDialect
+                ? entityManager.createNativeQuery(POSTGRES_SEARCH_SQL).setParameter("query", query)
+                : fallbackSearch(query);
+        List<?> rows = search.setFirstResult(offset).setMaxResults(limit).getResultList();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(((Number) row).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Every term must occur in the title or the description. Bugs are ranked by the number
+     * of terms found, with a title hit counting twice, mirroring the A/B weights on Postgres.
+     * Substring matching scans the table, which is fine for the small dev and test datasets.
+     */
+    private Query fallbackSearch(String query) {
+        List<String> terms = Arrays.stream(query.toLowerCase(Locale.ROOT).split("\\s+"))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .limit(MAX_FALLBACK_TERMS)
+                .toList();
+        if (terms.isEmpty()) {
+            return entityManager.createNativeQuery("SELECT b.id FROM bugs b WHERE 1 = 0");
+        }
+
+        StringBuilder where = new StringBuilder();
+        StringBuilder rank = new StringBuilder();
+        for (int i = 1; i <= terms.size(); i++) {
+            String inTitle = "LOWER(b.title) LIKE ?" + i + " ESCAPE '!'";
+            String inDescription = "LOWER(b.description) LIKE ?" + i + " ESCAPE '!'";
+            where.append(i > 1 ? " AND " : "").append('(').append(inTitle).append(" OR ").append(inDescription).append(')');
+            rank.append(i > 1 ? " + " : "")
+                    .append("CASE WHEN ").append(inTitle).append(" THEN 2 ELSE 0 END + ")
+                    .append("CASE WHEN ").append(inDescription).append(" THEN 1 ELSE 0 END");
+        }
+        Query search = entityManager.createNativeQuery(
+                "SELECT b.id FROM bugs b WHERE " + where + " ORDER BY " + rank + " DESC, b.id DESC");
+        for (int i = 0; i < terms.size(); i++) {
+            search.setParameter(i + 1, "%" + escapeLike(terms.get(i)) + "%");
+        }
+        return search;
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    @Override
+    public List<Long> findFilteredIds(BugFilter filter, BugSort sort, BugCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Bug> bug = query.from(Bug.class);
+        Path<LocalDateTime> key = bug.get(sort.getProperty());
+        Path<Long> id = bug.get("id");
+
+        List<Predicate> predicates = filterPredicates(cb, query, bug, filter);
+        if (after != null) {
+            // Same keyset predicate as BugRepository.findPageIdsAfter, in either direction
+            LocalDateTime value = after.getSortValue();
+            if (sort.isDescending()) {
+                predicates.add(cb.lessThanOrEqualTo(key, value));
+                predicates.add(cb.or(cb.lessThan(key, value), cb.lessThan(id, after.getId())));
+            } else {
+                predicates.add(cb.greaterThanOrEqualTo(key, value));
+                predicates.add(cb.or(cb.greaterThan(key, value), cb.greaterThan(id, after.getId())));
+            }
+        }
+
+        query.select(id)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(sort.isDescending()
+                        ? List.of(cb.desc(key), cb.desc(id))
+                        : List.of(cb.asc(key), cb.asc(id)));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Stream<Bug> streamFiltered(BugFilter filter, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Bug> query = cb.createQuery(Bug.class);
+        Root<Bug> bug = query.from(Bug.class);
+        query.select(bug)
+                .where(filterPredicates(cb, query, bug, filter).toArray(new Predicate[0]))
+                .orderBy(cb.asc(bug.get("id")));
+        return forwardOnly(entityManager.createQuery(query), fetchSize).getResultStream();
+    }
+
+    @Override
+    public Stream<Object[]> streamFilteredMetadata(BugFilter filter, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Bug> bug = query.from(Bug.class);
+        MapJoin<Bug, String, String> entry = bug.joinMap("metadata");
+        Path<Long> id = bug.get("id");
+        query.multiselect(id, entry.key(), entry.value())
+                .where(filterPredicates(cb, query, bug, filter).toArray(new Predicate[0]))
+                .orderBy(cb.asc(id));
+        return forwardOnly(entityManager.createQuery(query), fetchSize).getResultStream();
+    }
+
+    @Override
+    public List<Object[]> lockFiltered(BugFilter filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Bug> bug = query.from(Bug.class);
+        Path<Long> id = bug.get("id");
+        query.multiselect(id, bug.get("status"), bug.get("priority"), bug.get("version"))
+                .where(filterPredicates(cb, query, bug, filter).toArray(new Predicate[0]))
+                .orderBy(cb.asc(id));
+        // Locking in id order keeps concurrent bulk updates from deadlocking each other
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public int bulkUpdate(Collection<Long> ids, Bug.Status status, Bug.Priority priority,
+                          LocalDateTime updatedAt, long changeSeq) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Bug> update = cb.createCriteriaUpdate(Bug.class);
+        Root<Bug> bug = update.from(Bug.class);
+        if (status != null) {
+            update.set(bug.<Bug.Status>get("status"), status);
+        }
+        if (priority != null) {
+            update.set(bug.<Bug.Priority>get("priority"), priority);
+        }
+        Path<Long> version = bug.get("version");
+        update.set(bug.<LocalDateTime>get("updatedAt"), updatedAt)
+                .set(bug.<Long>get("changeSeq"), changeSeq)
+                .set(version, cb.sum(version, 1L))
+                .where(bug.get("id").in(ids));
+        // Pending changes go out first; afterwards, bugs loaded earlier are read again rather than served stale
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    @Override
+    public int upsertMetadata(Long bugId, Map<String, String> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            int first = 3 * i + 1;
+            rows.append(i > 0 ? ", " : "").append("(?").append(first).append(", ?").append(first + 1)
+                    .append(", ?").append(first + 2).append(')');
+        }
+        // Rows whose value is unchanged are not rewritten on Postgres
+        Query upsert = entityManager.createNativeQuery(dialect() instanceof PostgreSQLDialect
+                ? "INSERT INTO bug_metadata (bug_id, metadata_key, metadata_value) VALUES " + rows
+                        + " ON CONFLICT (bug_id, metadata_key) DO UPDATE SET metadata_value = EXCLUDED.metadata_value"
+                        + " WHERE bug_metadata.metadata_value IS DISTINCT FROM EXCLUDED.metadata_value"
+                : "MERGE INTO bug_metadata (bug_id, metadata_key, metadata_value) KEY (bug_id, metadata_key) VALUES "
+                        + rows);
+        int position = 1;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            upsert.setParameter(position++, bugId)
+                    .setParameter(position++, entry.getKey())
+                    .setParameter(position++, entry.getValue());
+        }
+        return upsert.executeUpdate();
+    }
+
+    @Override
+    public int deleteMetadata(Long bugId, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createNativeQuery("DELETE FROM bug_metadata WHERE bug_id = :bugId AND metadata_key IN (:keys)")
+                .setParameter("bugId", bugId)
+                .setParameter("keys", keys)
+                .executeUpdate();
+    }
+
+    // Rows arrive in fetch-size chunks instead of all at once, and loaded bugs get no dirty-checking snapshot
+    private static <T> TypedQuery<T> forwardOnly(TypedQuery<T> query, int fetchSize) {
+        return query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
+    /**
+     * Conditions of {@code filter}, shared by the paged listing, the export and bulk updates
+     */
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Bug> bug,
+                                                    BugFilter filter) {
+        Path<LocalDateTime> createdAt = bug.get("createdAt");
+        List<Predicate> predicates = new ArrayList<>();
+        if (!filter.getIds().isEmpty()) {
+            predicates.add(bug.get("id").in(filter.getIds()));
+        }
+        if (!filter.getStatuses().isEmpty()) {
+            predicates.add(bug.get("status").in(filter.getStatuses()));
+        }
+        if (!filter.getPriorities().isEmpty()) {
+            predicates.add(bug.get("priority").in(filter.getPriorities()));
+        }
+        if (filter.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(createdAt, filter.getCreatedTo()));
+        }
+        if (filter.getUpdatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(bug.<LocalDateTime>get("updatedAt"), filter.getUpdatedFrom()));
+        }
+        for (Map.Entry<String, String> entry : filter.getMetadata().entrySet()) {
+            predicates.add(cb.exists(metadataMatch(cb, query, bug, entry.getKey(), entry.getValue())));
+        }
+        return predicates;
+    }
+
+    /**
+     * Semi-join on one metadata entry: EXISTS (SELECT 1 FROM bug_metadata WHERE bug_id = b.id
+     * AND metadata_key = ? AND metadata_value = ?), answered from idx_bug_metadata_key_value
+     * without loading any metadata map.
+     */
+    private static Subquery<Integer> metadataMatch(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Bug> bug,
+                                                   String key, String value) {
+        Subquery<Integer> match = query.subquery(Integer.class);
+        MapJoin<Bug, String, String> entry = match.correlate(bug).joinMap("metadata");
+        match.select(cb.literal(1)).where(cb.equal(entry.key(), key), cb.equal(entry.value(), value));
+        return match;
+    }
+
+    private Dialect dialect() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+    }
+}
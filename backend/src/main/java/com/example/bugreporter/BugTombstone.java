@@ -0,0 +1,39 @@
+package com.example.bugreporter;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Record of a deleted bug, so delta sync clients learn about deletions.
+ * The primary key is drawn from the same change sequence as {@code bugs.change_seq}.
+ */
+@Entity
+@Table(name = "bug_tombstones")
+public class BugTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bug_change_seq")
+    @SequenceGenerator(name = "bug_change_seq", sequenceName = "bug_change_seq", allocationSize = 1)
+    private Long changeSeq;
+    
+    @Column(nullable = false)
+    private Long bugId;
+    
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+    
+    // Default constructor
+    protected BugTombstone() {
+    }
+    
+    public BugTombstone(Long bugId) {
+        this.bugId = bugId;
+        this.deletedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+    
+    public Long getChangeSeq() { return changeSeq; }
+    
+    public Long getBugId() { return bugId; }
+    
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+}
@@ -0,0 +1,15 @@
+package com.example.bugreporter;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface BugTombstoneRepository extends JpaRepository<BugTombstone, Long> {
+    List<BugTombstone> findByChangeSeqGreaterThanOrderByChangeSeqAsc(Long changeSeq, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(t.changeSeq), 0) FROM BugTombstone t")
+    long findMaxChangeSeq();
+}
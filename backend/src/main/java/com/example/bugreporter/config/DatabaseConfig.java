@@ -1,5 +1,8 @@
 package com.example.bugreporter.config;
 
+import com.example.bugreporter.service.ConnectionGate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,6 +10,8 @@ import org.springframework.context.annotation.Profile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
+
 @Configuration
 public class DatabaseConfig {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
@@ -24,6 +29,26 @@ public class DatabaseConfig {
         };
     }
     
+    /**
+     * Puts the {@link ConnectionGate} in front of the pool, so connections taken by JPA,
+     * JdbcTemplate and Flyway alike wait at the gate rather than inside Hikari. Test slices
+     * that don't scan the gate get the plain pool.
+     */
+    @Bean
+    public static BeanPostProcessor connectionGatePostProcessor(ObjectProvider<ConnectionGate> gate) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                ConnectionGate connectionGate;
+                if (!(bean instanceof DataSource dataSource) || bean instanceof GatedDataSource
+                        || (connectionGate = gate.getIfAvailable()) == null) {
+                    return bean;
+                }
+                return new GatedDataSource(dataSource, connectionGate);
+            }
+        };
+    }
+    
     /**
      * Development-only configuration
      */
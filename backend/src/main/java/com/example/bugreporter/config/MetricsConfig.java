@@ -0,0 +1,19 @@
+package com.example.bugreporter.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Records {@code @Timed} methods and classes, such as {@code BugService}. HTTP routes,
+     * repositories, Hibernate, Hikari and the JVM are instrumented by Spring Boot itself.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
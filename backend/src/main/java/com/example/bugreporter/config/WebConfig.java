@@ -12,9 +12,12 @@ public class WebConfig {
     @Value("${cors.allowed-origins:*}")
     private String allowedOrigins;
     
-    @Value("${cors.allowed-methods:GET,POST,PUT,DELETE}")
+    @Value("${cors.allowed-methods:GET,POST,PUT,PATCH,DELETE}")
     private String allowedMethods;
     
+    @Value("${cors.exposed-headers:X-Next-Cursor,X-Next-Offset,Retry-After,ETag}")
+    private String exposedHeaders;
+    
     @Value("${cors.max-age:3600}")
     private long maxAge;
     
@@ -28,6 +31,7 @@ public class WebConfig {
                     registry.addMapping("/api/**")
                             .allowedOrigins(allowedOrigins)
                             .allowedMethods(allowedMethods.split(","))
+                            .exposedHeaders(exposedHeaders.split(","))
                             .allowCredentials(false)
                             .maxAge(maxAge);
                 } else {
@@ -35,6 +39,7 @@ public class WebConfig {
                     registry.addMapping("/api/**")
                             .allowedOrigins(allowedOrigins.split(","))
                             .allowedMethods(allowedMethods.split(","))
+                            .exposedHeaders(exposedHeaders.split(","))
                             .allowCredentials(true)
                             .maxAge(maxAge);
                 }
@@ -0,0 +1,25 @@
+package com.example.bugreporter.service;
+
+/**
+ * Outcome of a bulk status/priority update
+ */
+public class BugBulkUpdateResult {
+
+    private final int matched;
+    private final int updated;
+
+    public BugBulkUpdateResult(int matched, int updated) {
+        this.matched = matched;
+        this.updated = updated;
+    }
+
+    /**
+     * Bugs selected by the ids or the filter
+     */
+    public int getMatched() { return matched; }
+
+    /**
+     * Bugs that were written; the rest already had the target status and priority
+     */
+    public int getUpdated() { return updated; }
+}
@@ -0,0 +1,121 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of single bugs, keyed by id.
+ * Entries are detached entities with their metadata initialized; callers must
+ * treat them as read-only. The cache is local to this instance, so the TTL
+ * bounds staleness when several instances share a database.
+ */
+@Component
+public class BugCache {
+
+    private final Cache<Long, Bug> cache;
+
+    public BugCache(@Value("${bugreporter.cache.maximum-size:10000}") long maximumSize,
+                    @Value("${bugreporter.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached bug or loads it. Concurrent misses for the same id share one load,
+     * and missing bugs are not cached.
+     */
+    public Optional<Bug> get(Long id, Function<Long, Optional<Bug>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Returns the cached bug without loading it on a miss
+     */
+    public Optional<Bug> peek(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * Drops the entry now and again once the surrounding transaction completes, so a
+     * read that raced with the write can't leave the pre-commit state behind.
+     */
+    public void evict(Long id) {
+        if (id == null) {
+            return;
+        }
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * {@link #evict} for many ids, with a single completion callback
+     */
+    public void evictAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> keys = List.copyOf(ids);
+        cache.invalidateAll(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(keys);
+                }
+            });
+        }
+    }
+
+    public BugCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return new BugCacheStats(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+
+    /**
+     * Point-in-time view of the cache counters
+     */
+    public static class BugCacheStats {
+        private final long size;
+        private final long hits;
+        private final long misses;
+        private final double hitRate;
+        private final long evictions;
+
+        public BugCacheStats(long size, long hits, long misses, double hitRate, long evictions) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.hitRate = hitRate;
+            this.evictions = evictions;
+        }
+
+        public long getSize() { return size; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public double getHitRate() { return hitRate; }
+        public long getEvictions() { return evictions; }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.util.HashMap;
+
+/**
+ * A committed change to a bug, published by {@link BugService} and pushed to
+ * {@link BugEventStream} subscribers. Carries a detached copy of the bug so it can
+ * be serialized after the transaction has ended.
+ */
+public class BugChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, STATUS_CHANGED, PRIORITY_CHANGED, METADATA_CHANGED, DELETED
+    }
+
+    private final Type type;
+    private final Long bugId;
+    private final long changeSeq;
+    private final Bug bug;
+    private final Bug.Status previousStatus;
+    private final Bug.Priority previousPriority;
+
+    private BugChangeEvent(Type type, Long bugId, long changeSeq, Bug bug,
+                           Bug.Status previousStatus, Bug.Priority previousPriority) {
+        this.type = type;
+        this.bugId = bugId;
+        this.changeSeq = changeSeq;
+        this.bug = bug;
+        this.previousStatus = previousStatus;
+        this.previousPriority = previousPriority;
+    }
+
+    public static BugChangeEvent created(Bug bug) {
+        return new BugChangeEvent(Type.CREATED, bug.getId(), bug.getChangeSeq(), snapshot(bug), null, null);
+    }
+
+    public static BugChangeEvent updated(Type type, Bug bug, Bug.Status previousStatus, Bug.Priority previousPriority) {
+        return new BugChangeEvent(type, bug.getId(), bug.getChangeSeq(), snapshot(bug), previousStatus, previousPriority);
+    }
+
+    /**
+     * @param bug the bug as it was before deletion, still attached
+     * @param changeSeq sequence value of the tombstone
+     */
+    public static BugChangeEvent deleted(Bug bug, long changeSeq) {
+        return new BugChangeEvent(Type.DELETED, bug.getId(), changeSeq, snapshot(bug), null, null);
+    }
+
+    // Must run inside the writing transaction, while lazy metadata can still be loaded
+    private static Bug snapshot(Bug source) {
+        Bug copy = new Bug(source.getTitle(), source.getDescription(), source.getScreenshotUrl(), source.getPriority());
+        copy.setId(source.getId());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        copy.setChangeSeq(source.getChangeSeq());
+        copy.setVersion(source.getVersion());
+        copy.setStatus(source.getStatus());
+        copy.setScreenshotHash(source.getScreenshotHash());
+        copy.setScreenshotContentType(source.getScreenshotContentType());
+        copy.setThumbnailUrl(source.getThumbnailUrl());
+        copy.setFingerprint(source.getFingerprint());
+        copy.setOccurrences(source.getOccurrences());
+        copy.setMetadata(new HashMap<>(source.getMetadata()));
+        return copy;
+    }
+
+    public Type getType() { return type; }
+    public Long getBugId() { return bugId; }
+    public long getChangeSeq() { return changeSeq; }
+
+    /**
+     * The bug as committed; for {@link Type#DELETED}, its last state before deletion
+     */
+    public Bug getBug() { return bug; }
+
+    /**
+     * Status before a {@link Type#STATUS_CHANGED} event, otherwise null
+     */
+    public Bug.Status getPreviousStatus() { return previousStatus; }
+
+    /**
+     * Priority before the write, set on {@link Type#PRIORITY_CHANGED} and
+     * {@link Type#STATUS_CHANGED} events, otherwise null. A write that changes both
+     * publishes the status change first, so together the two events describe
+     * (old status, old priority) to (new status, old priority) to (new status, new priority).
+     */
+    public Bug.Priority getPreviousPriority() { return previousPriority; }
+}
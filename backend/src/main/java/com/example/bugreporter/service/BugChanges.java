@@ -0,0 +1,33 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.util.List;
+
+/**
+ * Result of a delta sync: bugs created or updated since the client's token,
+ * ids of bugs deleted since then, and the token to send next time
+ */
+public class BugChanges {
+
+    private final List<Bug> changed;
+    private final List<Long> deleted;
+    private final String nextToken;
+    private final boolean hasMore;
+
+    public BugChanges(List<Bug> changed, List<Long> deleted, String nextToken, boolean hasMore) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    public List<Bug> getChanged() { return changed; }
+    public List<Long> getDeleted() { return deleted; }
+    public String getNextToken() { return nextToken; }
+
+    /**
+     * True when more changes are ready; fetch again right away with {@link #getNextToken()}
+     */
+    public boolean isHasMore() { return hasMore; }
+}
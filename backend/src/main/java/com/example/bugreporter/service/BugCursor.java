@@ -0,0 +1,86 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort key and id of the last bug on a page, for one {@link BugSort}.
+ * Clients only ever see the encoded form and hand it back unchanged.
+ */
+public final class BugCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final BugSort sort;
+    private final LocalDateTime sortValue;
+    private final long id;
+
+    public BugCursor(BugSort sort, LocalDateTime sortValue, long id) {
+        this.sort = sort;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Cursor in the default order, (created_at DESC, id DESC)
+     */
+    public BugCursor(LocalDateTime createdAt, long id) {
+        this(BugSort.DEFAULT, createdAt, id);
+    }
+
+    /**
+     * Cursor pointing just after the given bug in the default order
+     */
+    public static BugCursor after(Bug bug) {
+        return after(bug, BugSort.DEFAULT);
+    }
+
+    /**
+     * Cursor pointing just after the given bug in {@code sort}
+     */
+    public static BugCursor after(Bug bug, BugSort sort) {
+        return new BugCursor(sort, sort.keyOf(bug), bug.getId());
+    }
+
+    public BugSort getSort() { return sort; }
+
+    /**
+     * Value of the sort property on the last bug of the previous page
+     */
+    public LocalDateTime getSortValue() { return sortValue; }
+
+    public long getId() { return id; }
+
+    public String encode() {
+        String raw = sortValue + SEPARATOR + id;
+        if (sort != BugSort.DEFAULT) {
+            raw = sort.name() + SEPARATOR + raw;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Accepts cursors issued before sorting existed, which are in the default order
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static BugCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length == 2) {
+                return new BugCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+            }
+            if (parts.length == 3) {
+                return new BugCursor(BugSort.valueOf(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+            }
+            throw new IllegalArgumentException("Malformed cursor");
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Folds duplicate bug reports into the oldest open bug with the same
+ * {@link BugFingerprinter fingerprint}, counting them as occurrences instead of
+ * inserting new rows. Once a fingerprint's bug is known, further duplicates only
+ * increment a {@link BugOccurrenceCounter} and read the bug from {@link BugCache}:
+ * no lock and no statement per report. An in-memory {@link FingerprintFilter} answers
+ * most new reports without touching the fingerprint index; it is filled from the table
+ * on a background thread at startup, and every report is looked up until then.
+ * The filter is local to this instance, so with several instances a fingerprint
+ * first created on another one since startup can be inserted again.
+ */
+@Component
+public class BugDeduplicator implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(BugDeduplicator.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final BugService bugService;
+    private final BugFingerprinter fingerprinter;
+    private final BugOccurrenceCounter occurrences;
+    private final FingerprintFilter filter;
+    // Fingerprint to the id of its open bug; dropped when that bug is closed or deleted here
+    private final Cache<String, Long> openBugIds;
+    // Reports with the same fingerprint are serialized until their transaction has committed
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    private final AtomicLong created = new AtomicLong();
+    private final LongAdder folded = new LongAdder();
+    private final AtomicLong lookupsSkipped = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private volatile boolean warmed;
+    private volatile boolean running;
+
+    @Autowired
+    public BugDeduplicator(BugService bugService, BugFingerprinter fingerprinter, BugOccurrenceCounter occurrences,
+                           @Value("${bugreporter.dedup.expected-fingerprints:1000000}") long expectedFingerprints,
+                           @Value("${bugreporter.dedup.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${bugreporter.dedup.open-bugs.maximum-size:10000}") long openBugsMaximumSize,
+                           @Value("${bugreporter.dedup.open-bugs.ttl-seconds:30}") long openBugsTtlSeconds) {
+        this.bugService = bugService;
+        this.fingerprinter = fingerprinter;
+        this.occurrences = occurrences;
+        this.filter = new FingerprintFilter(expectedFingerprints, falsePositiveRate);
+        this.openBugIds = Caffeine.newBuilder()
+                .maximumSize(openBugsMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(openBugsTtlSeconds))
+                .build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Creates the bug, or counts another occurrence of its open duplicate
+     * @return the new bug, or the duplicate; its {@code occurrences} include only counts already written
+     */
+    public Bug report(Bug bug) {
+        String fingerprint = fingerprinter.fingerprint(bug);
+        bug.setFingerprint(fingerprint);
+        Optional<Bug> known = foldIntoKnown(fingerprint);
+        if (known.isPresent()) {
+            return known.get();
+        }
+
+        ReentrantLock lock = locks[Math.floorMod(fingerprint.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            // Another report of the same content may have created the bug while this one waited
+            known = foldIntoKnown(fingerprint);
+            if (known.isPresent()) {
+                return known.get();
+            }
+            boolean lookUp = !warmed || filter.mightContain(fingerprint);
+            Optional<Bug> duplicate = lookUp ? bugService.findOpenDuplicate(fingerprint) : Optional.empty();
+            if (duplicate.isPresent()) {
+                openBugIds.put(fingerprint, duplicate.get().getId());
+                fold(duplicate.get().getId());
+                return duplicate.get();
+            }
+            if (!lookUp) {
+                lookupsSkipped.incrementAndGet();
+            } else if (warmed) {
+                falsePositives.incrementAndGet();
+            }
+            Bug saved = bugService.createBug(bug);
+            filter.put(fingerprint);
+            openBugIds.put(fingerprint, saved.getId());
+            created.incrementAndGet();
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<Bug> foldIntoKnown(String fingerprint) {
+        Long id = openBugIds.getIfPresent(fingerprint);
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<Bug> bug = bugService.getBugById(id);
+        if (bug.isEmpty() || bug.get().getStatus() == Bug.Status.CLOSED) {
+            // Closed or deleted on another instance
+            openBugIds.invalidate(fingerprint);
+            return Optional.empty();
+        }
+        fold(id);
+        return bug;
+    }
+
+    private void fold(Long id) {
+        occurrences.increment(id);
+        folded.increment();
+    }
+
+    /**
+     * Forgets the open bug of a fingerprint once it is closed or deleted, so the next
+     * duplicate creates a new bug
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(BugChangeEvent event) {
+        String fingerprint = event.getBug() != null ? event.getBug().getFingerprint() : null;
+        if (event.getType() == BugChangeEvent.Type.DELETED) {
+            occurrences.forget(event.getBugId());
+        } else if (event.getBug() == null || event.getBug().getStatus() != Bug.Status.CLOSED) {
+            return;
+        }
+        if (fingerprint != null) {
+            openBugIds.invalidate(fingerprint);
+        }
+    }
+
+    private void warm() {
+        long started = System.nanoTime();
+        try {
+            bugService.forEachOpenFingerprint(fingerprint -> {
+                if (!running) {
+                    throw new CancellationException();
+                }
+                filter.put(fingerprint);
+            });
+            warmed = true;
+            logger.info("Duplicate filter loaded {} fingerprints in {} ms", filter.getInsertions(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (CancellationException e) {
+            // Stopped before the table was read
+        } catch (RuntimeException e) {
+            logger.warn("Loading the duplicate filter failed; every report will be looked up", e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread warmer = new Thread(this::warm, "bug-dedup-warmer");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public DedupStats getStats() {
+        return new DedupStats(warmed, filter.getInsertions(), created.get(), folded.sum(),
+                lookupsSkipped.get(), falsePositives.get(), occurrences.getPending());
+    }
+
+    /**
+     * Point-in-time view of the deduplication counters
+     */
+    public static class DedupStats {
+        private final boolean filterLoaded;
+        private final long filterEntries;
+        private final long created;
+        private final long folded;
+        private final long lookupsSkipped;
+        private final long falsePositives;
+        private final long pendingOccurrences;
+
+        public DedupStats(boolean filterLoaded, long filterEntries, long created, long folded,
+                          long lookupsSkipped, long falsePositives, long pendingOccurrences) {
+            this.filterLoaded = filterLoaded;
+            this.filterEntries = filterEntries;
+            this.created = created;
+            this.folded = folded;
+            this.lookupsSkipped = lookupsSkipped;
+            this.falsePositives = falsePositives;
+            this.pendingOccurrences = pendingOccurrences;
+        }
+
+        public boolean isFilterLoaded() { return filterLoaded; }
+        public long getFilterEntries() { return filterEntries; }
+        public long getCreated() { return created; }
+        public long getFolded() { return folded; }
+
+        /**
+         * New reports the filter ruled out, so the fingerprint index wasn't queried
+         */
+        public long getLookupsSkipped() { return lookupsSkipped; }
+
+        /**
+         * Lookups the filter asked for that found no open duplicate
+         */
+        public long getFalsePositives() { return falsePositives; }
+
+        /**
+         * Folded reports not yet added to the occurrences column
+         */
+        public long getPendingOccurrences() { return pendingOccurrences; }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.bugreporter.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed {@link BugChangeEvent}s out to Server-Sent Events subscribers.
+ * The committing thread only offers the event to each subscriber's bounded buffer.
+ * A small sender pool writes to the sockets. A subscriber whose buffer overflows,
+ * or whose client has not taken a write for {@code send-timeout-ms}, is disconnected
+ * instead of slowing down writers or other subscribers. Its send is interrupted; a
+ * container that keeps blocking regardless holds the thread until its own write
+ * timeout, and the pool gets a thread in its place meanwhile.
+ */
+@Component
+public class BugEventStream implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(BugEventStream.class);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatSeconds;
+    private final int senderThreads;
+    private final long sendTimeoutMillis;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private volatile boolean running;
+    private ThreadPoolExecutor senders;
+    private ScheduledExecutorService heartbeat;
+    private ExecutorService closer;
+
+    @Autowired
+    public BugEventStream(@Value("${bugreporter.stream.buffer-size:256}") int bufferSize,
+                          @Value("${bugreporter.stream.max-subscribers:1000}") int maxSubscribers,
+                          @Value("${bugreporter.stream.timeout-ms:1800000}") long timeoutMillis,
+                          @Value("${bugreporter.stream.heartbeat-seconds:15}") long heartbeatSeconds,
+                          @Value("${bugreporter.stream.sender-threads:4}") int senderThreads,
+                          @Value("${bugreporter.stream.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.senderThreads = senderThreads;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+
+    /**
+     * Opens a new stream.
+     * @return empty if the subscriber limit is reached or the application is shutting down
+     */
+    public Optional<SseEmitter> subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        return register(emitter) ? Optional.of(emitter) : Optional.empty();
+    }
+
+    boolean register(SseEmitter emitter) {
+        if (!running || subscribers.size() >= maxSubscribers) {
+            return false;
+        }
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return true;
+    }
+
+    /**
+     * Runs after the writing transaction commits, or immediately when there is none.
+     * Never blocks on a subscriber.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(BugChangeEvent event) {
+        if (!running) {
+            return;
+        }
+        published.incrementAndGet();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.buffer.offer(event)) {
+                schedule(subscriber);
+            } else if (evict(subscriber)) {
+                logger.info("Disconnected a stream subscriber that fell {} events behind", bufferSize);
+            }
+        }
+    }
+
+    // At most one drain per subscriber is queued or running, which keeps its events in order
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true) && !submit(() -> drain(subscriber))) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            BugChangeEvent event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                send(subscriber, SseEmitter.event()
+                        .id(String.valueOf(event.getChangeSeq()))
+                        .name(event.getType().name())
+                        .data(event));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter was already completed
+            subscribers.remove(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // An event offered after the last poll but before the flag was cleared
+        if (!subscriber.buffer.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStarted();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            if (subscriber.sendFinished()) {
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    /**
+     * @return false if the subscriber was already gone
+     */
+    private boolean evict(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return false;
+        }
+        evicted.incrementAndGet();
+        subscriber.buffer.clear();
+        if (subscriber.abortSend()) {
+            resizeSenders(1);
+        }
+        // complete() waits for a send in progress, so it runs on a closer thread rather than a sender.
+        // The client's EventSource reconnects and reloads its state.
+        try {
+            closer.execute(subscriber.emitter::complete);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the server closes the connection
+        }
+        return true;
+    }
+
+    private void evictStuckSenders() {
+        long startedBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sendStartedBefore(startedBefore) && evict(subscriber)) {
+                logger.info("Disconnected a stream subscriber that took no write for {} ms", sendTimeoutMillis);
+            }
+        }
+    }
+
+    // Stands in for a sender that is still blocked after its send was aborted, and gives the thread back once it returns
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    // Only fails while shutting down, when stop() completes the remaining emitters
+    private boolean submit(Runnable task) {
+        try {
+            senders.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    // Comment lines keep proxies from closing idle streams and expose dead connections
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.buffer.isEmpty() && !subscriber.draining.get()) {
+                submit(() -> {
+                    try {
+                        send(subscriber, SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        subscribers.remove(subscriber);
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "bug-stream-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Unbounded, but closing is rare and at most one per subscriber; one stuck close must not delay the rest
+        AtomicInteger closerCount = new AtomicInteger();
+        closer = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "bug-stream-closer-" + closerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bug-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMillis = Math.max(1, sendTimeoutMillis / 2);
+        heartbeat.scheduleAtFixedRate(this::evictStuckSenders, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    /**
+     * Completes every open stream so the web server can shut down without waiting on them
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        heartbeat.shutdownNow();
+        // Interrupts sends in progress first, since complete() waits for them
+        senders.shutdownNow();
+        closer.shutdown();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public StreamStats getStats() {
+        return new StreamStats(subscribers.size(), published.get(), evicted.get());
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<BugChangeEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // The send in progress, guarded by the subscriber
+        private Thread sender;
+        private long sendStartedNanos;
+        private boolean sendAborted;
+
+        private Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private synchronized void sendStarted() {
+            sender = Thread.currentThread();
+            sendStartedNanos = System.nanoTime();
+        }
+
+        /**
+         * @return true if the send was aborted meanwhile
+         */
+        private synchronized boolean sendFinished() {
+            sender = null;
+            // An abort that came after the send returned must not hit the thread's next subscriber
+            Thread.interrupted();
+            boolean aborted = sendAborted;
+            sendAborted = false;
+            return aborted;
+        }
+
+        private synchronized boolean sendStartedBefore(long nanos) {
+            return sender != null && sendStartedNanos - nanos < 0;
+        }
+
+        /**
+         * @return true if a send was in progress
+         */
+        private synchronized boolean abortSend() {
+            if (sender == null || sendAborted) {
+                return false;
+            }
+            sendAborted = true;
+            sender.interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * Point-in-time view of the stream counters
+     */
+    public static class StreamStats {
+        private final int subscribers;
+        private final long published;
+        private final long evicted;
+
+        public StreamStats(int subscribers, long published, long evicted) {
+            this.subscribers = subscribers;
+            this.published = published;
+            this.evicted = evicted;
+        }
+
+        public int getSubscribers() { return subscribers; }
+        public long getPublished() { return published; }
+        public long getEvicted() { return evicted; }
+    }
+}
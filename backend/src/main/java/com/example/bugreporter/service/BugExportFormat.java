@@ -0,0 +1,34 @@
+package com.example.bugreporter.service;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the bug export
+ */
+public enum BugExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    BugExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+
+    /**
+     * @throws IllegalArgumentException for an unknown format
+     */
+    public static BugExportFormat parse(String format) {
+        for (BugExportFormat candidate : values()) {
+            if (candidate.extension.equals(format.trim().toLowerCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Invalid export format: " + format);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Writes bugs to an output stream as they are read, one row per bug with its metadata
+ * inline. Bugs and metadata come from two forward-only cursors in id order that are
+ * merged on the fly, and each bug is detached once written, so memory stays flat
+ * however many rows are exported.
+ */
+@Component
+public class BugExporter {
+
+    // Rows between flushes, so the client starts receiving data before the export ends
+    private static final int FLUSH_EVERY = 1000;
+
+    private static final String[] CSV_COLUMNS = {
+            "id", "title", "description", "screenshotUrl", "thumbnailUrl", "status", "priority",
+            "createdAt", "updatedAt", "changeSeq", "occurrences", "version", "metadata"
+    };
+
+    private final BugRepository bugRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BugExporter(BugRepository bugRepository, ObjectMapper objectMapper,
+                       @Value("${bugreporter.export.fetch-size:1000}") int fetchSize) {
+        this.bugRepository = bugRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Exports the bugs matching {@code filter} in id order. Both cursors read one snapshot,
+     * so every bug is written with exactly the metadata it had when the export started.
+     * Does not close {@code out}.
+     * @return the number of bugs written
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long export(BugFilter filter, BugExportFormat format, OutputStream out) throws IOException {
+        RowWriter writer = format == BugExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long rows = 0;
+        try (Stream<Bug> bugs = bugRepository.streamFiltered(filter, fetchSize);
+             Stream<Object[]> metadata = bugRepository.streamFilteredMetadata(filter, fetchSize)) {
+            Iterator<Object[]> entries = metadata.iterator();
+            Object[] entry = entries.hasNext() ? entries.next() : null;
+            for (Iterator<Bug> it = bugs.iterator(); it.hasNext(); ) {
+                Bug bug = it.next();
+                Map<String, String> bugMetadata = new TreeMap<>();
+                while (entry != null && (Long) entry[0] <= bug.getId()) {
+                    if (bug.getId().equals(entry[0])) {
+                        bugMetadata.put((String) entry[1], (String) entry[2]);
+                    }
+                    entry = entries.hasNext() ? entries.next() : null;
+                }
+                writer.write(bug, bugMetadata);
+                entityManager.detach(bug);
+                if (++rows % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static String format(LocalDateTime time) {
+        return time == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time);
+    }
+
+    private interface RowWriter {
+        void write(Bug bug, Map<String, String> metadata) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    /**
+     * One JSON object per line, metadata as a nested object
+     */
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator json;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated by the newline written after each object, not the default space
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Bug bug, Map<String, String> metadata) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", bug.getId());
+            json.writeStringField("title", bug.getTitle());
+            json.writeStringField("description", bug.getDescription());
+            json.writeStringField("screenshotUrl", bug.getScreenshotUrl());
+            json.writeStringField("thumbnailUrl", bug.getThumbnailUrl());
+            json.writeStringField("status", bug.getStatus().name());
+            json.writeStringField("priority", bug.getPriority().name());
+            json.writeStringField("createdAt", format(bug.getCreatedAt()));
+            json.writeStringField("updatedAt", format(bug.getUpdatedAt()));
+            json.writeNumberField("changeSeq", bug.getChangeSeq());
+            json.writeNumberField("occurrences", bug.getOccurrences());
+            json.writeNumberField("version", bug.getVersion());
+            json.writeObjectFieldStart("metadata");
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                json.writeStringField(entry.getKey(), entry.getValue());
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row; metadata is a JSON object in the last column
+     */
+    private class CsvRowWriter implements RowWriter {
+        private final Writer csv;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            csv.write(String.join(",", CSV_COLUMNS));
+            csv.write("\r\n");
+        }
+
+        @Override
+        public void write(Bug bug, Map<String, String> metadata) throws IOException {
+            csv.write(String.valueOf(bug.getId()));
+            field(bug.getTitle());
+            field(bug.getDescription());
+            field(bug.getScreenshotUrl());
+            field(bug.getThumbnailUrl());
+            field(bug.getStatus().name());
+            field(bug.getPriority().name());
+            field(format(bug.getCreatedAt()));
+            field(format(bug.getUpdatedAt()));
+            field(String.valueOf(bug.getChangeSeq()));
+            field(String.valueOf(bug.getOccurrences()));
+            field(String.valueOf(bug.getVersion()));
+            field(objectMapper.writeValueAsString(metadata));
+            csv.write("\r\n");
+        }
+
+        // Null is an empty field; values with separators, quotes or line breaks are quoted
+        private void field(String value) throws IOException {
+            csv.write(',');
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                csv.write(value);
+                return;
+            }
+            csv.write('"');
+            csv.write(value.replace("\"", "\"\""));
+            csv.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            csv.flush();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conditions for a filtered bug listing, export or bulk update; all of them must hold
+ */
+public class BugFilter {
+
+    private final Set<Long> ids = new LinkedHashSet<>();
+    private final Map<String, String> metadata = new LinkedHashMap<>();
+    private final Set<Bug.Status> statuses = EnumSet.noneOf(Bug.Status.class);
+    private final Set<Bug.Priority> priorities = EnumSet.noneOf(Bug.Priority.class);
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private LocalDateTime updatedFrom;
+
+    public static BugFilter none() {
+        return new BugFilter();
+    }
+
+    /**
+     * Requires the bug id to be one of {@code ids}; null or empty means any id
+     */
+    public BugFilter setIds(Collection<Long> ids) {
+        this.ids.clear();
+        if (ids != null) {
+            this.ids.addAll(ids);
+        }
+        return this;
+    }
+
+    /**
+     * Requires the bug to have metadata entry {@code key} equal to {@code value}
+     */
+    public BugFilter addMetadata(String key, String value) {
+        metadata.put(key, value);
+        return this;
+    }
+
+    /**
+     * Requires the bug to be in one of {@code statuses}; null or empty means any status
+     */
+    public BugFilter setStatuses(Collection<Bug.Status> statuses) {
+        this.statuses.clear();
+        if (statuses != null) {
+            this.statuses.addAll(statuses);
+        }
+        return this;
+    }
+
+    /**
+     * Requires the bug to have one of {@code priorities}; null or empty means any priority
+     */
+    public BugFilter setPriorities(Collection<Bug.Priority> priorities) {
+        this.priorities.clear();
+        if (priorities != null) {
+            this.priorities.addAll(priorities);
+        }
+        return this;
+    }
+
+    /**
+     * Requires the bug to be created at or after {@code createdFrom}; null means no lower bound
+     */
+    public BugFilter setCreatedFrom(LocalDateTime createdFrom) {
+        this.createdFrom = createdFrom;
+        return this;
+    }
+
+    /**
+     * Requires the bug to be created before {@code createdTo}; null means no upper bound
+     */
+    public BugFilter setCreatedTo(LocalDateTime createdTo) {
+        this.createdTo = createdTo;
+        return this;
+    }
+
+    /**
+     * Requires the bug to be created or last written at or after {@code updatedFrom};
+     * null means no lower bound. Used for incremental exports.
+     */
+    public BugFilter setUpdatedFrom(LocalDateTime updatedFrom) {
+        this.updatedFrom = updatedFrom;
+        return this;
+    }
+
+    public Set<Long> getIds() { return Collections.unmodifiableSet(ids); }
+    public Map<String, String> getMetadata() { return Collections.unmodifiableMap(metadata); }
+    public Set<Bug.Status> getStatuses() { return Collections.unmodifiableSet(statuses); }
+    public Set<Bug.Priority> getPriorities() { return Collections.unmodifiableSet(priorities); }
+    public LocalDateTime getCreatedFrom() { return createdFrom; }
+    public LocalDateTime getCreatedTo() { return createdTo; }
+    public LocalDateTime getUpdatedFrom() { return updatedFrom; }
+
+    public boolean isEmpty() {
+        return ids.isEmpty() && metadata.isEmpty() && statuses.isEmpty() && priorities.isEmpty()
+                && createdFrom == null && createdTo == null && updatedFrom == null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Content fingerprint of a bug report: SHA-256 over the normalized title, description
+ * and the configured metadata entries. Reports that differ only in case, whitespace or
+ * other metadata get the same fingerprint.
+ */
+@Component
+public class BugFingerprinter {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Separates fields, so moving text from one field to the next changes the hash
+    private static final char FIELD_SEPARATOR = '\u001f';
+
+    private final List<String> metadataKeys;
+
+    public BugFingerprinter(@Value("${bugreporter.dedup.metadata-keys:url,appVersion}") List<String> metadataKeys) {
+        this.metadataKeys = List.copyOf(metadataKeys);
+    }
+
+    /**
+     * @return 64 hex digits
+     */
+    public String fingerprint(Bug bug) {
+        StringBuilder content = new StringBuilder();
+        content.append(normalize(bug.getTitle())).append(FIELD_SEPARATOR).append(normalize(bug.getDescription()));
+        for (String key : metadataKeys) {
+            String value = bug.getMetadata() != null ? bug.getMetadata().get(key) : null;
+            content.append(FIELD_SEPARATOR).append(normalize(value));
+        }
+        return HexFormat.of().formatHex(sha256().digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every JVM", e);
+        }
+    }
+}
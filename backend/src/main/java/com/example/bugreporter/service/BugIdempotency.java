@@ -0,0 +1,285 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugIdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Makes bug creates retryable with an {@code Idempotency-Key}: the first request with a
+ * key creates, later ones get the same bugs back without writing anything. Completed
+ * single-bug keys are remembered in memory for the TTL, so most retries are answered
+ * with no statement beyond reading the bug. Requests with the same key are serialized
+ * on this instance; across instances the key's primary key lets one request claim it
+ * while the others wait for it to complete. Keys are deleted after the TTL.
+ */
+@Component
+public class BugIdempotency implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(BugIdempotency.class);
+
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9._:-]{1,255}");
+    private static final String BATCH_PREFIX = "batch/";
+    private static final int LOCK_STRIPES = 64;
+    private static final long POLL_MILLIS = 50;
+
+    private final BugIdempotencyKeyRepository repository;
+    private final BugService bugService;
+    private final Duration ttl;
+    private final long waitMillis;
+    private final Duration abandonAfter;
+    // Completed single-bug keys to the id of their bug
+    private final Cache<String, Long> bugIds;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    private volatile boolean running;
+    private ScheduledExecutorService purger;
+
+    @Autowired
+    public BugIdempotency(BugIdempotencyKeyRepository repository, BugService bugService,
+                          @Value("${bugreporter.idempotency.ttl-hours:24}") long ttlHours,
+                          @Value("${bugreporter.idempotency.cache-size:10000}") long cacheSize,
+                          @Value("${bugreporter.idempotency.wait-ms:5000}") long waitMillis,
+                          @Value("${bugreporter.idempotency.abandon-after-seconds:60}") long abandonAfterSeconds) {
+        this.repository = repository;
+        this.bugService = bugService;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitMillis = waitMillis;
+        this.abandonAfter = Duration.ofSeconds(abandonAfterSeconds);
+        this.bugIds = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs {@code create} unless a request with {@code key} already did, in which case
+     * the bug it returned is read back instead.
+     * @return the bug, or empty if the bug created for this key has since been deleted
+     * @throws IllegalArgumentException if the key is malformed
+     * @throws IdempotencyKeyInUseException if another request with this key is still running
+     */
+    public Optional<Bug> create(String key, Supplier<Bug> create) {
+        validate(key);
+        Long known = bugIds.getIfPresent(key);
+        if (known != null) {
+            replayed.increment();
+            return bugService.getBugById(known);
+        }
+
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            known = bugIds.getIfPresent(key);
+            if (known == null) {
+                BugIdempotencyKeyRepository.Entry completed = claim(key);
+                if (completed == null) {
+                    Bug bug;
+                    try {
+                        bug = create.get();
+                    } catch (RuntimeException e) {
+                        repository.release(key);
+                        throw e;
+                    }
+                    repository.complete(key, bug.getId());
+                    bugIds.put(key, bug.getId());
+                    created.increment();
+                    return Optional.of(bug);
+                }
+                known = completed.getBugId();
+                bugIds.put(key, known);
+            }
+            replayed.increment();
+            return bugService.getBugById(known);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@link #create} for a batch of {@code size} bugs, with {@code create} returning
+     * their ids in order.
+     * @return the ids of the batch's bugs in order, whether created now or before
+     * @throws IllegalArgumentException if the key is malformed or a retry has a different number of bugs
+     * @throws IdempotencyKeyInUseException if another request with this key is still running
+     */
+    public List<Long> createAll(String key, int size, Supplier<List<Long>> create) {
+        validate(key);
+        String batchKey = BATCH_PREFIX + key;
+        List<String> itemKeys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            itemKeys.add(batchKey + "#" + i);
+        }
+
+        ReentrantLock lock = lockFor(batchKey);
+        lock.lock();
+        try {
+            if (claim(batchKey) == null) {
+                List<Long> ids;
+                try {
+                    ids = create.get();
+                } catch (RuntimeException e) {
+                    repository.release(batchKey);
+                    throw e;
+                }
+                repository.completeBatch(batchKey, itemKeys, ids);
+                created.add(ids.size());
+                return ids;
+            }
+            // Item keys past the end mean the first request had more bugs
+            Map<String, Long> stored = repository.findBugIds(itemKeys);
+            if (stored.size() != size || !repository.findBugIds(List.of(batchKey + "#" + size)).isEmpty()) {
+                throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+            }
+            List<Long> ids = new ArrayList<>(size);
+            for (String itemKey : itemKeys) {
+                ids.add(stored.get(itemKey));
+            }
+            replayed.add(size);
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Claims the key, waiting while a request on another instance holds it
+     * @return null once claimed, or the key's entry if an earlier request completed it
+     */
+    private BugIdempotencyKeyRepository.Entry claim(String key) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (true) {
+            if (claimOrTakeOver(key)) {
+                return null;
+            }
+            Optional<BugIdempotencyKeyRepository.Entry> entry = repository.find(key);
+            if (entry.isPresent() && entry.get().isCompleted()) {
+                return entry.get();
+            }
+            // Still in progress, or released by a failed request and free to claim again
+            if (entry.isPresent() && System.nanoTime() - deadline > 0) {
+                conflicts.increment();
+                throw new IdempotencyKeyInUseException(key);
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyInUseException(key);
+            }
+        }
+    }
+
+    // Two transactions: on Postgres a failed insert leaves its transaction unusable
+    private boolean claimOrTakeOver(String key) {
+        try {
+            repository.insert(key);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return repository.takeOver(key, LocalDateTime.now().minus(abandonAfter));
+        }
+    }
+
+    private static void validate(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException(
+                    "Idempotency-Key must be 1 to 255 letters, digits, '.', '_', ':' or '-'");
+        }
+    }
+
+    private ReentrantLock lockFor(String key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+
+    void purge() {
+        try {
+            int deleted = repository.deleteClaimedBefore(LocalDateTime.now().minus(ttl));
+            if (deleted > 0) {
+                logger.debug("Deleted {} expired idempotency key(s)", deleted);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Deleting expired idempotency keys failed; retrying at the next pass", e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bug-idempotency-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purge, 1, 60, TimeUnit.MINUTES);
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        purger.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public IdempotencyStats getStats() {
+        return new IdempotencyStats(bugIds.estimatedSize(), created.sum(), replayed.sum(), conflicts.sum());
+    }
+
+    /**
+     * Point-in-time view of the idempotency counters; created and replayed count bugs
+     */
+    public static class IdempotencyStats {
+        private final long cachedKeys;
+        private final long created;
+        private final long replayed;
+        private final long conflicts;
+
+        public IdempotencyStats(long cachedKeys, long created, long replayed, long conflicts) {
+            this.cachedKeys = cachedKeys;
+            this.created = created;
+            this.replayed = replayed;
+            this.conflicts = conflicts;
+        }
+
+        public long getCachedKeys() { return cachedKeys; }
+        public long getCreated() { return created; }
+        public long getReplayed() { return replayed; }
+        public long getConflicts() { return conflicts; }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One line of an NDJSON import file. The fields match the export format, so an export
+ * can be imported again; unknown fields such as {@code changeSeq} are ignored, since the
+ * loader stamps a fresh change sequence value.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BugImportRecord {
+    private String id;
+    private String title;
+    private String description;
+    private String screenshotUrl;
+    private String thumbnailUrl;
+    private Bug.Status status;
+    private Bug.Priority priority;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long occurrences;
+    private Long version;
+    private Map<String, String> metadata;
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getScreenshotUrl() { return screenshotUrl; }
+    public void setScreenshotUrl(String screenshotUrl) { this.screenshotUrl = screenshotUrl; }
+
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+
+    public Bug.Status getStatus() { return status; }
+    public void setStatus(Bug.Status status) { this.status = status; }
+
+    public Bug.Priority getPriority() { return priority; }
+    public void setPriority(Bug.Priority priority) { this.priority = priority; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getOccurrences() { return occurrences; }
+    public void setOccurrences(Long occurrences) { this.occurrences = occurrences; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public Map<String, String> getMetadata() { return metadata; }
+    public void setMetadata(Map<String, String> metadata) { this.metadata = metadata; }
+
+    /**
+     * Checks the record against the column limits of bugs and bug_metadata, like
+     * {@code CreateBugRequest} does for the API
+     * @return a description of the first problem found, or null if the record is valid
+     */
+    public String validate() {
+        if (title == null || title.isBlank()) {
+            return "title is required";
+        }
+        if (title.length() > 255) {
+            return "title must be at most 255 characters";
+        }
+        if (description != null && description.length() > 1000) {
+            return "description must be at most 1000 characters";
+        }
+        if (screenshotUrl != null && screenshotUrl.length() > 1024) {
+            return "screenshotUrl must be at most 1024 characters";
+        }
+        if (thumbnailUrl != null && thumbnailUrl.length() > 255) {
+            return "thumbnailUrl must be at most 255 characters";
+        }
+        if (createdAt != null && updatedAt != null && updatedAt.isBefore(createdAt)) {
+            return "updatedAt must not be before createdAt";
+        }
+        if (occurrences != null && occurrences < 1) {
+            return "occurrences must be at least 1";
+        }
+        if (version != null && version < 0) {
+            return "version must not be negative";
+        }
+        if (id != null && id.length() > 1024) {
+            return "id must be at most 1024 characters";
+        }
+        if (metadata != null) {
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                if (entry.getKey() == null || entry.getKey().isEmpty() || entry.getKey().length() > 255) {
+                    return "metadata keys must be 1-255 characters";
+                }
+                if (entry.getValue() != null && entry.getValue().length() > 1024) {
+                    return "metadata value for '" + entry.getKey() + "' must be at most 1024 characters";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the bug to insert. Missing timestamps default to now, a missing status to
+     * OPEN and a missing priority to MEDIUM. The source tracker's id, if any, is kept
+     * as the {@value BugImporter#SOURCE_ID_METADATA_KEY} metadata entry.
+     */
+    public Bug toBug() {
+        Bug bug = new Bug(title, description, screenshotUrl);
+        if (status != null) {
+            bug.setStatus(status);
+        }
+        if (priority != null) {
+            bug.setPriority(priority);
+        }
+        if (createdAt != null) {
+            bug.setCreatedAt(createdAt.truncatedTo(ChronoUnit.MICROS));
+            bug.setUpdatedAt(bug.getCreatedAt());
+        }
+        if (updatedAt != null) {
+            bug.setUpdatedAt(updatedAt.truncatedTo(ChronoUnit.MICROS));
+        }
+        if (occurrences != null) {
+            bug.setOccurrences(occurrences);
+        }
+        bug.setThumbnailUrl(thumbnailUrl);
+        if (version != null) {
+            bug.setVersion(version);
+        }
+        Map<String, String> bugMetadata = metadata != null ? new HashMap<>(metadata) : new HashMap<>();
+        if (id != null) {
+            bugMetadata.putIfAbsent(BugImporter.SOURCE_ID_METADATA_KEY, id);
+        }
+        bug.setMetadata(bugMetadata);
+        return bug;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugBulkLoader;
+import com.example.bugreporter.BugImportCheckpoint;
+import com.example.bugreporter.BugImportCheckpointRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads bugs from an NDJSON file, one record per line, in batches through
+ * {@link BugBulkLoader}. Invalid records are counted and skipped. Each batch commits
+ * together with a checkpoint, so running the same import again after a failure
+ * continues after the last committed line without loading anything twice.
+ */
+@Component
+public class BugImporter {
+    private static final Logger logger = LoggerFactory.getLogger(BugImporter.class);
+
+    public static final String SOURCE_ID_METADATA_KEY = "sourceId";
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final BugBulkLoader loader;
+    private final BugImportCheckpointRepository checkpointRepository;
+    private final BugStatsCounters statsCounters;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    @Autowired
+    public BugImporter(BugBulkLoader loader, BugImportCheckpointRepository checkpointRepository,
+                       BugStatsCounters statsCounters, ObjectMapper objectMapper,
+                       @Value("${bugreporter.import.batch-size:5000}") int batchSize) {
+        this.loader = loader;
+        this.checkpointRepository = checkpointRepository;
+        this.statsCounters = statsCounters;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports {@code file}, resuming after the checkpoint of {@code importId} if there is one.
+     * Progress is logged after every batch.
+     */
+    public ImportResult importFile(Path file, String importId) throws IOException {
+        BugImportCheckpoint checkpoint = checkpointRepository.findById(importId)
+                .orElseGet(() -> new BugImportCheckpoint(importId));
+        long resumeAfter = checkpoint.getLineNumber();
+        if (resumeAfter > 0) {
+            logger.info("Resuming import '{}' after line {} ({} bugs imported before)",
+                    importId, resumeAfter, checkpoint.getImported());
+        }
+
+        Progress progress = new Progress(checkpoint);
+        List<String> errors = new ArrayList<>();
+        List<Bug> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= resumeAfter || line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(parse(line));
+                } catch (IllegalArgumentException e) {
+                    progress.rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("line " + lineNumber + ": " + e.getMessage());
+                    }
+                }
+                if (batch.size() >= batchSize) {
+                    commit(batch, checkpoint, lineNumber, progress);
+                }
+            }
+        }
+        if (lineNumber > resumeAfter) {
+            commit(batch, checkpoint, lineNumber, progress);
+        }
+        // The counters only follow service writes; pick up the imported rows now
+        statsCounters.reconcile();
+
+        ImportResult result = new ImportResult(importId, progress.imported, progress.rejected,
+                progress.importedNow, progress.elapsedNanos(), Collections.unmodifiableList(errors));
+        logger.info("Import '{}' finished: {} bugs imported, {} rejected, {} bugs/s",
+                importId, result.getImported(), result.getRejected(), Math.round(result.getBugsPerSecond()));
+        return result;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the line is not a valid record
+     */
+    private Bug parse(String line) {
+        BugImportRecord record;
+        try {
+            record = objectMapper.readValue(line, BugImportRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid record: " + e.getOriginalMessage());
+        }
+        String problem = record.validate();
+        if (problem != null) {
+            throw new IllegalArgumentException(problem);
+        }
+        return record.toBug();
+    }
+
+    private void commit(List<Bug> batch, BugImportCheckpoint checkpoint, long lineNumber, Progress progress) {
+        checkpoint.advance(lineNumber, progress.imported + batch.size(), progress.rejected);
+        loader.load(batch, checkpoint);
+        progress.imported += batch.size();
+        progress.importedNow += batch.size();
+        batch.clear();
+        logger.info("Import '{}': line {}, {} bugs imported, {} rejected, {} bugs/s", checkpoint.getImportId(),
+                lineNumber, progress.imported, progress.rejected, Math.round(progress.bugsPerSecond()));
+    }
+
+    private static final class Progress {
+        private final long startNanos = System.nanoTime();
+        private long imported;
+        private long rejected;
+        private long importedNow;
+
+        private Progress(BugImportCheckpoint checkpoint) {
+            this.imported = checkpoint.getImported();
+            this.rejected = checkpoint.getRejected();
+        }
+
+        private long elapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+
+        private double bugsPerSecond() {
+            return importedNow / Math.max(elapsedNanos() / 1e9, 1e-9);
+        }
+    }
+
+    /**
+     * Outcome of an import run; totals include batches committed by earlier runs
+     */
+    public static class ImportResult {
+        private final String importId;
+        private final long imported;
+        private final long rejected;
+        private final long importedThisRun;
+        private final long elapsedNanos;
+        private final List<String> errors;
+
+        public ImportResult(String importId, long imported, long rejected, long importedThisRun,
+                            long elapsedNanos, List<String> errors) {
+            this.importId = importId;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.importedThisRun = importedThisRun;
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+        }
+
+        public String getImportId() { return importId; }
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        public long getImportedThisRun() { return importedThisRun; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * The first {@value BugImporter#MAX_REPORTED_ERRORS} rejections of this run, as "line N: reason"
+         */
+        public List<String> getErrors() { return errors; }
+
+        public double getBugsPerSecond() {
+            return importedThisRun / Math.max(elapsedNanos / 1e9, 1e-9);
+        }
+    }
+}
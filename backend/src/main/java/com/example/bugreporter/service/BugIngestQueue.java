@@ -0,0 +1,256 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded write-behind queue for fire-and-forget bug submissions.
+ * A single writer thread drains it into {@link BugService#createBugs(List)},
+ * committing a group once it reaches the batch size or the oldest entry
+ * has waited the maximum delay, whichever comes first. A group that the
+ * database rejects is split until only the offending bugs are dropped.
+ */
+@Component
+public class BugIngestQueue implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(BugIngestQueue.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final BugService bugService;
+    private final BlockingQueue<PendingBug> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxDelayNanos;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalDrainLatencyNanos = new AtomicLong();
+    private final AtomicLong lastDrainLatencyNanos = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public BugIngestQueue(BugService bugService,
+                          @Value("${bugreporter.ingest.capacity:10000}") int capacity,
+                          @Value("${bugreporter.ingest.batch-size:200}") int batchSize,
+                          @Value("${bugreporter.ingest.max-delay-ms:50}") long maxDelayMillis) {
+        this.bugService = bugService;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    }
+
+    /**
+     * Enqueues a bug for asynchronous persistence without blocking.
+     * @return false if the queue is full or shutting down; the caller should ask the client to retry
+     */
+    public boolean offer(Bug bug) {
+        if (running && queue.offer(new PendingBug(bug, System.nanoTime()))) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "bug-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops accepting new submissions and waits for the writer to flush what is already queued
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("Ingest writer stopped with {} bug(s) still queued", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the web server, so nothing is offered once the writer has flushed
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<PendingBug> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBug first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch, System.nanoTime() + maxDelayNanos);
+            } catch (InterruptedException e) {
+                // Keep draining until the queue is empty; stop() bounds how long we wait
+                Thread.interrupted();
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingBug> batch, long deadline) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingBug next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingBug> batch) {
+        List<Bug> bugs = new ArrayList<>(batch.size());
+        for (PendingBug pending : batch) {
+            bugs.add(pending.bug);
+        }
+        try {
+            bugService.createBugs(bugs);
+        } catch (DataIntegrityViolationException e) {
+            // A bug the schema rejects fails its whole group; the rest of the group is still good
+            if (batch.size() > 1) {
+                logger.warn("Failed to write {} queued bug(s); retrying them in halves", batch.size());
+                retry(batch);
+                return;
+            }
+            dropped.incrementAndGet();
+            logger.error("Failed to write a queued bug; it is dropped", e);
+            return;
+        } catch (RuntimeException e) {
+            // Anything else, such as the database being unreachable, would fail the halves too
+            dropped.addAndGet(batch.size());
+            logger.error("Failed to write {} queued bug(s); they are dropped", batch.size(), e);
+            return;
+        }
+        // Latency of the oldest entry in the group, i.e. the worst wait in this commit
+        long latency = System.nanoTime() - batch.get(0).enqueuedAt;
+        written.addAndGet(batch.size());
+        batches.incrementAndGet();
+        lastDrainLatencyNanos.set(latency);
+        totalDrainLatencyNanos.addAndGet(latency);
+    }
+
+    private void retry(List<PendingBug> batch) {
+        for (PendingBug pending : batch) {
+            // The rolled-back insert left generated ids behind; with them the bugs would be merged, not inserted
+            pending.bug.setId(null);
+        }
+        int half = batch.size() / 2;
+        flush(batch.subList(0, half));
+        flush(batch.subList(half, batch.size()));
+    }
+
+    public IngestStats getStats() {
+        long batchCount = batches.get();
+        return new IngestStats(
+                queue.size(),
+                capacity,
+                accepted.get(),
+                rejected.get(),
+                written.get(),
+                dropped.get(),
+                batchCount,
+                TimeUnit.NANOSECONDS.toMillis(lastDrainLatencyNanos.get()),
+                batchCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalDrainLatencyNanos.get() / batchCount));
+    }
+
+    private static final class PendingBug {
+        private final Bug bug;
+        private final long enqueuedAt;
+
+        private PendingBug(Bug bug, long enqueuedAt) {
+            this.bug = bug;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Point-in-time view of the queue counters
+     */
+    public static class IngestStats {
+        private final int depth;
+        private final int capacity;
+        private final long accepted;
+        private final long rejected;
+        private final long written;
+        private final long dropped;
+        private final long batches;
+        private final long lastDrainLatencyMillis;
+        private final long averageDrainLatencyMillis;
+
+        public IngestStats(int depth, int capacity, long accepted, long rejected, long written, long dropped,
+                           long batches, long lastDrainLatencyMillis, long averageDrainLatencyMillis) {
+            this.depth = depth;
+            this.capacity = capacity;
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.written = written;
+            this.dropped = dropped;
+            this.batches = batches;
+            this.lastDrainLatencyMillis = lastDrainLatencyMillis;
+            this.averageDrainLatencyMillis = averageDrainLatencyMillis;
+        }
+
+        public int getDepth() { return depth; }
+        public int getCapacity() { return capacity; }
+        public long getAccepted() { return accepted; }
+        public long getRejected() { return rejected; }
+        public long getWritten() { return written; }
+        public long getDropped() { return dropped; }
+        public long getBatches() { return batches; }
+        public long getLastDrainLatencyMillis() { return lastDrainLatencyMillis; }
+        public long getAverageDrainLatencyMillis() { return averageDrainLatencyMillis; }
+    }
+}
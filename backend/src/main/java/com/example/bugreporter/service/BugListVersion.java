@@ -0,0 +1,29 @@
+package com.example.bugreporter.service;
+
+/**
+ * Cheap fingerprint of the whole bugs table: the change sequence high-water marks
+ * of the bugs and of their tombstones. Every insert and update stamps the bug with a
+ * new sequence value and every delete leaves a tombstone with one, so list responses
+ * derived from an unchanged fingerprint are unchanged too. Both values are read off
+ * indexes, so the check costs the same at any table size.
+ */
+public class BugListVersion {
+
+    private final long lastChangeSeq;
+    private final long lastDeletedSeq;
+
+    public BugListVersion(Long lastChangeSeq, Long lastDeletedSeq) {
+        this.lastChangeSeq = lastChangeSeq;
+        this.lastDeletedSeq = lastDeletedSeq;
+    }
+
+    /**
+     * Latest change sequence value of any bug, 0 when the table is empty
+     */
+    public long getLastChangeSeq() { return lastChangeSeq; }
+
+    /**
+     * Change sequence value of the latest tombstone, 0 if nothing was deleted
+     */
+    public long getLastDeletedSeq() { return lastDeletedSeq; }
+}
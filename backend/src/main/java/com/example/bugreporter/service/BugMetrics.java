@@ -0,0 +1,91 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application meters that Spring Boot doesn't provide: bug counts by status and
+ * priority, committed changes by type and resulting status, the connection gate and
+ * the thumbnail workers.
+ * Gauges read the existing in-memory counters at scrape time, so nothing here
+ * queries the database.
+ */
+@Component
+public class BugMetrics {
+
+    private final Map<BugChangeEvent.Type, Map<Bug.Status, Counter>> changes =
+            new EnumMap<>(BugChangeEvent.Type.class);
+
+    public BugMetrics(MeterRegistry registry, BugStatsCounters statsCounters, ConnectionGate connectionGate,
+                      ScreenshotThumbnails thumbnails) {
+        for (Bug.Status status : Bug.Status.values()) {
+            for (Bug.Priority priority : Bug.Priority.values()) {
+                Gauge.builder("bugreporter.bugs", statsCounters, counters -> counters.count(status, priority))
+                        .description("Bugs by status and priority")
+                        .tag("status", status.name())
+                        .tag("priority", priority.name())
+                        .register(registry);
+            }
+        }
+        for (BugChangeEvent.Type type : BugChangeEvent.Type.values()) {
+            Map<Bug.Status, Counter> byStatus = new EnumMap<>(Bug.Status.class);
+            for (Bug.Status status : Bug.Status.values()) {
+                byStatus.put(status, Counter.builder("bugreporter.bug.changes")
+                        .description("Committed bug changes; status is the bug's status after the change")
+                        .tag("type", type.name())
+                        .tag("status", status.name())
+                        .register(registry));
+            }
+            changes.put(type, byStatus);
+        }
+
+        Gauge.builder("bugreporter.db.gate.permits", connectionGate, gate -> gate.getStats().getPermits())
+                .description("Connections that may be checked out at once")
+                .register(registry);
+        Gauge.builder("bugreporter.db.gate.in.use", connectionGate, gate -> gate.getStats().getInUse())
+                .description("Connections checked out through the gate")
+                .register(registry);
+        Gauge.builder("bugreporter.db.gate.waiting", connectionGate, gate -> gate.getStats().getWaiting())
+                .description("Callers queued for a connection")
+                .register(registry);
+        FunctionTimer.builder("bugreporter.db.gate.wait", connectionGate,
+                        ConnectionGate::waitCount, ConnectionGate::totalWaitNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for a connection, timeouts included")
+                .register(registry);
+        FunctionCounter.builder("bugreporter.db.gate.timeouts", connectionGate, gate -> gate.getStats().getTimeouts())
+                .description("Callers that gave up waiting for a connection")
+                .register(registry);
+
+        Gauge.builder("bugreporter.thumbnails.queued", thumbnails, t -> t.getStats().getQueued())
+                .description("Screenshots waiting for a thumbnail worker")
+                .register(registry);
+        Gauge.builder("bugreporter.thumbnails.active", thumbnails, t -> t.getStats().getActive())
+                .description("Thumbnails being generated")
+                .register(registry);
+        FunctionTimer.builder("bugreporter.thumbnails.generation", thumbnails,
+                        ScreenshotThumbnails::generatedCount, ScreenshotThumbnails::generatedNanos, TimeUnit.NANOSECONDS)
+                .description("Time to decode, scale, encode and store a thumbnail")
+                .register(registry);
+        FunctionCounter.builder("bugreporter.thumbnails.rejected", thumbnails, t -> t.getStats().getRejected())
+                .description("Screenshots not queued because the queue was full")
+                .register(registry);
+        FunctionCounter.builder("bugreporter.thumbnails.failed", thumbnails, t -> t.getStats().getFailed())
+                .description("Screenshots whose thumbnail could not be generated")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(BugChangeEvent event) {
+        changes.get(event.getType()).get(event.getBug().getStatus()).increment();
+    }
+}
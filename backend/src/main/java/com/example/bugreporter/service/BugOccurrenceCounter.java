@@ -0,0 +1,195 @@
+package com.example.bugreporter.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Absorbs duplicate report counts in memory and writes them to the occurrences column
+ * periodically, one {@code UPDATE ... SET occurrences = occurrences + ?} per bug. Reports
+ * of one hot bug increment the cells of a {@link LongAdder}, so thousands of concurrent
+ * reporters neither wait on its row lock nor contend on a single counter. Counts not yet
+ * written are lost only if the process dies without stopping; a normal shutdown flushes them.
+ */
+@Component
+public class BugOccurrenceCounter implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(BugOccurrenceCounter.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final BugService bugService;
+    private final long flushMillis;
+    // A flush removes each entry before draining it. sumThenReset takes each cell with getAndSet, so when a
+    // late increment races with that drain, exactly one of the flush and the incrementing thread gets it.
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+
+    private volatile boolean running;
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public BugOccurrenceCounter(BugService bugService,
+                                @Value("${bugreporter.dedup.flush-ms:1000}") long flushMillis) {
+        this.bugService = bugService;
+        this.flushMillis = flushMillis;
+    }
+
+    /**
+     * Counts one more report of {@code bugId}; it reaches the database with the next flush
+     */
+    public void increment(Long bugId) {
+        add(bugId, 1);
+    }
+
+    private void add(Long bugId, long count) {
+        while (count > 0) {
+            LongAdder adder = pending.get(bugId);
+            if (adder == null) {
+                adder = pending.computeIfAbsent(bugId, id -> new LongAdder());
+            }
+            adder.add(count);
+            if (pending.get(bugId) == adder) {
+                return;
+            }
+            // A flush removed the adder meanwhile; move whatever it didn't drain to the current one
+            count = adder.sumThenReset();
+        }
+    }
+
+    /**
+     * Drops the counter of a deleted bug; counts still pending for it are discarded
+     */
+    void forget(Long bugId) {
+        pending.remove(bugId);
+    }
+
+    /**
+     * Writes all pending counts in one transaction. On failure they are added back and
+     * retried with the next flush. Flushes never overlap.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        SortedMap<Long, Long> counts = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            // Drained entries are removed, so the map only holds bugs reported since the last flush
+            if (!pending.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            long count = entry.getValue().sumThenReset();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        Set<Long> missing;
+        try {
+            missing = bugService.addOccurrences(counts);
+        } catch (RuntimeException e) {
+            counts.forEach(this::add);
+            logger.warn("Writing {} bug occurrence count(s) failed; retrying with the next flush", counts.size(), e);
+            return;
+        }
+        missing.forEach(pending::remove);
+        flushes.incrementAndGet();
+        counts.values().forEach(flushed::addAndGet);
+    }
+
+    /**
+     * Reports counted but not written yet
+     */
+    public long getPending() {
+        long sum = 0;
+        for (LongAdder count : pending.values()) {
+            sum += count.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * Bugs with counts since the last flush
+     */
+    int getTrackedBugs() {
+        return pending.size();
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public long getFlushed() {
+        return flushed.get();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bug-occurrence-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    /**
+     * Stops the periodic flush and writes what is still pending
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        long left = getPending();
+        if (left > 0) {
+            logger.warn("Stopped with {} bug occurrence(s) not written", left);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the web server, so reports accepted before shutdown are written
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
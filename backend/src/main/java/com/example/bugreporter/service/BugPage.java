@@ -0,0 +1,28 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated bug listing
+ */
+public class BugPage {
+
+    private final List<Bug> bugs;
+    private final BugCursor nextCursor;
+
+    public BugPage(List<Bug> bugs, BugCursor nextCursor) {
+        this.bugs = bugs;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Bug> getBugs() { return bugs; }
+
+    /**
+     * Cursor for the following page, or null when this is the last page
+     */
+    public BugCursor getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != null; }
+}
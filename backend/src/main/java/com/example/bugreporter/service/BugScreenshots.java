@@ -0,0 +1,151 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Screenshot upload and lookup for bugs. Uploads are checked to be an accepted image
+ * format by their leading bytes, whatever type the client declared, then streamed into
+ * the {@link ScreenshotStore} and attached to the bug. Their thumbnails are left to
+ * {@link ScreenshotThumbnails}.
+ */
+@Component
+public class BugScreenshots {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] GIF87A = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89A = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+    private static final int SNIFF_BYTES = 12;
+
+    private final BugService bugService;
+    private final ScreenshotStore store;
+    private final ScreenshotThumbnails thumbnails;
+    private final long maxBytes;
+
+    @Autowired
+    public BugScreenshots(BugService bugService, ScreenshotStore store, ScreenshotThumbnails thumbnails,
+                          @Value("${bugreporter.screenshots.max-bytes:10485760}") long maxBytes) {
+        this.bugService = bugService;
+        this.store = store;
+        this.thumbnails = thumbnails;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Stores {@code content} and makes it the bug's screenshot, with {@code url} as its
+     * screenshotUrl and {@code url + "/thumbnail"} as its thumbnailUrl, then queues the
+     * thumbnail. Nothing is read when the bug doesn't exist.
+     * @return the updated bug, or empty if there is no such bug
+     * @throws IllegalArgumentException if the content is not a PNG, JPEG, GIF or WebP image
+     * @throws ScreenshotTooLargeException if the content is over the size limit
+     */
+    public Optional<Bug> upload(Long id, InputStream content, String url) throws IOException {
+        if (bugService.getBugById(id).isEmpty()) {
+            return Optional.empty();
+        }
+        BufferedInputStream in = new BufferedInputStream(content);
+        in.mark(SNIFF_BYTES);
+        String contentType = detectContentType(in.readNBytes(SNIFF_BYTES));
+        in.reset();
+        if (contentType == null) {
+            throw new IllegalArgumentException("Screenshot must be a PNG, JPEG, GIF or WebP image");
+        }
+        String hash = store.put(in, maxBytes);
+        boolean thumbnail = ScreenshotThumbnails.supports(contentType);
+        Optional<Bug> bug = bugService.attachScreenshot(id, hash, contentType, url, thumbnail ? url + "/thumbnail" : null);
+        if (bug.isPresent() && thumbnail) {
+            thumbnails.submit(hash);
+        }
+        return bug;
+    }
+
+    /**
+     * @return the bug's uploaded screenshot, or empty if the bug doesn't exist or has none
+     */
+    public Optional<Screenshot> find(Long id) throws IOException {
+        Optional<Bug> bug = bugService.getBugById(id);
+        if (bug.isEmpty() || bug.get().getScreenshotHash() == null) {
+            return Optional.empty();
+        }
+        String hash = bug.get().getScreenshotHash();
+        String contentType = bug.get().getScreenshotContentType();
+        return store.find(hash).map(blob -> new Screenshot(hash, contentType, blob));
+    }
+
+    /**
+     * @return the thumbnail of the bug's screenshot, or empty if the bug has no screenshot
+     *         or its thumbnail isn't ready; a missing thumbnail is queued again
+     */
+    public Optional<Screenshot> findThumbnail(Long id) throws IOException {
+        Optional<Bug> bug = bugService.getBugById(id);
+        if (bug.isEmpty() || bug.get().getScreenshotHash() == null
+                || !ScreenshotThumbnails.supports(bug.get().getScreenshotContentType())) {
+            return Optional.empty();
+        }
+        String hash = bug.get().getScreenshotHash();
+        Optional<ScreenshotStore.Blob> thumbnail = store.findThumbnail(hash);
+        if (thumbnail.isEmpty()) {
+            thumbnails.submit(hash);
+            return Optional.empty();
+        }
+        return Optional.of(new Screenshot(hash, ScreenshotThumbnails.CONTENT_TYPE, thumbnail.get()));
+    }
+
+    static String detectContentType(byte[] head) {
+        if (startsWith(head, 0, PNG)) {
+            return "image/png";
+        }
+        if (startsWith(head, 0, JPEG)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 0, GIF87A) || startsWith(head, 0, GIF89A)) {
+            return "image/gif";
+        }
+        if (startsWith(head, 0, RIFF) && startsWith(head, 8, WEBP)) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int offset, byte[] signature) {
+        if (head.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (head[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An uploaded screenshot; the hash doubles as a strong validator
+     */
+    public static class Screenshot {
+        private final String hash;
+        private final String contentType;
+        private final ScreenshotStore.Blob blob;
+
+        public Screenshot(String hash, String contentType, ScreenshotStore.Blob blob) {
+            this.hash = hash;
+            this.contentType = contentType;
+            this.blob = blob;
+        }
+
+        public String getHash() { return hash; }
+        public String getContentType() { return contentType; }
+        public ScreenshotStore.Blob getBlob() { return blob; }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.util.List;
+
+/**
+ * One page of search results, most relevant first. Relevance has no stable key,
+ * so search pages by offset rather than by cursor.
+ */
+public class BugSearchPage {
+
+    private final List<Bug> bugs;
+    private final Integer nextOffset;
+
+    public BugSearchPage(List<Bug> bugs, Integer nextOffset) {
+        this.bugs = bugs;
+        this.nextOffset = nextOffset;
+    }
+
+    public List<Bug> getBugs() { return bugs; }
+
+    /**
+     * Offset of the following page, or null when this is the last page
+     */
+    public Integer getNextOffset() { return nextOffset; }
+
+    public boolean hasNext() { return nextOffset != null; }
+}
@@ -2,22 +2,74 @@ package com.example.bugreporter.service;
 
 import com.example.bugreporter.Bug;
 import com.example.bugreporter.BugRepository;
+import com.example.bugreporter.BugTombstone;
+import com.example.bugreporter.BugTombstoneRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+// Every public method is timed as bugreporter.service, tagged with its name
 @Service
+@Timed(value = "bugreporter.service", histogram = true)
 public class BugService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Deepest search offset served; ranking has to score every match up to it
+     */
+    public static final int MAX_SEARCH_OFFSET = 10_000;
+
+    /**
+     * Most bugs one bulk update may match
+     */
+    public static final int MAX_BULK_UPDATE_SIZE = 10_000;
+
+    /**
+     * Most metadata entries one patch may change; bounds the size of the upsert statement
+     */
+    public static final int MAX_METADATA_PATCH_SIZE = 1_000;
+
+    /**
+     * Changes younger than this may still have concurrent writers with lower
+     * sequence values in flight, so the sync token is not advanced past them
+     */
+    static final Duration CHANGE_SETTLE_WINDOW = Duration.ofSeconds(2);
+
     private final BugRepository bugRepository;
+    private final BugTombstoneRepository tombstoneRepository;
+    private final BugCache bugCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public BugService(BugRepository bugRepository) {
+    public BugService(BugRepository bugRepository, BugTombstoneRepository tombstoneRepository,
+                      BugCache bugCache, ApplicationEventPublisher eventPublisher) {
         this.bugRepository = bugRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.bugCache = bugCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -25,25 +77,265 @@ public class BugService {
         return bugRepository.findAllByOrderByCreatedAtDesc();
     }
 
+    /**
+     * Keyset page over (createdAt DESC, id DESC). Fetches one extra id to know
+     * whether another page follows, so the cost is independent of paging depth.
+     * The page is read in two statements regardless of size: the ids, then the
+     * bugs with their metadata.
+     */
+    @Transactional(readOnly = true)
+    public BugPage getBugsPage(BugCursor after, int limit) {
+        return getBugsPage(BugFilter.none(), BugSort.DEFAULT, after, limit);
+    }
+
+    /**
+     * Keyset page of the bugs matching {@code filter}, in {@code sort} order. The
+     * conditions are built as a Criteria query so each one can use its index; metadata
+     * conditions are semi-joins, so no metadata map is loaded to evaluate them.
+     * @throws IllegalArgumentException if {@code after} was issued for a different sort
+     */
+    @Transactional(readOnly = true)
+    public BugPage getBugsPage(BugFilter filter, BugSort sort, BugCursor after, int limit) {
+        if (after != null && after.getSort() != sort) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + after.getSort());
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable window = PageRequest.of(0, pageSize + 1);
+
+        List<Long> ids;
+        if (!filter.isEmpty() || sort != BugSort.DEFAULT) {
+            ids = bugRepository.findFilteredIds(filter, sort, after, pageSize + 1);
+        } else if (after == null) {
+            ids = bugRepository.findFirstPageIds(window);
+        } else {
+            ids = bugRepository.findPageIdsAfter(after.getSortValue(), after.getId(), window);
+        }
+
+        boolean hasNext = ids.size() > pageSize;
+        List<Bug> bugs = loadInOrder(hasNext ? ids.subList(0, pageSize) : ids);
+        if (!hasNext || bugs.isEmpty()) {
+            return new BugPage(bugs, null);
+        }
+        return new BugPage(bugs, BugCursor.after(bugs.get(bugs.size() - 1), sort));
+    }
+
+    /**
+     * Full-text search over title and description, most relevant first. Like
+     * {@link #getBugsPage}, one statement finds the ids and one loads the bugs.
+     */
+    @Transactional(readOnly = true)
+    public BugSearchPage searchBugs(String query, int offset, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        int start = Math.max(0, Math.min(offset, MAX_SEARCH_OFFSET));
+
+        List<Long> ids = bugRepository.searchIds(query, start, pageSize + 1);
+        boolean hasNext = ids.size() > pageSize && start + pageSize <= MAX_SEARCH_OFFSET;
+        List<Bug> bugs = loadInOrder(ids.size() > pageSize ? ids.subList(0, pageSize) : ids);
+        return new BugSearchPage(bugs, hasNext ? start + pageSize : null);
+    }
+
+    /**
+     * Fetches bugs with metadata initialized, preserving the order of {@code ids}
+     */
+    private List<Bug> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Bug> byId = new HashMap<>();
+        for (Bug bug : bugRepository.findAllWithMetadataByIdIn(ids)) {
+            byId.put(bug.getId(), bug);
+        }
+        List<Bug> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Bug bug = byId.get(id);
+            // A row deleted between the two reads is simply skipped
+            if (bug != null) {
+                ordered.add(bug);
+            }
+        }
+        return ordered;
+    }
+
     @Transactional(readOnly = true)
     public List<Bug> getBugsByStatus(Bug.Status status) {
         return bugRepository.findByStatusOrderByCreatedAtDesc(status);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Served from {@link BugCache}; every write path below evicts the affected ids.
+     * Deliberately not transactional so a cache hit never borrows a connection.
+     * The returned bug may be shared with other readers and must not be modified.
+     */
     public Optional<Bug> getBugById(Long id) {
-        return bugRepository.findById(id);
+        return bugCache.get(id, bugRepository::findWithMetadataById);
+    }
+
+    /**
+     * Last modification time of a bug, for conditional reads. Uses the cached copy
+     * when there is one, otherwise a single-column lookup.
+     */
+    public Optional<LocalDateTime> getBugVersion(Long id) {
+        Optional<Bug> cached = bugCache.peek(id);
+        if (cached.isPresent()) {
+            return Optional.of(cached.get().getUpdatedAt());
+        }
+        return bugRepository.findUpdatedAtById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public BugListVersion getListVersion() {
+        return bugRepository.findListVersion();
+    }
+
+    /**
+     * Delta sync: bugs created or updated and ids of bugs deleted after {@code since},
+     * oldest change first. Reads the change index and the tombstones from one snapshot,
+     * so the cost depends on the number of changes rather than the size of the table.
+     * Delivery is at-least-once: the returned token never moves past a change younger
+     * than {@link #CHANGE_SETTLE_WINDOW}, and such changes are sent again on the next call.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public BugChanges getChanges(ChangeToken since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable window = PageRequest.of(0, pageSize + 1);
+
+        List<Bug> bugs = loadInOrder(bugRepository.findIdsChangedAfter(since.getChangeSeq(), since.getBugId(), window));
+        List<BugTombstone> tombstones =
+                tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(since.getChangeSeq(), window);
+
+        LocalDateTime settled = LocalDateTime.now().minus(CHANGE_SETTLE_WINDOW);
+        List<Bug> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        ChangeToken next = since;
+        boolean heldBack = false;
+        int b = 0;
+        int t = 0;
+        // Merge the two streams by sequence; a tombstone never shares its value with a bug
+        while (changed.size() + deleted.size() < pageSize && (b < bugs.size() || t < tombstones.size())) {
+            boolean takeBug = t >= tombstones.size()
+                    || (b < bugs.size() && bugs.get(b).getChangeSeq() < tombstones.get(t).getChangeSeq());
+            LocalDateTime changedAt;
+            ChangeToken position;
+            if (takeBug) {
+                Bug bug = bugs.get(b++);
+                changed.add(bug);
+                changedAt = bug.getUpdatedAt();
+                position = new ChangeToken(bug.getChangeSeq(), bug.getId());
+            } else {
+                BugTombstone tombstone = tombstones.get(t++);
+                deleted.add(tombstone.getBugId());
+                changedAt = tombstone.getDeletedAt();
+                position = ChangeToken.afterTombstone(tombstone.getChangeSeq());
+            }
+            heldBack |= !changedAt.isBefore(settled);
+            if (!heldBack) {
+                next = position;
+            }
+        }
+        boolean hasMore = !heldBack && (b < bugs.size() || t < tombstones.size());
+        return new BugChanges(changed, deleted, next.encode(), hasMore);
+    }
+
+    /**
+     * Counts bugs straight from the table, for reconciling {@link BugStatsCounters}.
+     * All reads share one snapshot, so the counts and the change sequence agree.
+     * Cost grows with the table; serve requests from the counters instead.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public BugStats countBugs(LocalDate from, LocalDate to) {
+        long[][] counts = new long[Bug.Status.values().length][Bug.Priority.values().length];
+        for (Object[] row : bugRepository.countByStatusAndPriority()) {
+            counts[((Bug.Status) row[0]).ordinal()][((Bug.Priority) row[1]).ordinal()] = (Long) row[2];
+        }
+        Map<LocalDate, Long> perDay = new HashMap<>();
+        for (Object[] row : bugRepository.countCreatedPerDaySince(from.atStartOfDay())) {
+            perDay.put((LocalDate) row[0], (Long) row[1]);
+        }
+        long changeSeq = Math.max(bugRepository.findMaxChangeSeq(), tombstoneRepository.findMaxChangeSeq());
+        return BugStats.of(counts, perDay, from, to, changeSeq, LocalDateTime.now());
     }
 
     @Transactional
     public Bug createBug(Bug bug) {
-        return bugRepository.save(bug);
+        bug.setChangeSeq(bugRepository.nextChangeSeq());
+        Bug saved = bugRepository.save(bug);
+        bugCache.evict(saved.getId());
+        eventPublisher.publishEvent(BugChangeEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * The oldest bug with this fingerprint that isn't closed, read through {@link BugCache}.
+     * Deliberately not transactional, like {@link #getBugById}.
+     */
+    public Optional<Bug> findOpenDuplicate(String fingerprint) {
+        List<Long> ids = bugRepository.findIdsByFingerprint(fingerprint, Bug.Status.CLOSED, PageRequest.of(0, 1));
+        return ids.isEmpty() ? Optional.empty() : getBugById(ids.get(0));
+    }
+
+    /**
+     * Adds counts of folded duplicate reports, one UPDATE per bug in id order so
+     * concurrent bulk updates can't deadlock with it. Written bugs share one change
+     * sequence value and each gets an {@link BugChangeEvent.Type#UPDATED} event.
+     * @return ids of bugs that no longer exist
+     */
+    @Transactional
+    public Set<Long> addOccurrences(SortedMap<Long, Long> counts) {
+        // Truncated like Bug#markUpdated, so the value compares equal after a round trip
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        long changeSeq = bugRepository.nextChangeSeq();
+        List<Long> updated = new ArrayList<>(counts.size());
+        Set<Long> missing = new HashSet<>();
+        for (Map.Entry<Long, Long> count : counts.entrySet()) {
+            bugCache.evict(count.getKey());
+            if (bugRepository.addOccurrences(count.getKey(), count.getValue(), now, changeSeq) > 0) {
+                updated.add(count.getKey());
+            } else {
+                missing.add(count.getKey());
+            }
+        }
+        for (Bug bug : loadInOrder(updated)) {
+            eventPublisher.publishEvent(BugChangeEvent.updated(BugChangeEvent.Type.UPDATED, bug, null, null));
+        }
+        return missing;
+    }
+
+    /**
+     * Fingerprints of all bugs that aren't closed, read from a cursor
+     */
+    @Transactional(readOnly = true)
+    public void forEachOpenFingerprint(Consumer<String> action) {
+        try (Stream<String> fingerprints = bugRepository.streamFingerprints(Bug.Status.CLOSED)) {
+            fingerprints.forEach(action);
+        }
+    }
+
+    /**
+     * Persists all bugs in one transaction. Ids are sequence-allocated, so the
+     * bug and metadata inserts are flushed as JDBC batches. The whole batch
+     * shares one change sequence value.
+     */
+    @Transactional
+    public List<Bug> createBugs(List<Bug> bugs) {
+        long changeSeq = bugRepository.nextChangeSeq();
+        for (Bug bug : bugs) {
+            bug.setChangeSeq(changeSeq);
+        }
+        List<Bug> saved = bugRepository.saveAll(bugs);
+        for (Bug bug : saved) {
+            bugCache.evict(bug.getId());
+            eventPublisher.publishEvent(BugChangeEvent.created(bug));
+        }
+        return saved;
     }
 
     @Transactional
     public Optional<Bug> updateBug(Long id, Bug bugDetails) {
+        bugCache.evict(id);
         return bugRepository.findById(id)
                 .map(existingBug -> {
+                    Bug.Status previousStatus = existingBug.getStatus();
+                    Bug.Priority previousPriority = existingBug.getPriority();
                     if (bugDetails.getTitle() != null) {
                         existingBug.setTitle(bugDetails.getTitle());
                     }
@@ -61,20 +353,232 @@ public class BugService {
                     }
                     // Update metadata if present
                     if (bugDetails.getMetadata() != null && !bugDetails.getMetadata().isEmpty()) {
-                        for (Map.Entry<String, String> entry : bugDetails.getMetadata().entrySet()) {
-                            existingBug.addMetadata(entry.getKey(), entry.getValue());
-                        }
+                        mergeMetadata(existingBug, bugDetails.getMetadata());
                     }
-                    return bugRepository.save(existingBug);
+                    touch(existingBug);
+                    Bug saved = bugRepository.save(existingBug);
+                    publishUpdate(saved, previousStatus, previousPriority,
+                            bugDetails.getMetadata() != null && !bugDetails.getMetadata().isEmpty());
+                    return saved;
                 });
     }
 
+    /**
+     * Sets the status and/or priority of one bug with an UPDATE of just those columns, so
+     * it can't overwrite a concurrent change to any other field. The row is first locked
+     * and read as (id, status, priority, version) only, for the version check and the
+     * change events; the bug itself is loaded once, afterwards, for the response. Setting
+     * a value the bug already has writes nothing.
+     * @param expectedVersion the version the client last read, or null to update whatever the version
+     * @return the bug as written, or empty if it doesn't exist
+     * @throws IllegalArgumentException if there is no target
+     * @throws BugVersionConflictException if the bug is no longer at {@code expectedVersion}
+     */
     @Transactional
-    public boolean deleteBug(Long id) {
-        if (bugRepository.existsById(id)) {
-            bugRepository.deleteById(id);
-            return true;
+    public Optional<Bug> updateTriage(Long id, Bug.Status status, Bug.Priority priority, Long expectedVersion) {
+        if (status == null && priority == null) {
+            throw new IllegalArgumentException("A target status or priority is required");
+        }
+        List<Object[]> rows = bugRepository.lockFiltered(BugFilter.none().setIds(List.of(id)), 1);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        if (expectedVersion != null && !expectedVersion.equals(row[3])) {
+            throw new BugVersionConflictException(bugRepository.findWithMetadataById(id).orElseThrow());
+        }
+        if ((status == null || row[1] == status) && (priority == null || row[2] == priority)) {
+            return bugRepository.findWithMetadataById(id);
+        }
+
+        bugCache.evict(id);
+        // Truncated like Bug#markUpdated, so the value compares equal after a round trip
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        bugRepository.bulkUpdate(List.of(id), status, priority, now, bugRepository.nextChangeSeq());
+        // The UPDATE bypassed the session; one more statement loads the result
+        Optional<Bug> saved = bugRepository.findWithMetadataById(id);
+        saved.ifPresent(bug -> publishUpdate(bug, (Bug.Status) row[1], (Bug.Priority) row[2], false));
+        return saved;
+    }
+
+    /**
+     * Sets the status and/or priority of every bug matching {@code filter} with one
+     * set-based UPDATE, instead of a load and a dirty check per bug. The matching rows
+     * are first locked and read as (id, status, priority) only, so bugs already in the
+     * target state are left untouched and each change is published with its previous
+     * values. Written bugs share one change sequence value, like {@link #createBugs}.
+     * @throws IllegalArgumentException if there is no target, the filter is empty,
+     *         or more than {@value #MAX_BULK_UPDATE_SIZE} bugs match
+     */
+    @Transactional
+    public BugBulkUpdateResult bulkUpdate(BugFilter filter, Bug.Status status, Bug.Priority priority) {
+        if (status == null && priority == null) {
+            throw new IllegalArgumentException("A target status or priority is required");
+        }
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("A bulk update needs ids or a filter");
         }
-        return false;
+        List<Object[]> rows = bugRepository.lockFiltered(filter, MAX_BULK_UPDATE_SIZE + 1);
+        if (rows.size() > MAX_BULK_UPDATE_SIZE) {
+            throw new IllegalArgumentException("More than " + MAX_BULK_UPDATE_SIZE + " bugs match");
+        }
+
+        Map<Long, Object[]> changing = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            if ((status != null && row[1] != status) || (priority != null && row[2] != priority)) {
+                changing.put((Long) row[0], row);
+            }
+        }
+        if (changing.isEmpty()) {
+            return new BugBulkUpdateResult(rows.size(), 0);
+        }
+
+        bugCache.evictAll(changing.keySet());
+        // Truncated like Bug#markUpdated, so the value compares equal after a round trip
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int updated = bugRepository.bulkUpdate(changing.keySet(), status, priority, now, bugRepository.nextChangeSeq());
+        // The UPDATE bypassed the session; one more statement loads the event payloads
+        for (Bug bug : loadInOrder(new ArrayList<>(changing.keySet()))) {
+            Object[] previous = changing.get(bug.getId());
+            publishUpdate(bug, (Bug.Status) previous[1], (Bug.Priority) previous[2], false);
+        }
+        return new BugBulkUpdateResult(rows.size(), updated);
+    }
+
+    /**
+     * One event per kind of change, so subscribers can react to status and priority
+     * changes without diffing; {@link BugChangeEvent.Type#UPDATED} covers the other fields
+     */
+    private void publishUpdate(Bug bug, Bug.Status previousStatus, Bug.Priority previousPriority,
+                               boolean metadataChanged) {
+        boolean published = false;
+        if (bug.getStatus() != previousStatus) {
+            eventPublisher.publishEvent(BugChangeEvent.updated(
+                    BugChangeEvent.Type.STATUS_CHANGED, bug, previousStatus, previousPriority));
+            published = true;
+        }
+        if (bug.getPriority() != previousPriority) {
+            eventPublisher.publishEvent(BugChangeEvent.updated(
+                    BugChangeEvent.Type.PRIORITY_CHANGED, bug, null, previousPriority));
+            published = true;
+        }
+        if (metadataChanged) {
+            eventPublisher.publishEvent(BugChangeEvent.updated(
+                    BugChangeEvent.Type.METADATA_CHANGED, bug, null, null));
+            published = true;
+        }
+        if (!published) {
+            eventPublisher.publishEvent(BugChangeEvent.updated(BugChangeEvent.Type.UPDATED, bug, null, null));
+        }
+    }
+
+    /**
+     * Applies a merge patch to a bug's metadata: entries with a value are added or
+     * overwritten, entries with a null value are removed, and the others are kept.
+     * Only the named rows are written, with one upsert and one delete, instead of
+     * loading the map and letting Hibernate rewrite the whole collection. The bug row is
+     * stamped first with a targeted UPDATE, which also serializes patches of one bug.
+     * @return the bug as written, or empty if it doesn't exist
+     * @throws IllegalArgumentException if a key or value is over the column limits, or
+     *         there are more than {@value #MAX_METADATA_PATCH_SIZE} entries
+     */
+    @Transactional
+    public Optional<Bug> updateBugMetadata(Long id, Map<String, String> changes) {
+        validateMetadataPatch(changes);
+        if (changes.isEmpty()) {
+            return getBugById(id);
+        }
+        bugCache.evict(id);
+        // Truncated like Bug#markUpdated, so the value compares equal after a round trip
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (bugRepository.markUpdated(id, now, bugRepository.nextChangeSeq()) == 0) {
+            return Optional.empty();
+        }
+        Map<String, String> upserts = new HashMap<>();
+        List<String> removals = new ArrayList<>();
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                removals.add(change.getKey());
+            } else {
+                upserts.put(change.getKey(), change.getValue());
+            }
+        }
+        bugRepository.deleteMetadata(id, removals);
+        bugRepository.upsertMetadata(id, upserts);
+        // The statements bypassed the session; one more statement loads the result
+        Optional<Bug> saved = bugRepository.findWithMetadataById(id);
+        saved.ifPresent(bug -> eventPublisher.publishEvent(
+                BugChangeEvent.updated(BugChangeEvent.Type.METADATA_CHANGED, bug, null, null)));
+        return saved;
+    }
+
+    private static void validateMetadataPatch(Map<String, String> changes) {
+        if (changes == null) {
+            throw new IllegalArgumentException("A metadata object is required");
+        }
+        if (changes.size() > MAX_METADATA_PATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_METADATA_PATCH_SIZE + " metadata entries can be changed at once");
+        }
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getKey() == null || change.getKey().isEmpty() || change.getKey().length() > 255) {
+                throw new IllegalArgumentException("metadata keys must be 1-255 characters");
+            }
+            if (change.getValue() != null && change.getValue().length() > 1024) {
+                throw new IllegalArgumentException(
+                        "metadata value for '" + change.getKey() + "' must be at most 1024 characters");
+            }
+        }
+    }
+
+    /**
+     * Makes a stored screenshot the bug's screenshot; {@code url} replaces its screenshotUrl
+     * and {@code thumbnailUrl}, null when no thumbnail can be made, its thumbnailUrl
+     */
+    @Transactional
+    public Optional<Bug> attachScreenshot(Long id, String hash, String contentType, String url, String thumbnailUrl) {
+        bugCache.evict(id);
+        return bugRepository.findById(id)
+                .map(existingBug -> {
+                    existingBug.setScreenshotHash(hash);
+                    existingBug.setScreenshotContentType(contentType);
+                    existingBug.setScreenshotUrl(url);
+                    existingBug.setThumbnailUrl(thumbnailUrl);
+                    touch(existingBug);
+                    Bug saved = bugRepository.save(existingBug);
+                    eventPublisher.publishEvent(BugChangeEvent.updated(BugChangeEvent.Type.UPDATED, saved, null, null));
+                    return saved;
+                });
+    }
+
+    /**
+     * Adds or overwrites entries of {@code target}'s metadata, keeping the others
+     */
+    static void mergeMetadata(Bug target, Map<String, String> updates) {
+        for (Map.Entry<String, String> entry : updates.entrySet()) {
+            target.addMetadata(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Stamps a write for conditional reads and delta sync
+     */
+    private void touch(Bug bug) {
+        bug.markUpdated();
+        bug.setChangeSeq(bugRepository.nextChangeSeq());
+    }
+
+    @Transactional
+    public boolean deleteBug(Long id) {
+        bugCache.evict(id);
+        return bugRepository.findById(id)
+                .map(bug -> {
+                    BugTombstone tombstone = tombstoneRepository.save(new BugTombstone(id));
+                    // Snapshot before removal; stats subscribers need the last status, priority and day
+                    BugChangeEvent event = BugChangeEvent.deleted(bug, tombstone.getChangeSeq());
+                    bugRepository.delete(bug);
+                    eventPublisher.publishEvent(event);
+                    return true;
+                })
+                .orElse(false);
     }
 } 
\ No newline at end of file
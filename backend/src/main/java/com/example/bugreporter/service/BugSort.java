@@ -0,0 +1,66 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Orders a bug listing can be sorted in. Every order breaks ties on id in the same
+ * direction, so it is total and can be paged with a {@link BugCursor}.
+ */
+public enum BugSort {
+    CREATED_AT_DESC("createdAt", true, Bug::getCreatedAt),
+    CREATED_AT_ASC("createdAt", false, Bug::getCreatedAt),
+    UPDATED_AT_DESC("updatedAt", true, Bug::getUpdatedAt),
+    UPDATED_AT_ASC("updatedAt", false, Bug::getUpdatedAt);
+
+    public static final BugSort DEFAULT = CREATED_AT_DESC;
+
+    private final String property;
+    private final boolean descending;
+    private final Function<Bug, LocalDateTime> key;
+
+    BugSort(String property, boolean descending, Function<Bug, LocalDateTime> key) {
+        this.property = property;
+        this.descending = descending;
+        this.key = key;
+    }
+
+    /**
+     * Entity property sorted on
+     */
+    public String getProperty() { return property; }
+
+    public boolean isDescending() { return descending; }
+
+    public LocalDateTime keyOf(Bug bug) {
+        return key.apply(bug);
+    }
+
+    /**
+     * Parses {@code <property>[,asc|desc]}, e.g. {@code updatedAt,desc}; the direction defaults to ascending
+     * @throws IllegalArgumentException for an unknown property or direction
+     */
+    public static BugSort parse(String sort) {
+        String[] parts = sort.split(",", -1);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Invalid sort: " + sort);
+        }
+        boolean descending = false;
+        if (parts.length == 2) {
+            String direction = parts[1].trim().toLowerCase(Locale.ROOT);
+            if (!direction.equals("asc") && !direction.equals("desc")) {
+                throw new IllegalArgumentException("Invalid sort direction: " + parts[1]);
+            }
+            descending = direction.equals("desc");
+        }
+        for (BugSort candidate : values()) {
+            if (candidate.property.equals(parts[0].trim()) && candidate.descending == descending) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Invalid sort property: " + parts[0]);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Bug counts by status and priority, and bugs created per day over a trailing window.
+ * Every status/priority pair and every day in the window is present, zero when empty.
+ */
+public class BugStats {
+
+    private final long total;
+    private final Map<Bug.Status, Map<Bug.Priority, Long>> byStatusAndPriority;
+    private final SortedMap<LocalDate, Long> createdPerDay;
+    private final long changeSeq;
+    private final LocalDateTime reconciledAt;
+
+    public BugStats(long total, Map<Bug.Status, Map<Bug.Priority, Long>> byStatusAndPriority,
+                    SortedMap<LocalDate, Long> createdPerDay, long changeSeq, LocalDateTime reconciledAt) {
+        this.total = total;
+        this.byStatusAndPriority = byStatusAndPriority;
+        this.createdPerDay = createdPerDay;
+        this.changeSeq = changeSeq;
+        this.reconciledAt = reconciledAt;
+    }
+
+    /**
+     * @param counts indexed by status ordinal, then priority ordinal
+     * @param perDay creations per day; days outside [from, to] are ignored
+     */
+    static BugStats of(long[][] counts, Map<LocalDate, Long> perDay, LocalDate from, LocalDate to,
+                       long changeSeq, LocalDateTime reconciledAt) {
+        long total = 0;
+        Map<Bug.Status, Map<Bug.Priority, Long>> grid = new EnumMap<>(Bug.Status.class);
+        for (Bug.Status status : Bug.Status.values()) {
+            Map<Bug.Priority, Long> row = new EnumMap<>(Bug.Priority.class);
+            for (Bug.Priority priority : Bug.Priority.values()) {
+                long count = counts[status.ordinal()][priority.ordinal()];
+                row.put(priority, count);
+                total += count;
+            }
+            grid.put(status, Collections.unmodifiableMap(row));
+        }
+        SortedMap<LocalDate, Long> days = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, perDay.getOrDefault(day, 0L));
+        }
+        return new BugStats(total, Collections.unmodifiableMap(grid), Collections.unmodifiableSortedMap(days),
+                changeSeq, reconciledAt);
+    }
+
+    public long getTotal() { return total; }
+    public Map<Bug.Status, Map<Bug.Priority, Long>> getByStatusAndPriority() { return byStatusAndPriority; }
+
+    /**
+     * Oldest day first, ending today (server time)
+     */
+    public SortedMap<LocalDate, Long> getCreatedPerDay() { return createdPerDay; }
+
+    /**
+     * Highest change sequence value reflected in the counts
+     */
+    public long getChangeSeq() { return changeSeq; }
+
+    /**
+     * When the counts were last checked against the bugs table
+     */
+    public LocalDateTime getReconciledAt() { return reconciledAt; }
+}
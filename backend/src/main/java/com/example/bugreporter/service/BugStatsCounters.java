@@ -0,0 +1,204 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory bug counts by status and priority, and creations per day, kept current
+ * from committed {@link BugChangeEvent}s so {@link #getStats()} never touches the database.
+ * A background pass periodically replaces the counts with a fresh count of the table,
+ * which repairs drift from writes made by other instances or outside the service.
+ */
+@Component
+public class BugStatsCounters implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(BugStatsCounters.class);
+
+    private final BugService bugService;
+    private final int histogramDays;
+    private final long reconcileSeconds;
+    private final Object reconcileLock = new Object();
+
+    // Guarded by this
+    private final long[][] counts = new long[Bug.Status.values().length][Bug.Priority.values().length];
+    private final TreeMap<LocalDate, Long> perDay = new TreeMap<>();
+    private long changeSeq;
+    private LocalDateTime reconciledAt;
+    private List<BugChangeEvent> appliedDuringReconcile;
+
+    private volatile boolean running;
+    private ScheduledExecutorService reconciler;
+
+    @Autowired
+    public BugStatsCounters(BugService bugService,
+                            @Value("${bugreporter.stats.histogram-days:90}") int histogramDays,
+                            @Value("${bugreporter.stats.reconcile-seconds:300}") long reconcileSeconds) {
+        this.bugService = bugService;
+        this.histogramDays = histogramDays;
+        this.reconcileSeconds = reconcileSeconds;
+    }
+
+    /**
+     * Copies the counters; the cost depends only on the number of statuses, priorities
+     * and histogram days
+     */
+    public synchronized BugStats getStats() {
+        LocalDate today = LocalDate.now();
+        return BugStats.of(counts, perDay, firstDay(today), today, changeSeq, reconciledAt);
+    }
+
+    /**
+     * Current count of one status and priority pair, without copying the rest
+     */
+    public synchronized long count(Bug.Status status, Bug.Priority priority) {
+        return counts[status.ordinal()][priority.ordinal()];
+    }
+
+    /**
+     * Runs after the writing transaction commits, or immediately when there is none.
+     * Deltas commute, so events applied out of commit order still add up.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onChange(BugChangeEvent event) {
+        apply(event);
+        if (appliedDuringReconcile != null) {
+            appliedDuringReconcile.add(event);
+        }
+    }
+
+    private void apply(BugChangeEvent event) {
+        Bug bug = event.getBug();
+        switch (event.getType()) {
+            case CREATED -> {
+                add(bug.getStatus(), bug.getPriority(), 1);
+                addDay(bug.getCreatedAt(), 1);
+            }
+            case DELETED -> {
+                add(bug.getStatus(), bug.getPriority(), -1);
+                addDay(bug.getCreatedAt(), -1);
+            }
+            case STATUS_CHANGED -> {
+                // The priority may change in the same write; its own event follows
+                Bug.Priority priority = event.getPreviousPriority() != null
+                        ? event.getPreviousPriority() : bug.getPriority();
+                add(event.getPreviousStatus(), priority, -1);
+                add(bug.getStatus(), priority, 1);
+            }
+            case PRIORITY_CHANGED -> {
+                add(bug.getStatus(), event.getPreviousPriority(), -1);
+                add(bug.getStatus(), bug.getPriority(), 1);
+            }
+            default -> {
+                // Other fields don't affect the counts
+            }
+        }
+        changeSeq = Math.max(changeSeq, event.getChangeSeq());
+    }
+
+    private void add(Bug.Status status, Bug.Priority priority, long delta) {
+        counts[status.ordinal()][priority.ordinal()] += delta;
+    }
+
+    private void addDay(LocalDateTime createdAt, long delta) {
+        LocalDate day = createdAt.toLocalDate();
+        if (!day.isBefore(firstDay(LocalDate.now()))) {
+            perDay.merge(day, delta, Long::sum);
+        }
+    }
+
+    private LocalDate firstDay(LocalDate today) {
+        return today.minusDays(histogramDays - 1L);
+    }
+
+    /**
+     * Replaces the counters with a count of the table. Events that commit while the
+     * count runs are replayed on top when the snapshot can't have seen them. An event
+     * whose sequence value is below the snapshot's but that committed after it is
+     * lost until the next pass. Passes never overlap.
+     */
+    void reconcile() {
+        synchronized (reconcileLock) {
+            synchronized (this) {
+                appliedDuringReconcile = new ArrayList<>();
+            }
+            LocalDate today = LocalDate.now();
+            BugStats fresh;
+            try {
+                fresh = bugService.countBugs(firstDay(today), today);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    appliedDuringReconcile = null;
+                }
+                logger.warn("Bug stats reconciliation failed; keeping the incremental counts", e);
+                return;
+            }
+            synchronized (this) {
+                long drift = 0;
+                for (Bug.Status status : Bug.Status.values()) {
+                    for (Bug.Priority priority : Bug.Priority.values()) {
+                        long count = fresh.getByStatusAndPriority().get(status).get(priority);
+                        drift += Math.abs(counts[status.ordinal()][priority.ordinal()] - count);
+                        counts[status.ordinal()][priority.ordinal()] = count;
+                    }
+                }
+                perDay.clear();
+                perDay.putAll(fresh.getCreatedPerDay());
+                changeSeq = fresh.getChangeSeq();
+                for (BugChangeEvent event : appliedDuringReconcile) {
+                    if (event.getChangeSeq() > fresh.getChangeSeq()) {
+                        apply(event);
+                    }
+                }
+                appliedDuringReconcile = null;
+                boolean firstPass = reconciledAt == null;
+                reconciledAt = fresh.getReconciledAt();
+                if (drift > 0 && !firstPass) {
+                    logger.info("Bug stats reconciliation corrected a drift of {} bugs", drift);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bug-stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The first pass loads the counters at startup
+        reconciler.scheduleWithFixedDelay(this::reconcile, 0, reconcileSeconds, TimeUnit.SECONDS);
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        reconciler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
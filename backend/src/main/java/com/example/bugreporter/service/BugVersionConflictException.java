@@ -0,0 +1,19 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+
+/**
+ * An update named a version of the bug that has since been superseded; carries the
+ * bug as it is now so the client can reapply its change
+ */
+public class BugVersionConflictException extends RuntimeException {
+
+    private final Bug current;
+
+    public BugVersionConflictException(Bug current) {
+        super("Bug " + current.getId() + " is at version " + current.getVersion());
+        this.current = current;
+    }
+
+    public Bug getCurrent() { return current; }
+}
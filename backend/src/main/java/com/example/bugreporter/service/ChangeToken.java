@@ -0,0 +1,60 @@
+package com.example.bugreporter.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque delta sync position: the last change sequence a client has seen, plus the
+ * last bug id within it, because a batch create stamps all its bugs with one sequence value.
+ */
+public final class ChangeToken {
+
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Position before every change, used when a client syncs for the first time
+     */
+    public static final ChangeToken INITIAL = new ChangeToken(-1, Long.MAX_VALUE);
+
+    private final long changeSeq;
+    private final long bugId;
+
+    public ChangeToken(long changeSeq, long bugId) {
+        this.changeSeq = changeSeq;
+        this.bugId = bugId;
+    }
+
+    /**
+     * Position after a tombstone; no bug shares a tombstone's sequence value
+     */
+    public static ChangeToken afterTombstone(long changeSeq) {
+        return new ChangeToken(changeSeq, Long.MAX_VALUE);
+    }
+
+    public long getChangeSeq() { return changeSeq; }
+
+    public long getBugId() { return bugId; }
+
+    public String encode() {
+        String raw = changeSeq + SEPARATOR + bugId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static ChangeToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split < 0) {
+                throw new IllegalArgumentException("Malformed change token");
+            }
+            return new ChangeToken(Long.parseLong(raw.substring(0, split)),
+                    Long.parseLong(raw.substring(split + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid change token: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bugreporter.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulkhead in front of the connection pool. At most {@code permits} connections are
+ * checked out at once; everyone else waits here, first come first served, for at most
+ * the timeout. Sized to the Hikari pool, so the pool itself never has a queue and every
+ * wait for a connection shows up in {@link #getStats()}. With virtual threads the
+ * number of requests reaching the database layer at the same moment is no longer
+ * capped by the web server's thread pool, which makes this the only such limit.
+ */
+@Component
+public class ConnectionGate {
+
+    // Wait histogram: bucket i counts waits below 2^i microseconds
+    private static final int BUCKETS = 40;
+
+    private final Semaphore semaphore;
+    private final int permits;
+    private final long timeoutMillis;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder[] waitHistogram = new LongAdder[BUCKETS];
+
+    public ConnectionGate(@Value("${bugreporter.db-gate.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                          @Value("${bugreporter.db-gate.timeout-ms:10000}") long timeoutMillis) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("bugreporter.db-gate.permits must be at least 1");
+        }
+        this.semaphore = new Semaphore(permits, true);
+        this.permits = permits;
+        this.timeoutMillis = timeoutMillis;
+        for (int i = 0; i < BUCKETS; i++) {
+            waitHistogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Takes a permit, waiting behind earlier callers if all are in use. Every successful
+     * call must be paired with one {@link #release()}.
+     * @throws SQLTransientConnectionException if no permit frees up within the timeout
+     */
+    public void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean granted;
+        try {
+            // The timed variant honours fairness even when a permit is free
+            granted = semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        record(System.nanoTime() - start);
+        if (!granted) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException(
+                    "No database connection became free within " + timeoutMillis + " ms");
+        }
+        acquired.increment();
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    private void record(long waitNanos) {
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        long micros = TimeUnit.NANOSECONDS.toMicros(waitNanos);
+        waitHistogram[Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1)].increment();
+    }
+
+    // Waits recorded so far, timeouts included, and their total; for the meter registry
+    long waitCount() {
+        long waits = 0;
+        for (LongAdder bucket : waitHistogram) {
+            waits += bucket.sum();
+        }
+        return waits;
+    }
+
+    long totalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    public GateStats getStats() {
+        long[] counts = new long[BUCKETS];
+        long waits = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = waitHistogram[i].sum();
+            waits += counts[i];
+        }
+        return new GateStats(permits, permits - semaphore.availablePermits(), semaphore.getQueueLength(),
+                acquired.sum(), timeouts.sum(),
+                waits > 0 ? TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.sum() / waits) : 0,
+                percentileMicros(counts, waits, 0.99),
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+    }
+
+    // Upper bound of the bucket holding the percentile, so within a factor of two
+    private static long percentileMicros(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /**
+     * Point-in-time view of the gate; waits are in microseconds and include timeouts
+     */
+    public static class GateStats {
+        private final int permits;
+        private final int inUse;
+        private final int waiting;
+        private final long acquired;
+        private final long timeouts;
+        private final long averageWaitMicros;
+        private final long p99WaitMicros;
+        private final long maxWaitMicros;
+
+        public GateStats(int permits, int inUse, int waiting, long acquired, long timeouts,
+                         long averageWaitMicros, long p99WaitMicros, long maxWaitMicros) {
+            this.permits = permits;
+            this.inUse = inUse;
+            this.waiting = waiting;
+            this.acquired = acquired;
+            this.timeouts = timeouts;
+            this.averageWaitMicros = averageWaitMicros;
+            this.p99WaitMicros = p99WaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+        }
+
+        public int getPermits() { return permits; }
+        public int getInUse() { return inUse; }
+        public int getWaiting() { return waiting; }
+        public long getAcquired() { return acquired; }
+        public long getTimeouts() { return timeouts; }
+        public long getAverageWaitMicros() { return averageWaitMicros; }
+        public long getP99WaitMicros() { return p99WaitMicros; }
+        public long getMaxWaitMicros() { return maxWaitMicros; }
+    }
+}
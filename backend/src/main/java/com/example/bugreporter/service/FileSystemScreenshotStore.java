@@ -0,0 +1,180 @@
+package com.example.bugreporter.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Default {@link ScreenshotStore}: one file per blob under {@code bugreporter.screenshots.dir},
+ * at {@code ab/cd/<hash>}, with its thumbnail beside it at {@code ab/cd/<hash>.thumbnail}. Uploads are hashed while they are copied to a temporary file,
+ * which is synced and then renamed into place, so a blob is complete whenever its path
+ * exists. Content that is already stored is discarded after hashing.
+ */
+@Component
+@ConditionalOnProperty(name = "bugreporter.screenshots.store", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemScreenshotStore implements ScreenshotStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path incoming;
+
+    public FileSystemScreenshotStore(@Value("${bugreporter.screenshots.dir:data/screenshots}") String dir) throws IOException {
+        this.root = Path.of(dir).toAbsolutePath().normalize();
+        this.incoming = root.resolve("incoming");
+        Files.createDirectories(incoming);
+    }
+
+    @Override
+    public String put(InputStream content, long maxBytes) throws IOException {
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long size = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new ScreenshotTooLargeException(maxBytes);
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
+                out.force(true);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // The same image was stored concurrently
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<Blob> find(String hash) throws IOException {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        return blobAt(pathOf(hash));
+    }
+
+    // Thumbnails can be generated again, so they are renamed into place without a sync
+    @Override
+    public void putThumbnail(String hash, byte[] thumbnail) throws IOException {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a screenshot hash: " + hash);
+        }
+        Path temp = Files.createTempFile(incoming, "thumbnail-", ".tmp");
+        try {
+            Files.write(temp, thumbnail);
+            Path target = thumbnailPathOf(hash);
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<Blob> findThumbnail(String hash) throws IOException {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        return blobAt(thumbnailPathOf(hash));
+    }
+
+    private static Optional<Blob> blobAt(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(new FileBlob(file, Files.size(file)));
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path thumbnailPathOf(String hash) {
+        return pathOf(hash).resolveSibling(hash + ".thumbnail");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class FileBlob implements Blob {
+        private final Path file;
+        private final long size;
+
+        private FileBlob(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public Optional<Path> file() {
+            return Optional.of(file);
+        }
+
+        // FileChannel.transferTo lets the kernel move the bytes when the target is a socket or file
+        @Override
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                long end = position + count;
+                while (position < end) {
+                    long sent = in.transferTo(position, end - position, target);
+                    if (sent <= 0) {
+                        throw new EOFException("Screenshot " + file.getFileName() + " ended at " + position);
+                    }
+                    position += sent;
+                }
+            }
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return Files.newInputStream(file);
+        }
+    }
+}
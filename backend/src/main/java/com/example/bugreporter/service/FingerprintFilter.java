@@ -0,0 +1,65 @@
+package com.example.bugreporter.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over bug fingerprints. {@link #mightContain} never answers false for a
+ * fingerprint that was added, so a negative answer lets a new report skip the database
+ * lookup. Thread-safe; entries can't be removed, so fingerprints of bugs that were since
+ * closed or deleted only cost an occasional lookup.
+ */
+class FingerprintFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * Sized for {@code expectedInsertions} fingerprints at the given false positive rate
+     */
+    FingerprintFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64));
+        this.bitCount = (long) bits.length() * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void put(String fingerprint) {
+        long h1 = hash(fingerprint, 0);
+        long h2 = hash(fingerprint, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // Another thread set a bit in the same word; retry
+            }
+        }
+        insertions.increment();
+    }
+
+    boolean mightContain(String fingerprint) {
+        long h1 = hash(fingerprint, 0);
+        long h2 = hash(fingerprint, 16);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getInsertions() {
+        return insertions.sum();
+    }
+
+    // The fingerprint is already a uniform hash; its hex digits are reused instead of hashing again
+    private static long hash(String fingerprint, int offset) {
+        return Long.parseUnsignedLong(fingerprint, offset, offset + 16, 16);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.bugreporter.service;
+
+/**
+ * Another request with the same Idempotency-Key is still being processed; the client
+ * should retry once it has finished
+ */
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    public IdempotencyKeyInUseException(String key) {
+        super("A request with Idempotency-Key " + key + " is still in progress");
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bugreporter.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for screenshot images. A blob's key is the SHA-256 of its
+ * bytes, so the same image uploaded for any number of bugs is stored once. Blobs are
+ * immutable once stored.
+ */
+public interface ScreenshotStore {
+
+    /**
+     * Streams {@code content} into the store without holding it in memory.
+     * @return the hex SHA-256 of the content, its key
+     * @throws ScreenshotTooLargeException if the content is longer than {@code maxBytes};
+     *         nothing is stored
+     */
+    String put(InputStream content, long maxBytes) throws IOException;
+
+    Optional<Blob> find(String hash) throws IOException;
+
+    /**
+     * Stores the thumbnail of the blob {@code hash}, replacing any earlier one. Thumbnails
+     * are small, so they are passed whole.
+     */
+    void putThumbnail(String hash, byte[] thumbnail) throws IOException;
+
+    Optional<Blob> findThumbnail(String hash) throws IOException;
+
+    /**
+     * A stored screenshot, readable in ranges
+     */
+    interface Blob {
+        long size();
+
+        /**
+         * The blob as a local file, for containers that can send files to the socket
+         * themselves; empty for stores that aren't backed by the local filesystem
+         */
+        Optional<Path> file();
+
+        /**
+         * Writes {@code count} bytes starting at {@code position} to {@code target}
+         */
+        void transferTo(long position, long count, WritableByteChannel target) throws IOException;
+
+        InputStream openStream() throws IOException;
+    }
+}
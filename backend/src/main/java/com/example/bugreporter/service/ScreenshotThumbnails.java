@@ -0,0 +1,304 @@
+package com.example.bugreporter.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates thumbnails of uploaded screenshots on a small fixed pool of worker threads,
+ * fed from a bounded queue. Work is keyed by screenshot hash: a screenshot already queued
+ * or being processed is not queued again, and one that already has a thumbnail is
+ * skipped, so duplicates of a report share one thumbnail. Submitting never blocks; when
+ * the queue is full the screenshot is left without a thumbnail until it is requested.
+ */
+@Component
+public class ScreenshotThumbnails implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenshotThumbnails.class);
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final ScreenshotStore store;
+    private final int threads;
+    private final int capacity;
+    private final int maxSize;
+    private final long maxPixels;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder generatedNanos = new LongAdder();
+
+    private volatile boolean running;
+    private volatile ThreadPoolExecutor workers;
+
+    @Autowired
+    public ScreenshotThumbnails(ScreenshotStore store,
+                                @Value("${bugreporter.thumbnails.threads:2}") int threads,
+                                @Value("${bugreporter.thumbnails.queue-capacity:1000}") int capacity,
+                                @Value("${bugreporter.thumbnails.max-size:320}") int maxSize,
+                                @Value("${bugreporter.thumbnails.max-pixels:50000000}") long maxPixels) {
+        this.store = store;
+        this.threads = threads;
+        this.capacity = capacity;
+        this.maxSize = maxSize;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * @return whether thumbnails can be made from screenshots of this media type
+     */
+    public static boolean supports(String contentType) {
+        return contentType != null && ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+
+    /**
+     * Queues a thumbnail of the screenshot {@code hash} without blocking.
+     * @return false if the queue is full or shutting down
+     */
+    public boolean submit(String hash) {
+        if (!pending.add(hash)) {
+            deduplicated.increment();
+            return true;
+        }
+        ThreadPoolExecutor pool = workers;
+        try {
+            if (!running || pool == null) {
+                throw new RejectedExecutionException("Thumbnail workers are stopped");
+            }
+            pool.execute(() -> process(hash));
+        } catch (RejectedExecutionException e) {
+            pending.remove(hash);
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+        return true;
+    }
+
+    private void process(String hash) {
+        try {
+            if (store.findThumbnail(hash).isPresent()) {
+                return;
+            }
+            Optional<ScreenshotStore.Blob> blob = store.find(hash);
+            if (blob.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            byte[] thumbnail = render(blob.get(), maxSize, maxPixels);
+            store.putThumbnail(hash, thumbnail);
+            generatedNanos.add(System.nanoTime() - start);
+            generated.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            logger.warn("Could not generate a thumbnail for screenshot {}", hash, e);
+        } finally {
+            pending.remove(hash);
+        }
+    }
+
+    /**
+     * Scales the image down to fit {@code maxSize} on its longer side, never up, and
+     * encodes it as JPEG. Large images are subsampled while they are decoded, so the
+     * full-resolution raster is never held in memory.
+     * @throws IOException if the image can't be decoded or has more than {@code maxPixels} pixels
+     */
+    static byte[] render(ScreenshotStore.Blob blob, int maxSize, long maxPixels) throws IOException {
+        Optional<Path> file = blob.file();
+        try (InputStream stream = file.isPresent() ? null : blob.openStream();
+             ImageInputStream input = ImageIO.createImageInputStream(file.isPresent() ? file.get().toFile() : stream)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("No image reader for this screenshot");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Screenshot is " + width + "x" + height + ", over " + maxPixels + " pixels");
+                }
+                // Decode at no more than twice the thumbnail size; the final scaling smooths it
+                int step = Math.max(1, Math.max(width, height) / (2 * maxSize));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return encode(scale(reader.read(0, param), maxSize));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxSize) {
+        double factor = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        // JPEG has no alpha; transparent areas become white
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(CONTENT_TYPE).next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(capacity), runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-thumbnailer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        running = true;
+    }
+
+    /**
+     * Drops queued work; thumbnails that are missing are queued again when requested
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        int dropped = workers.shutdownNow().size();
+        if (dropped > 0) {
+            logger.info("Thumbnail workers stopped with {} screenshot(s) still queued", dropped);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Screenshots queued or being processed
+    int pending() {
+        return pending.size();
+    }
+
+    // Thumbnails generated so far and the time spent on them; for the meter registry
+    long generatedCount() {
+        return generated.sum();
+    }
+
+    long generatedNanos() {
+        return generatedNanos.sum();
+    }
+
+    public ThumbnailStats getStats() {
+        ThreadPoolExecutor pool = workers;
+        long count = generated.sum();
+        return new ThumbnailStats(
+                pool == null ? 0 : pool.getQueue().size(),
+                pool == null ? 0 : pool.getActiveCount(),
+                capacity,
+                accepted.sum(),
+                deduplicated.sum(),
+                rejected.sum(),
+                count,
+                failed.sum(),
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(generatedNanos.sum() / count));
+    }
+
+    /**
+     * Point-in-time view of the thumbnail workers
+     */
+    public static class ThumbnailStats {
+        private final int queued;
+        private final int active;
+        private final int capacity;
+        private final long accepted;
+        private final long deduplicated;
+        private final long rejected;
+        private final long generated;
+        private final long failed;
+        private final long averageGenerationMillis;
+
+        public ThumbnailStats(int queued, int active, int capacity, long accepted, long deduplicated,
+                              long rejected, long generated, long failed, long averageGenerationMillis) {
+            this.queued = queued;
+            this.active = active;
+            this.capacity = capacity;
+            this.accepted = accepted;
+            this.deduplicated = deduplicated;
+            this.rejected = rejected;
+            this.generated = generated;
+            this.failed = failed;
+            this.averageGenerationMillis = averageGenerationMillis;
+        }
+
+        public int getQueued() { return queued; }
+        public int getActive() { return active; }
+        public int getCapacity() { return capacity; }
+        public long getAccepted() { return accepted; }
+        public long getDeduplicated() { return deduplicated; }
+        public long getRejected() { return rejected; }
+        public long getGenerated() { return generated; }
+        public long getFailed() { return failed; }
+        public long getAverageGenerationMillis() { return averageGenerationMillis; }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.bugreporter.service;
+
+import java.io.IOException;
+
+/**
+ * An upload went over the screenshot size limit
+ */
+public class ScreenshotTooLargeException extends IOException {
+
+    public ScreenshotTooLargeException(long maxBytes) {
+        super("Screenshot is larger than " + maxBytes + " bytes");
+    }
+}
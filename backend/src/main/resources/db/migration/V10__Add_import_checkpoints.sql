@@ -0,0 +1,15 @@
+-- Progress of bulk imports, written in the same transaction as each loaded batch
+CREATE TABLE bug_import_checkpoints (
+    import_id VARCHAR(255) PRIMARY KEY,
+    line_number BIGINT NOT NULL,
+    imported BIGINT NOT NULL,
+    rejected BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+COMMENT ON TABLE bug_import_checkpoints IS 'Resume points of bulk imports';
+COMMENT ON COLUMN bug_import_checkpoints.import_id IS 'Name of the import, by default the source file name';
+COMMENT ON COLUMN bug_import_checkpoints.line_number IS 'Last source line whose outcome is committed';
+COMMENT ON COLUMN bug_import_checkpoints.imported IS 'Bugs loaded so far';
+COMMENT ON COLUMN bug_import_checkpoints.rejected IS 'Records rejected by validation so far';
+COMMENT ON COLUMN bug_import_checkpoints.updated_at IS 'Time of the last committed batch';
@@ -0,0 +1,8 @@
+-- Duplicate detection: reports with the same normalized content are folded into
+-- the oldest open bug with that fingerprint instead of being inserted again
+ALTER TABLE bugs ADD COLUMN fingerprint VARCHAR(64);
+ALTER TABLE bugs ADD COLUMN occurrences BIGINT NOT NULL DEFAULT 1;
+CREATE INDEX idx_bugs_fingerprint ON bugs(fingerprint);
+
+COMMENT ON COLUMN bugs.fingerprint IS 'SHA-256 of the normalized title, description and selected metadata';
+COMMENT ON COLUMN bugs.occurrences IS 'Reports folded into this bug, the original one included';
@@ -0,0 +1,7 @@
+-- Uploaded screenshots live in the screenshot store, keyed by content hash, so
+-- identical images attached to many bugs are stored once
+ALTER TABLE bugs ADD COLUMN screenshot_hash VARCHAR(64);
+ALTER TABLE bugs ADD COLUMN screenshot_content_type VARCHAR(100);
+
+COMMENT ON COLUMN bugs.screenshot_hash IS 'SHA-256 of the uploaded screenshot, its key in the screenshot store';
+COMMENT ON COLUMN bugs.screenshot_content_type IS 'Media type detected from the uploaded screenshot';
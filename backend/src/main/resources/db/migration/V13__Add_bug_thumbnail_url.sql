@@ -0,0 +1,4 @@
+-- Thumbnails are generated from uploaded screenshots and stored next to them
+ALTER TABLE bugs ADD COLUMN thumbnail_url VARCHAR(255);
+
+COMMENT ON COLUMN bugs.thumbnail_url IS 'URL of the downscaled screenshot shown in bug lists';
@@ -0,0 +1,16 @@
+-- Idempotency-Key header values of bug creates, so a retried request returns the
+-- bug its first attempt created instead of inserting another
+CREATE TABLE bug_idempotency_keys (
+    idempotency_key VARCHAR(300) PRIMARY KEY,
+    bug_id BIGINT,
+    created_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX idx_bug_idempotency_keys_created_at ON bug_idempotency_keys(created_at);
+
+COMMENT ON TABLE bug_idempotency_keys IS 'Idempotency keys of bug creates, kept for a limited time';
+COMMENT ON COLUMN bug_idempotency_keys.idempotency_key IS 'Key sent by the client; batch keys and their items are prefixed with batch/';
+COMMENT ON COLUMN bug_idempotency_keys.bug_id IS 'Bug created for the key; null for a whole batch and while the request is in progress';
+COMMENT ON COLUMN bug_idempotency_keys.created_at IS 'When the key was claimed, or last taken over from an abandoned request';
+COMMENT ON COLUMN bug_idempotency_keys.completed_at IS 'When the request finished; null while it is in progress';
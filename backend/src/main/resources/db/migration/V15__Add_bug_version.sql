@@ -0,0 +1,4 @@
+-- Optimistic locking: a client updates a bug only as of the version it last read
+ALTER TABLE bugs ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN bugs.version IS 'Raised by every write except folded occurrences; a stale version in an update gets 409';
@@ -0,0 +1,9 @@
+-- Track when each bug was last modified; drives ETags for conditional reads
+ALTER TABLE bugs ADD COLUMN updated_at TIMESTAMP;
+UPDATE bugs SET updated_at = created_at;
+ALTER TABLE bugs ALTER COLUMN updated_at SET NOT NULL;
+
+-- Lets MAX(updated_at) for the list ETag be answered from the index
+CREATE INDEX idx_bugs_updated_at ON bugs(updated_at);
+
+COMMENT ON COLUMN bugs.updated_at IS 'Timestamp of the last modification to the bug or its metadata';
@@ -0,0 +1,22 @@
+-- Global, monotonic change sequence for delta sync (GET /api/bugs/changes).
+-- Existing rows share change 1, so a client's first sync still returns them.
+CREATE SEQUENCE bug_change_seq START WITH 2 INCREMENT BY 1;
+
+ALTER TABLE bugs ADD COLUMN change_seq BIGINT;
+UPDATE bugs SET change_seq = 1;
+ALTER TABLE bugs ALTER COLUMN change_seq SET NOT NULL;
+
+CREATE INDEX idx_bugs_change_seq ON bugs(change_seq);
+
+-- Deleted bugs; change_seq is drawn from the same sequence
+CREATE TABLE bug_tombstones (
+    change_seq BIGINT PRIMARY KEY,
+    bug_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
+
+COMMENT ON COLUMN bugs.change_seq IS 'Value of bug_change_seq at the last write to the bug or its metadata';
+COMMENT ON TABLE bug_tombstones IS 'Deleted bugs, reported to delta sync clients';
+COMMENT ON COLUMN bug_tombstones.change_seq IS 'Value of bug_change_seq at deletion';
+COMMENT ON COLUMN bug_tombstones.bug_id IS 'Id of the deleted bug';
+COMMENT ON COLUMN bug_tombstones.deleted_at IS 'Timestamp of the deletion';
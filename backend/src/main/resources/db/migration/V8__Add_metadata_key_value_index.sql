@@ -0,0 +1,6 @@
+-- Serves metadata filters (GET /api/bugs?meta.<key>=<value>). Each filter is an EXISTS
+-- probe on (key, value); bug_id completes the key so the probe never reads the table.
+CREATE INDEX idx_bug_metadata_key_value ON bug_metadata(metadata_key, metadata_value, bug_id);
+
+-- The new index starts with metadata_key, so the single-column one is redundant
+DROP INDEX idx_bug_metadata_key;
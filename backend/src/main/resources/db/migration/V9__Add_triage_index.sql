@@ -0,0 +1,4 @@
+-- Serves the triage view (GET /api/bugs?status=...&priority=...), newest first.
+-- With one status and one priority the index returns rows already in page order;
+-- id completes the keyset so later pages seek instead of skipping.
+CREATE INDEX idx_bugs_status_priority_created_at ON bugs(status, priority, created_at, id);
@@ -1,28 +1,81 @@
 package com.example.bugreporter;
 
+import com.example.bugreporter.config.WebConfig;
+import com.example.bugreporter.service.BugBulkUpdateResult;
+import com.example.bugreporter.service.BugCache;
+import com.example.bugreporter.service.BugChanges;
+import com.example.bugreporter.service.BugCursor;
+import com.example.bugreporter.service.BugDeduplicator;
+import com.example.bugreporter.service.BugEventStream;
+import com.example.bugreporter.service.BugExportFormat;
+import com.example.bugreporter.service.BugExporter;
+import com.example.bugreporter.service.BugFilter;
+import com.example.bugreporter.service.BugIdempotency;
+import com.example.bugreporter.service.BugIngestQueue;
+import com.example.bugreporter.service.BugListVersion;
+import com.example.bugreporter.service.BugPage;
+import com.example.bugreporter.service.BugScreenshots;
+import com.example.bugreporter.service.BugSearchPage;
+import com.example.bugreporter.service.BugSort;
 import com.example.bugreporter.service.BugService;
+import com.example.bugreporter.service.BugStats;
+import com.example.bugreporter.service.BugStatsCounters;
+import com.example.bugreporter.service.BugVersionConflictException;
+import com.example.bugreporter.service.ChangeToken;
+import com.example.bugreporter.service.ConnectionGate;
+import com.example.bugreporter.service.IdempotencyKeyInUseException;
+import com.example.bugreporter.service.ScreenshotStore;
+import com.example.bugreporter.service.ScreenshotThumbnails;
+import com.example.bugreporter.service.ScreenshotTooLargeException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(BugController.class)
+@Import(WebConfig.class)
 public class BugControllerTest {
 
     @Autowired
@@ -31,6 +84,36 @@ public class BugControllerTest {
     @MockBean
     private BugService bugService;
 
+    @MockBean
+    private BugIngestQueue ingestQueue;
+
+    @MockBean
+    private BugCache bugCache;
+
+    @MockBean
+    private BugEventStream eventStream;
+
+    @MockBean
+    private BugStatsCounters statsCounters;
+
+    @MockBean
+    private BugExporter exporter;
+
+    @MockBean
+    private BugDeduplicator deduplicator;
+
+    @MockBean
+    private ConnectionGate connectionGate;
+
+    @MockBean
+    private BugScreenshots screenshots;
+
+    @MockBean
+    private ScreenshotThumbnails thumbnails;
+
+    @MockBean
+    private BugIdempotency idempotency;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -43,17 +126,81 @@ public class BugControllerTest {
         
         when(bugService.getAllBugs()).thenReturn(bugs);
         
-        // When & Then
-        mockMvc.perform(get("/api/bugs"))
+        // When & Then - only on request, and not combined with paging or filters
+        mockMvc.perform(get("/api/bugs").param("all", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].title", is("Bug 1")))
                 .andExpect(jsonPath("$[1].title", is("Bug 2")))
                 .andExpect(jsonPath("$[1].screenshotUrl", is("screenshot.png")));
+        mockMvc.perform(get("/api/bugs").param("all", "true").param("limit", "10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bugs").param("all", "true").param("status", "OPEN"))
+                .andExpect(status().isBadRequest());
                 
         verify(bugService, times(1)).getAllBugs();
     }
     
+    @Test
+    public void testGetBugsDefaultsToFirstPage() throws Exception {
+        // Given
+        Bug bug = new Bug("Bug 1", "Description 1", null);
+        bug.setId(60L);
+        BugCursor next = BugCursor.after(bug);
+        when(bugService.getBugsPage(argThat(BugFilter::isEmpty), eq(BugSort.DEFAULT), isNull(),
+                eq(BugService.DEFAULT_PAGE_SIZE))).thenReturn(new BugPage(List.of(bug), next));
+        
+        // When & Then - no parameters is the first page, not the whole table
+        mockMvc.perform(get("/api/bugs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(BugController.NEXT_CURSOR_HEADER, next.encode()));
+        
+        verify(bugService, never()).getAllBugs();
+    }
+    
+    @Test
+    public void testGetBugsPage() throws Exception {
+        // Given
+        Bug bug1 = new Bug("Bug 1", "Description 1", null);
+        bug1.setId(2L);
+        Bug bug2 = new Bug("Bug 2", "Description 2", null);
+        bug2.setId(1L);
+        BugCursor next = BugCursor.after(bug2);
+        
+        when(bugService.getBugsPage(argThat(BugFilter::isEmpty), eq(BugSort.DEFAULT), isNull(), eq(2))).thenReturn(new BugPage(List.of(bug1, bug2), next));
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(BugController.NEXT_CURSOR_HEADER, next.encode()));
+                
+        verify(bugService, never()).getAllBugs();
+    }
+    
+    @Test
+    public void testGetBugsPageAfterCursor() throws Exception {
+        // Given
+        BugCursor cursor = new BugCursor(LocalDateTime.of(2024, 1, 1, 12, 0), 42L);
+        
+        when(bugService.getBugsPage(any(BugFilter.class), eq(BugSort.DEFAULT), any(BugCursor.class), eq(BugService.DEFAULT_PAGE_SIZE)))
+                .thenReturn(new BugPage(List.of(), null));
+        
+        // When & Then - last page carries no cursor
+        mockMvc.perform(get("/api/bugs").param("after", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andExpect(header().doesNotExist(BugController.NEXT_CURSOR_HEADER));
+                
+        verify(bugService).getBugsPage(argThat(BugFilter::isEmpty), eq(BugSort.DEFAULT), argThat(c -> c.getId() == 42L
+                && c.getSortValue().equals(cursor.getSortValue())), eq(BugService.DEFAULT_PAGE_SIZE));
+        
+        // When & Then - garbage cursor
+        mockMvc.perform(get("/api/bugs").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+    
     @Test
     public void testGetBugById() throws Exception {
         // Given
@@ -77,6 +224,398 @@ public class BugControllerTest {
         verify(bugService, times(1)).getBugById(2L);
     }
     
+    @Test
+    public void testGetBugByIdWhenDatabaseIsSaturated() throws Exception {
+        // Given - no connection became free at the gate in time
+        when(bugService.getBugById(1L))
+                .thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+    
+    @Test
+    public void testGetDbStats() throws Exception {
+        // Given
+        when(connectionGate.getStats()).thenReturn(new ConnectionGate.GateStats(10, 10, 35, 1200, 2, 850, 4096, 9100));
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs/db/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.permits", is(10)))
+                .andExpect(jsonPath("$.waiting", is(35)))
+                .andExpect(jsonPath("$.p99WaitMicros", is(4096)));
+    }
+    
+    @Test
+    public void testGetBugByIdNotModified() throws Exception {
+        // Given
+        Bug bug = new Bug("Test Bug", "Description", null);
+        bug.setId(1L);
+        
+        when(bugService.getBugVersion(1L)).thenReturn(Optional.of(bug.getUpdatedAt()));
+        when(bugService.getBugById(1L)).thenReturn(Optional.of(bug));
+        
+        // When & Then - first read carries the validator
+        String eTag = mockMvc.perform(get("/api/bugs/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        
+        // When & Then - revalidation doesn't touch the bug
+        mockMvc.perform(get("/api/bugs/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        
+        verify(bugService, times(1)).getBugById(1L);
+        verify(bugService, times(2)).getBugVersion(1L);
+    }
+    
+    @Test
+    public void testGetAllBugsNotModified() throws Exception {
+        // Given
+        when(bugService.getListVersion()).thenReturn(new BugListVersion(30L, 0L));
+        when(bugService.getBugsPage(any(BugFilter.class), eq(BugSort.DEFAULT), isNull(), anyInt()))
+                .thenReturn(new BugPage(List.of(new Bug("Bug 1", null, null)), null));
+        
+        String eTag = mockMvc.perform(get("/api/bugs"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        
+        // When & Then - same table state, same query
+        mockMvc.perform(get("/api/bugs").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        
+        // When & Then - a different query is a different representation
+        mockMvc.perform(get("/api/bugs").param("limit", "10").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+        
+        // When & Then - a bug was written
+        when(bugService.getListVersion()).thenReturn(new BugListVersion(31L, 0L));
+        mockMvc.perform(get("/api/bugs").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+        
+        // When & Then - the latest bug was deleted, so the bugs' high-water mark went back
+        when(bugService.getListVersion()).thenReturn(new BugListVersion(29L, 31L));
+        mockMvc.perform(get("/api/bugs").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+        
+        verify(bugService, times(3)).getBugsPage(any(BugFilter.class), eq(BugSort.DEFAULT), isNull(), eq(BugService.DEFAULT_PAGE_SIZE));
+    }
+    
+    @Test
+    public void testGetBugsByMetadata() throws Exception {
+        // Given
+        Bug bug = new Bug("Crash on start", null, null);
+        bug.setId(9L);
+        bug.addMetadata("appVersion", "2.1.0");
+        bug.addMetadata("browser", "Safari");
+        when(bugService.getBugsPage(argThat(filter -> filter.getMetadata().equals(
+                Map.of("appVersion", "2.1.0", "browser", "Safari"))), eq(BugSort.DEFAULT), isNull(),
+                eq(BugService.DEFAULT_PAGE_SIZE)))
+                .thenReturn(new BugPage(List.of(bug), null));
+        
+        // When & Then - filtered lists are paginated even without limit
+        mockMvc.perform(get("/api/bugs").param("meta.appVersion", "2.1.0").param("metadata.browser", "Safari"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(9)));
+        
+        verify(bugService, never()).getAllBugs();
+    }
+    
+    @Test
+    public void testGetBugsByMetadataRejectsAmbiguousFilters() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/bugs").param("meta.browser", "Chrome").param("meta.browser", "Safari"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bugs").param("meta.", "x"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    public void testGetBugsFilteredAndSorted() throws Exception {
+        // Given
+        Bug bug = new Bug("Checkout broken", null, null);
+        bug.setId(11L);
+        bug.setStatus(Bug.Status.OPEN);
+        bug.setPriority(Bug.Priority.CRITICAL);
+        BugCursor next = BugCursor.after(bug, BugSort.UPDATED_AT_DESC);
+        when(bugService.getBugsPage(argThat(filter -> filter.getStatuses().equals(Set.of(Bug.Status.OPEN, Bug.Status.IN_PROGRESS))
+                        && filter.getPriorities().equals(Set.of(Bug.Priority.CRITICAL))
+                        && filter.getCreatedFrom().equals(LocalDateTime.of(2024, 5, 1, 0, 0))
+                        && filter.getCreatedTo() == null),
+                eq(BugSort.UPDATED_AT_DESC), isNull(), eq(BugService.DEFAULT_PAGE_SIZE)))
+                .thenReturn(new BugPage(List.of(bug), next));
+        
+        // When & Then - repeated and comma-separated values both work
+        mockMvc.perform(get("/api/bugs")
+                        .param("status", "OPEN,IN_PROGRESS")
+                        .param("priority", "CRITICAL")
+                        .param("createdFrom", "2024-05-01T00:00:00")
+                        .param("sort", "updatedAt,desc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BugController.NEXT_CURSOR_HEADER, next.encode()))
+                .andExpect(jsonPath("$[0].id", is(11)));
+        
+        verify(bugService, never()).getAllBugs();
+    }
+    
+    @Test
+    public void testGetBugsRejectsInvalidFilterAndSort() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/bugs").param("status", "DONE"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bugs").param("sort", "title,asc"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bugs").param("sort", "createdAt,sideways"))
+                .andExpect(status().isBadRequest());
+        
+        // When & Then - a cursor only continues the order it was issued for
+        when(bugService.getBugsPage(any(BugFilter.class), eq(BugSort.CREATED_AT_ASC), any(BugCursor.class), anyInt()))
+                .thenThrow(new IllegalArgumentException("Cursor was issued for sort CREATED_AT_DESC"));
+        mockMvc.perform(get("/api/bugs").param("sort", "createdAt,asc")
+                        .param("after", new BugCursor(LocalDateTime.of(2024, 1, 1, 0, 0), 1L).encode()))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    public void testSearchBugs() throws Exception {
+        // Given
+        Bug match = new Bug("Login button broken", "Crashes on click", null);
+        match.setId(7L);
+        when(bugService.searchBugs("login crash", 20, 10)).thenReturn(new BugSearchPage(List.of(match), 30));
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs/search").param("q", " login crash ").param("limit", "10").param("offset", "20"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BugController.NEXT_OFFSET_HEADER, "30"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(7)));
+    }
+    
+    @Test
+    public void testSearchBugsRejectsBlankQueryAndDeepOffset() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/bugs/search").param("q", "  "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/bugs/search").param("q", "login").param("offset", "10001"))
+                .andExpect(status().isBadRequest());
+        
+        verify(bugService, never()).searchBugs(any(), anyInt(), anyInt());
+    }
+    
+    @Test
+    public void testGetChanges() throws Exception {
+        // Given
+        Bug updated = new Bug("Updated", null, null);
+        updated.setId(3L);
+        ChangeToken since = new ChangeToken(10L, 2L);
+        String next = ChangeToken.afterTombstone(12L).encode();
+        when(bugService.getChanges(argThat(token -> token.getChangeSeq() == 10L && token.getBugId() == 2L), eq(50)))
+                .thenReturn(new BugChanges(List.of(updated), List.of(7L), next, false));
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs/changes").param("since", since.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", hasSize(1)))
+                .andExpect(jsonPath("$.changed[0].id", is(3)))
+                .andExpect(jsonPath("$.deleted[0]", is(7)))
+                .andExpect(jsonPath("$.nextToken", is(next)))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+    
+    @Test
+    public void testGetChangesInitialAndInvalidToken() throws Exception {
+        // Given
+        when(bugService.getChanges(argThat(token -> token.getChangeSeq() == -1L), eq(100)))
+                .thenReturn(new BugChanges(List.of(), List.of(), ChangeToken.INITIAL.encode(), false));
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs/changes").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", hasSize(0)));
+        mockMvc.perform(get("/api/bugs/changes").param("since", "not-a-token"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    public void testStreamChanges() throws Exception {
+        // Given
+        when(eventStream.subscribe()).thenReturn(Optional.of(new SseEmitter()));
+        
+        // When & Then - the response stays open for events
+        mockMvc.perform(get("/api/bugs/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+    
+    @Test
+    public void testStreamChangesAtSubscriberLimit() throws Exception {
+        // Given
+        when(eventStream.subscribe()).thenReturn(Optional.empty());
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+    
+    @Test
+    public void testGetStats() throws Exception {
+        // Given
+        LocalDate today = LocalDate.of(2024, 5, 2);
+        TreeMap<LocalDate, Long> perDay = new TreeMap<>(Map.of(today.minusDays(1), 3L, today, 1L));
+        BugStats stats = new BugStats(4,
+                Map.of(Bug.Status.OPEN, Map.of(Bug.Priority.HIGH, 3L), Bug.Status.CLOSED, Map.of(Bug.Priority.LOW, 1L)),
+                perDay, 42, LocalDateTime.of(2024, 5, 2, 12, 0));
+        when(statsCounters.getStats()).thenReturn(stats);
+        
+        // When & Then - answered from the counters, never from the service
+        mockMvc.perform(get("/api/bugs/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(4)))
+                .andExpect(jsonPath("$.byStatusAndPriority.OPEN.HIGH", is(3)))
+                .andExpect(jsonPath("$.createdPerDay['2024-05-01']", is(3)))
+                .andExpect(jsonPath("$.createdPerDay['2024-05-02']", is(1)));
+        verifyNoInteractions(bugService);
+    }
+    
+    @Test
+    public void testBulkUpdateBugs() throws Exception {
+        // Given
+        when(bugService.bulkUpdate(any(BugFilter.class), eq(Bug.Status.CLOSED), isNull()))
+                .thenReturn(new BugBulkUpdateResult(3, 2));
+        
+        // When & Then - by ids
+        mockMvc.perform(patch("/api/bugs/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1,2,3],\"status\":\"CLOSED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched", is(3)))
+                .andExpect(jsonPath("$.updated", is(2)));
+        verify(bugService).bulkUpdate(argThat(filter -> filter.getIds().equals(Set.of(1L, 2L, 3L))),
+                eq(Bug.Status.CLOSED), isNull());
+        
+        // When & Then - by filter
+        mockMvc.perform(patch("/api/bugs/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"filter\":{\"status\":[\"OPEN\"],\"metadata\":{\"release\":\"1.4\"}},"
+                        + "\"status\":\"CLOSED\"}"))
+                .andExpect(status().isOk());
+        verify(bugService).bulkUpdate(argThat(filter -> filter.getIds().isEmpty()
+                        && filter.getStatuses().equals(Set.of(Bug.Status.OPEN))
+                        && filter.getMetadata().equals(Map.of("release", "1.4"))),
+                eq(Bug.Status.CLOSED), isNull());
+    }
+    
+    @Test
+    public void testPatchBugMetadata() throws Exception {
+        // Given
+        Bug bug = new Bug("Test Bug", "Description", null);
+        bug.setId(1L);
+        bug.addMetadata("team", "payments");
+        Map<String, String> changes = new HashMap<>();
+        changes.put("team", "payments");
+        changes.put("triage", null);
+        when(bugService.updateBugMetadata(1L, changes)).thenReturn(Optional.of(bug));
+        when(bugService.updateBugMetadata(eq(2L), anyMap())).thenReturn(Optional.empty());
+        when(bugService.updateBugMetadata(eq(3L), anyMap())).thenThrow(new IllegalArgumentException("too long"));
+        
+        // When & Then - null removes a key
+        mockMvc.perform(patch("/api/bugs/1/metadata")
+                .contentType("application/merge-patch+json")
+                .content("{\"team\":\"payments\",\"triage\":null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.metadata.team", is("payments")));
+        mockMvc.perform(patch("/api/bugs/2/metadata")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"team\":\"payments\"}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/api/bugs/3/metadata")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"team\":\"payments\"}"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    public void testPatchBugMetadataPreflight() throws Exception {
+        // When & Then - a merge patch from the frontend origin is preflighted for both method and content type
+        mockMvc.perform(options("/api/bugs/1/metadata")
+                .header("Origin", "http://localhost:3000")
+                .header("Access-Control-Request-Method", "PATCH")
+                .header("Access-Control-Request-Headers", "Content-Type"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Access-Control-Allow-Methods", containsString("PATCH")));
+        verifyNoInteractions(bugService);
+    }
+    
+    @Test
+    public void testBulkUpdateBugsRejectsAmbiguousSelection() throws Exception {
+        // When & Then - both ids and a filter, then neither
+        mockMvc.perform(patch("/api/bugs/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1],\"filter\":{\"status\":[\"OPEN\"]},\"status\":\"CLOSED\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/bugs/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"CLOSED\"}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(bugService);
+    }
+    
+    @Test
+    public void testBulkUpdateBugsPreflight() throws Exception {
+        // When & Then - the browser asks before sending a cross-origin PATCH
+        mockMvc.perform(options("/api/bugs/bulk")
+                .header("Origin", "http://localhost:3000")
+                .header("Access-Control-Request-Method", "PATCH"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Access-Control-Allow-Methods", containsString("PATCH")));
+        verifyNoInteractions(bugService);
+    }
+    
+    @Test
+    public void testExportBugs() throws Exception {
+        // Given
+        when(exporter.export(any(BugFilter.class), eq(BugExportFormat.CSV), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(2);
+                    out.write("id,title\r\n1,Crash\r\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+        
+        // When - the body is written after the handler returns
+        MvcResult result = mockMvc.perform(get("/api/bugs/export")
+                        .param("format", "csv")
+                        .param("status", "OPEN")
+                        .param("updatedFrom", "2024-01-01T00:00:00")
+                        .param("meta.team", "payments"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", containsString("bugs.csv")))
+                .andExpect(content().string("id,title\r\n1,Crash\r\n"));
+        verify(exporter).export(argThat(filter -> filter.getStatuses().equals(Set.of(Bug.Status.OPEN))
+                        && filter.getUpdatedFrom().equals(LocalDateTime.of(2024, 1, 1, 0, 0))
+                        && filter.getMetadata().equals(Map.of("team", "payments"))),
+                eq(BugExportFormat.CSV), any(OutputStream.class));
+    }
+    
+    @Test
+    public void testExportBugsRejectsUnknownFormat() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/bugs/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(exporter);
+    }
+    
     @Test
     public void testCreateBug() throws Exception {
         // Given
@@ -88,7 +627,7 @@ public class BugControllerTest {
         Bug savedBug = new Bug("New Bug", "New Description", "new-screenshot.png");
         savedBug.setId(1L);
         
-        when(bugService.createBug(any(Bug.class))).thenReturn(savedBug);
+        when(deduplicator.report(any(Bug.class))).thenReturn(savedBug);
         
         // When & Then
         mockMvc.perform(post("/api/bugs")
@@ -98,7 +637,141 @@ public class BugControllerTest {
                 .andExpect(jsonPath("$.title", is("New Bug")))
                 .andExpect(jsonPath("$.id", is(1)));
                 
-        verify(bugService, times(1)).createBug(any(Bug.class));
+        verify(deduplicator, times(1)).report(any(Bug.class));
+    }
+    
+    @Test
+    public void testCreateBugsBatch() throws Exception {
+        // Given - the middle item has no title
+        BugController.CreateBugRequest first = new BugController.CreateBugRequest();
+        first.setTitle("First");
+        BugController.CreateBugRequest invalid = new BugController.CreateBugRequest();
+        invalid.setDescription("No title");
+        BugController.CreateBugRequest third = new BugController.CreateBugRequest();
+        third.setTitle("Third");
+        third.setPriority(Bug.Priority.HIGH);
+        
+        when(bugService.createBugs(anyList())).thenAnswer(invocation -> {
+            List<Bug> bugs = invocation.getArgument(0);
+            for (int i = 0; i < bugs.size(); i++) {
+                bugs.get(i).setId(100L + i);
+            }
+            return bugs;
+        });
+        
+        // When & Then
+        mockMvc.perform(post("/api/bugs/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(first, invalid, third))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].id", is(100)))
+                .andExpect(jsonPath("$[0].created", is(true)))
+                .andExpect(jsonPath("$[1].created", is(false)))
+                .andExpect(jsonPath("$[1].error", is("title is required")))
+                .andExpect(jsonPath("$[2].index", is(2)))
+                .andExpect(jsonPath("$[2].id", is(101)));
+        
+        verify(bugService).createBugs(argThat(bugs -> bugs.size() == 2
+                && bugs.get(1).getPriority() == Bug.Priority.HIGH));
+    }
+    
+    @Test
+    public void testCreateBugWithIdempotencyKey() throws Exception {
+        // Given
+        Bug bug = new Bug("Retried Bug", null, null);
+        bug.setId(7L);
+        when(deduplicator.report(any(Bug.class))).thenReturn(bug);
+        when(idempotency.create(eq("retry-1"), any())).thenAnswer(invocation ->
+                Optional.of(invocation.<Supplier<Bug>>getArgument(1).get()));
+        when(idempotency.create(eq("deleted-since"), any())).thenReturn(Optional.empty());
+        when(idempotency.create(eq("in-progress"), any())).thenThrow(new IdempotencyKeyInUseException("in-progress"));
+        when(idempotency.create(eq("not a key"), any())).thenThrow(new IllegalArgumentException("malformed"));
+        String body = "{\"title\":\"Retried Bug\"}";
+        
+        // When & Then - First attempt goes through duplicate folding
+        mockMvc.perform(post("/api/bugs").header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7));
+        verify(deduplicator).report(argThat(report -> report.getTitle().equals("Retried Bug")));
+        
+        // When & Then - Original deleted, another attempt running, malformed key
+        mockMvc.perform(post("/api/bugs").header("Idempotency-Key", "deleted-since")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isGone());
+        mockMvc.perform(post("/api/bugs").header("Idempotency-Key", "in-progress")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict())
+                .andExpect(header().string("Retry-After", "1"));
+        mockMvc.perform(post("/api/bugs").header("Idempotency-Key", "not a key")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        
+        // When & Then - Without a key nothing is recorded
+        mockMvc.perform(post("/api/bugs").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        verify(idempotency, times(4)).create(anyString(), any());
+        verify(deduplicator, times(2)).report(any(Bug.class));
+    }
+    
+    @Test
+    public void testCreateBugsBatchWithIdempotencyKey() throws Exception {
+        // Given - a retry: the ids come from the first attempt
+        BugController.CreateBugRequest first = new BugController.CreateBugRequest();
+        first.setTitle("First");
+        BugController.CreateBugRequest invalid = new BugController.CreateBugRequest();
+        BugController.CreateBugRequest third = new BugController.CreateBugRequest();
+        third.setTitle("Third");
+        when(idempotency.createAll(eq("batch-1"), eq(2), any())).thenReturn(List.of(40L, 41L));
+        
+        // When & Then
+        mockMvc.perform(post("/api/bugs/batch").header("Idempotency-Key", "batch-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(first, invalid, third))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(40)))
+                .andExpect(jsonPath("$[1].created", is(false)))
+                .andExpect(jsonPath("$[2].id", is(41)));
+        
+        verify(bugService, never()).createBugs(anyList());
+    }
+    
+    @Test
+    public void testCreateBugAsync() throws Exception {
+        // Given
+        BugController.CreateBugRequest request = new BugController.CreateBugRequest();
+        request.setTitle("Queued Bug");
+        
+        when(ingestQueue.offer(any(Bug.class))).thenReturn(true);
+        
+        // When & Then
+        mockMvc.perform(post("/api/bugs").param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.ingestId", notNullValue()));
+        
+        verify(ingestQueue).offer(argThat(bug -> bug.getTitle().equals("Queued Bug")
+                && bug.getMetadata().containsKey(BugController.INGEST_ID_METADATA_KEY)));
+        verify(bugService, never()).createBug(any(Bug.class));
+        verify(deduplicator, never()).report(any(Bug.class));
+    }
+    
+    @Test
+    public void testCreateBugAsyncWhenQueueFull() throws Exception {
+        // Given
+        BugController.CreateBugRequest request = new BugController.CreateBugRequest();
+        request.setTitle("Queued Bug");
+        
+        when(ingestQueue.offer(any(Bug.class))).thenReturn(false);
+        
+        // When & Then
+        mockMvc.perform(post("/api/bugs").param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"));
     }
     
     @Test
@@ -111,8 +784,8 @@ public class BugControllerTest {
         BugController.UpdateStatusRequest request = new BugController.UpdateStatusRequest();
         request.setStatus(Bug.Status.IN_PROGRESS);
         
-        when(bugService.updateBug(eq(1L), any(Bug.class))).thenReturn(Optional.of(updatedBug));
-        when(bugService.updateBug(eq(2L), any(Bug.class))).thenReturn(Optional.empty());
+        when(bugService.updateTriage(1L, Bug.Status.IN_PROGRESS, null, null)).thenReturn(Optional.of(updatedBug));
+        when(bugService.updateTriage(2L, Bug.Status.IN_PROGRESS, null, null)).thenReturn(Optional.empty());
         
         // When & Then - Existing bug
         mockMvc.perform(put("/api/bugs/1/status")
@@ -127,8 +800,32 @@ public class BugControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isNotFound());
                 
-        verify(bugService, times(1)).updateBug(eq(1L), any(Bug.class));
-        verify(bugService, times(1)).updateBug(eq(2L), any(Bug.class));
+        verify(bugService, times(1)).updateTriage(1L, Bug.Status.IN_PROGRESS, null, null);
+        verify(bugService, times(1)).updateTriage(2L, Bug.Status.IN_PROGRESS, null, null);
+        verify(bugService, never()).updateBug(any(), any());
+    }
+    
+    @Test
+    public void testUpdateBugPriorityWithStaleVersion() throws Exception {
+        // Given - another triager raised the bug to version 4 since it was read
+        Bug current = new Bug("Test Bug", "Description", null, Bug.Priority.HIGH);
+        current.setId(1L);
+        current.setVersion(4);
+        when(bugService.updateTriage(1L, null, Bug.Priority.LOW, 3L))
+                .thenThrow(new BugVersionConflictException(current));
+        when(bugService.updateTriage(1L, null, Bug.Priority.LOW, 4L)).thenReturn(Optional.of(current));
+        
+        // When & Then - the current representation comes back with the conflict
+        mockMvc.perform(put("/api/bugs/1/priority")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"priority\":\"LOW\",\"version\":3}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.version", is(4)))
+                .andExpect(jsonPath("$.priority", is("HIGH")));
+        mockMvc.perform(put("/api/bugs/1/priority")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"priority\":\"LOW\",\"version\":4}"))
+                .andExpect(status().isOk());
     }
     
     @Test
@@ -149,6 +846,181 @@ public class BugControllerTest {
         verify(bugService, times(1)).deleteBug(2L);
     }
 
+    @Test
+    public void testUploadScreenshot() throws Exception {
+        // Given
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0};
+        Bug bug = new Bug("Test Bug", "Description", "http://localhost/api/bugs/1/screenshot");
+        bug.setId(1L);
+        when(screenshots.upload(eq(1L), any(InputStream.class), eq("http://localhost/api/bugs/1/screenshot")))
+                .thenReturn(Optional.of(bug));
+        when(screenshots.upload(eq(2L), any(InputStream.class), anyString())).thenReturn(Optional.empty());
+        when(screenshots.upload(eq(3L), any(InputStream.class), anyString()))
+                .thenThrow(new ScreenshotTooLargeException(10));
+        when(screenshots.upload(eq(4L), any(InputStream.class), anyString()))
+                .thenThrow(new IllegalArgumentException("Screenshot must be a PNG, JPEG, GIF or WebP image"));
+        
+        // When & Then - Raw image body
+        mockMvc.perform(put("/api/bugs/1/screenshot")
+                .contentType(MediaType.IMAGE_PNG)
+                .content(png))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.screenshotUrl").value("http://localhost/api/bugs/1/screenshot"))
+                .andExpect(jsonPath("$.screenshotHash").doesNotExist());
+        
+        // When & Then - Multipart form
+        mockMvc.perform(multipart(HttpMethod.PUT, "/api/bugs/1/screenshot")
+                .file(new MockMultipartFile("file", "screen.png", MediaType.IMAGE_PNG_VALUE, png)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+        
+        // When & Then - Missing bug, too large, not an image, unsupported declared type
+        mockMvc.perform(put("/api/bugs/2/screenshot").contentType(MediaType.IMAGE_PNG).content(png))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/bugs/3/screenshot").contentType(MediaType.IMAGE_PNG).content(png))
+                .andExpect(status().isPayloadTooLarge());
+        mockMvc.perform(put("/api/bugs/4/screenshot").contentType(MediaType.IMAGE_PNG).content(png))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/bugs/1/screenshot").contentType(MediaType.TEXT_PLAIN).content("hello"))
+                .andExpect(status().isUnsupportedMediaType());
+        
+        verify(screenshots, times(2)).upload(eq(1L), any(InputStream.class), anyString());
+    }
+
+    @Test
+    public void testDownloadScreenshot() throws Exception {
+        // Given
+        byte[] image = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        String hash = "ab".repeat(32);
+        when(screenshots.find(1L)).thenReturn(Optional.of(
+                new BugScreenshots.Screenshot(hash, "image/png", new InMemoryBlob(image))));
+        when(screenshots.find(2L)).thenReturn(Optional.empty());
+        
+        // When & Then - Whole image
+        mockMvc.perform(get("/api/bugs/1/screenshot"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(image))
+                .andExpect(header().string("ETag", "\"" + hash + "\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"));
+        
+        // When & Then - Single range, open-ended and suffix ranges
+        mockMvc.perform(get("/api/bugs/1/screenshot").header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+        mockMvc.perform(get("/api/bugs/1/screenshot").header("Range", "bytes=7-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("789"));
+        mockMvc.perform(get("/api/bugs/1/screenshot").header("Range", "bytes=-2"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 8-9/10"));
+        
+        // When & Then - Unsatisfiable range, stale If-Range, unchanged image
+        mockMvc.perform(get("/api/bugs/1/screenshot").header("Range", "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */10"));
+        mockMvc.perform(get("/api/bugs/1/screenshot").header("Range", "bytes=2-5").header("If-Range", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(image));
+        mockMvc.perform(get("/api/bugs/1/screenshot").header("If-None-Match", "\"" + hash + "\""))
+                .andExpect(status().isNotModified());
+        
+        // When & Then - No screenshot
+        mockMvc.perform(get("/api/bugs/2/screenshot"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testDownloadThumbnail() throws Exception {
+        // Given
+        byte[] thumbnail = "thumbnail".getBytes(StandardCharsets.US_ASCII);
+        String hash = "cd".repeat(32);
+        BugScreenshots.Screenshot screenshot =
+                new BugScreenshots.Screenshot(hash, "image/png", new InMemoryBlob(new byte[100]));
+        when(screenshots.findThumbnail(1L)).thenReturn(Optional.of(
+                new BugScreenshots.Screenshot(hash, "image/jpeg", new InMemoryBlob(thumbnail))));
+        when(screenshots.findThumbnail(2L)).thenReturn(Optional.empty());
+        when(screenshots.find(2L)).thenReturn(Optional.of(screenshot));
+        when(screenshots.findThumbnail(3L)).thenReturn(Optional.empty());
+        when(screenshots.find(3L)).thenReturn(Optional.empty());
+        
+        // When & Then - Generated
+        mockMvc.perform(get("/api/bugs/1/screenshot/thumbnail"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(content().bytes(thumbnail))
+                .andExpect(header().string("ETag", "\"" + hash + "-thumbnail\""));
+        
+        // When & Then - Not generated yet: the full screenshot stands in
+        mockMvc.perform(get("/api/bugs/2/screenshot/thumbnail"))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string("Location", "http://localhost/api/bugs/2/screenshot"))
+                .andExpect(header().string("Cache-Control", "no-store"));
+        
+        // When & Then - No screenshot
+        mockMvc.perform(get("/api/bugs/3/screenshot/thumbnail"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetThumbnailStats() throws Exception {
+        // Given
+        when(thumbnails.getStats()).thenReturn(new ScreenshotThumbnails.ThumbnailStats(3, 2, 1000, 40, 460, 0, 35, 1, 42));
+        
+        // When & Then
+        mockMvc.perform(get("/api/bugs/thumbnails/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queued").value(3))
+                .andExpect(jsonPath("$.deduplicated").value(460))
+                .andExpect(jsonPath("$.averageGenerationMillis").value(42));
+    }
+
+    @Test
+    public void testGetIdempotencyStats() throws Exception {
+        // Given
+        when(idempotency.getStats()).thenReturn(new BugIdempotency.IdempotencyStats(12, 30, 7, 1));
+
+        // When & Then
+        mockMvc.perform(get("/api/bugs/idempotency/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cachedKeys").value(12))
+                .andExpect(jsonPath("$.replayed").value(7))
+                .andExpect(jsonPath("$.conflicts").value(1));
+    }
+
+    private static final class InMemoryBlob implements ScreenshotStore.Blob {
+        private final byte[] bytes;
+
+        private InMemoryBlob(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public long size() {
+            return bytes.length;
+        }
+
+        @Override
+        public Optional<Path> file() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            ByteBuffer range = ByteBuffer.wrap(bytes, (int) position, (int) count);
+            while (range.hasRemaining()) {
+                target.write(range);
+            }
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+    }
+
     @Test
     public void testCreateBugWithMetadata() throws Exception {
         // Create a bug with metadata
@@ -161,7 +1033,7 @@ public class BugControllerTest {
         bug.addMetadata("reportedBy", "test@example.com");
         bug.addMetadata("sourcePage", "/dashboard");
         
-        when(bugService.createBug(any(Bug.class))).thenReturn(bug);
+        when(deduplicator.report(any(Bug.class))).thenReturn(bug);
         
         // Create request body
         ObjectNode requestBody = objectMapper.createObjectNode();
@@ -183,8 +1055,8 @@ public class BugControllerTest {
                 .andExpect(jsonPath("$.title").value("Test Bug"))
                 .andExpect(jsonPath("$.priority").value("HIGH"));
         
-        // Verify that the service was called with the correct metadata
-        verify(bugService).createBug(argThat(createdBug -> 
+        // Verify that the report was passed on with the correct metadata
+        verify(deduplicator).report(argThat(createdBug -> 
             createdBug.getTitle().equals("Test Bug") &&
             createdBug.getMetadata().get("reportedBy").equals("test@example.com") &&
             createdBug.getMetadata().get("sourcePage").equals("/dashboard")
@@ -208,8 +1080,8 @@ public class BugControllerTest {
         updatedBug.addMetadata("initialKey", "initialValue");
         updatedBug.addMetadata("newKey", "newValue");
         
-        when(bugService.getBugById(1L)).thenReturn(Optional.of(bug));
-        when(bugService.createBug(any(Bug.class))).thenReturn(updatedBug);
+        when(bugService.updateBugMetadata(eq(1L), anyMap())).thenReturn(Optional.of(updatedBug));
+        when(bugService.updateBugMetadata(eq(2L), anyMap())).thenReturn(Optional.empty());
         
         // Create metadata update request
         ObjectNode metadata = objectMapper.createObjectNode();
@@ -219,12 +1091,20 @@ public class BugControllerTest {
         mockMvc.perform(put("/api/bugs/1/metadata")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(metadata.toString()))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.metadata.initialKey").value("initialValue"))
+                .andExpect(jsonPath("$.metadata.newKey").value("newValue"));
+        
+        mockMvc.perform(put("/api/bugs/2/metadata")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(metadata.toString()))
+                .andExpect(status().isNotFound());
         
-        // Verify that the service was called with the correct metadata
-        verify(bugService).createBug(argThat(savedBug -> 
-            savedBug.getMetadata().get("initialKey").equals("initialValue") &&
-            savedBug.getMetadata().get("newKey").equals("newValue")
+        // Verify that the merge is delegated to the service instead of mutating a cached bug
+        verify(bugService).updateBugMetadata(eq(1L), argThat(update -> 
+            update.size() == 1 && update.get("newKey").equals("newValue")
         ));
+        verify(bugService, never()).createBug(any(Bug.class));
+        verify(deduplicator, never()).report(any(Bug.class));
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
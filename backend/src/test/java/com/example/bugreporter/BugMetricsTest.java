@@ -0,0 +1,74 @@
+package com.example.bugreporter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The Prometheus scrape covers each layer, with the documented names and tags
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics",
+        "spring.jpa.show-sql=false"
+})
+class BugMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void scrapeCoversRoutesServiceDatabaseAndJvm() throws Exception {
+        // Given - a bug created and read through the API
+        String created = mockMvc.perform(post("/api/bugs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("title", "Metrics bug", "priority", "HIGH"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Bug bug = objectMapper.readValue(created, Bug.class);
+        mockMvc.perform(get("/api/bugs/" + bug.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/bugs/" + (bug.getId() + 1000))).andExpect(status().isNotFound());
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then - routes by template and status code, with histogram buckets
+        assertThat(scrape).containsPattern(
+                "http_server_requests_seconds_bucket\\{[^\\n]*status=\"200\"[^\\n]*uri=\"/api/bugs/\\{id}\"");
+        assertThat(scrape).containsPattern(
+                "http_server_requests_seconds_count\\{[^\\n]*status=\"404\"[^\\n]*uri=\"/api/bugs/\\{id}\"");
+        // Service methods, repository calls and Hibernate
+        assertThat(scrape).containsPattern(
+                "bugreporter_service_seconds_bucket\\{[^\\n]*method=\"getBugById\"");
+        assertThat(scrape).contains("spring_data_repository_invocations_seconds_bucket{");
+        assertThat(scrape).contains("hibernate_query_executions_total{");
+        // Pool, gate and JVM
+        assertThat(scrape).contains("hikaricp_connections_active{");
+        assertThat(scrape).contains("bugreporter_db_gate_wait_seconds_count{");
+        assertThat(scrape).contains("jvm_gc_");
+        // Bugs by status
+        assertThat(scrape).containsPattern(
+                "bugreporter_bugs\\{[^\\n]*priority=\"HIGH\"[^\\n]*status=\"OPEN\"[^\\n]*} 1\\.0");
+        assertThat(scrape).containsPattern(
+                "bugreporter_bug_changes_total\\{[^\\n]*status=\"OPEN\"[^\\n]*type=\"CREATED\"[^\\n]*} 1\\.0");
+    }
+}
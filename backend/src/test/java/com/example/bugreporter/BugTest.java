@@ -62,4 +62,21 @@ public class BugTest {
         assertFalse(bug.getCreatedAt().isAfter(LocalDateTime.now()));
         assertFalse(bug.getCreatedAt().isBefore(before.minusSeconds(1)));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testMarkUpdated() throws InterruptedException {
+        // Given
+        Bug bug = new Bug("Test Bug", "Description", null);
+        
+        // Then - a new bug was last updated when it was created
+        assertEquals(bug.getCreatedAt(), bug.getUpdatedAt());
+        
+        // When
+        Thread.sleep(5);
+        bug.markUpdated();
+        
+        // Then
+        assertTrue(bug.getUpdatedAt().isAfter(bug.getCreatedAt()));
+        assertEquals(0, bug.getUpdatedAt().getNano() % 1_000);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bugreporter.benchmark;
+
+import com.example.bugreporter.service.BugImporter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Import throughput through COPY, 1M records by default ({@code -Dbenchmark.rows=...}).
+ * Runs with {@code ./gradlew benchmarkTest}; excluded from the regular test task.
+ * The schema comes from the Flyway migrations, so every index and the generated
+ * search column are maintained during the load, as in production.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class BugImportBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+
+    private static final String[] STATUSES = {"OPEN", "IN_PROGRESS", "CLOSED"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("benchmark")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.org.hibernate.SQL", () -> "INFO");
+        registry.add("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", () -> "INFO");
+    }
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private BugImporter importer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Shaped like an export from another tracker: a source id and two metadata entries per record
+    private Path writeSource() throws IOException {
+        Path file = tempDir.resolve("history.ndjson");
+        LocalDateTime start = LocalDateTime.of(2015, 1, 1, 0, 0);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("{\"id\":\"OLD-" + i + "\",\"title\":\"Historical report #" + i + "\","
+                        + "\"description\":\"Imported from the previous tracker, report number " + i
+                        + ", with enough text to look like a real description.\","
+                        + "\"status\":\"" + STATUSES[i % STATUSES.length] + "\","
+                        + "\"priority\":\"" + PRIORITIES[i % PRIORITIES.length] + "\","
+                        + "\"createdAt\":\"" + start.plusMinutes(i) + "\","
+                        + "\"metadata\":{\"component\":\"c" + (i % 40) + "\",\"reporter\":\"user" + (i % 5000) + "\"}}");
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    @Test
+    void importThroughput() throws Exception {
+        Path file = writeSource();
+        System.out.printf("Source file: %d records, %.1f MB%n", ROWS, Files.size(file) / 1e6);
+
+        BugImporter.ImportResult result = importer.importFile(file, "benchmark");
+
+        System.out.printf("Imported %d bugs in %.1f s: %.0f bugs/s%n", result.getImported(),
+                TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos()) / 1000.0, result.getBugsPerSecond());
+        assertThat(result.getImported()).isEqualTo(ROWS);
+        assertThat(result.getRejected()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bugs", Long.class)).isEqualTo(ROWS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bug_metadata", Long.class))
+                .isEqualTo(3L * ROWS);
+    }
+}
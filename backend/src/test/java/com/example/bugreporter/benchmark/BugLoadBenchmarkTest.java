@@ -0,0 +1,190 @@
+package com.example.bugreporter.benchmark;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugReporterApplication;
+import com.example.bugreporter.service.BugService;
+import com.example.bugreporter.service.ConnectionGate;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read latency with 2,000 concurrent clients ({@code -Dbenchmark.clients=...}), each sending
+ * {@code -Dbenchmark.requests=...} requests back to back, against the same application
+ * started twice on one database: with Tomcat's platform thread pool, and with virtual
+ * threads behind the connection gate. Requests alternate between a filtered list page
+ * and a single bug. Runs with {@code ./gradlew benchmarkTest}; excluded from the regular test task.
+ */
+@Tag("benchmark")
+@Testcontainers
+class BugLoadBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 2_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 25);
+    private static final int BUGS = 20_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("benchmark")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Test
+    void p99LatencyAtTwoThousandClients() throws Exception {
+        System.out.printf("%-28s %10s %9s %9s %9s %7s %14s%n",
+                "setup", "req/s", "p50 ms", "p99 ms", "max ms", "503s", "gate p99 ms");
+        run("platform threads", false);
+        run("virtual threads + gate", true);
+    }
+
+    private void run(String setup, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext app = start(virtualThreads)) {
+            BugService bugService = app.getBean(BugService.class);
+            long maxId = seed(bugService);
+            String base = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/bugs";
+
+            load(base, maxId, Math.max(1, CLIENTS / 10), 5); // warm-up
+            Result result = load(base, maxId, CLIENTS, REQUESTS);
+            ConnectionGate.GateStats gate = app.getBean(ConnectionGate.class).getStats();
+
+            System.out.printf("%-28s %10.0f %9.1f %9.1f %9.1f %7d %14.1f%n", setup, result.perSecond(),
+                    result.percentileMillis(0.50), result.percentileMillis(0.99), result.percentileMillis(1.0),
+                    result.unavailable, gate.getP99WaitMicros() / 1000.0);
+            assertThat(result.failed).isZero();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(BugReporterApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.flyway.enabled=true",
+                        "spring.jpa.hibernate.ddl-auto=none",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=INFO",
+                        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+                        // Let every client connect at once in both setups; only the threads differ
+                        "server.tomcat.accept-count=" + CLIENTS,
+                        "server.tomcat.max-connections=" + (CLIENTS + 1_000),
+                        "spring.threads.virtual.enabled=" + virtualThreads)
+                .run();
+    }
+
+    // Both runs share the database; the first one fills it
+    private static long seed(BugService bugService) {
+        List<Bug> page = bugService.getBugsPage(null, 1).getBugs();
+        if (page.isEmpty()) {
+            Bug.Priority[] priorities = Bug.Priority.values();
+            for (int start = 0; start < BUGS; start += 1_000) {
+                List<Bug> batch = new ArrayList<>();
+                for (int i = start; i < start + 1_000; i++) {
+                    Bug bug = new Bug("Load test bug #" + i, "Seeded for the load benchmark", null,
+                            priorities[i % priorities.length]);
+                    bug.addMetadata("component", "c" + (i % 40));
+                    batch.add(bug);
+                }
+                bugService.createBugs(batch);
+            }
+            page = bugService.getBugsPage(null, 1).getBugs();
+        }
+        return page.get(0).getId();
+    }
+
+    private static Result load(String base, long maxId, int clients, int requests) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder unavailable = new LongAdder();
+        LongAdder failed = new LongAdder();
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            results.add(pool.submit(() -> {
+                long[] latencies = new long[requests];
+                start.await();
+                for (int i = 0; i < requests; i++) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    String path = i % 2 == 0
+                            ? "?limit=20&status=OPEN&meta.component=c" + random.nextInt(40)
+                            : "/" + (1 + random.nextLong(maxId));
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                            .timeout(Duration.ofSeconds(60))
+                            .build();
+                    long begin = System.nanoTime();
+                    int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    latencies[i] = System.nanoTime() - begin;
+                    if (status == 503) {
+                        unavailable.increment();
+                    } else if (status != 200 && status != 404) {
+                        failed.increment();
+                    }
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[clients * requests];
+        int n = 0;
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get();
+            System.arraycopy(latencies, 0, all, n, latencies.length);
+            n += latencies.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        Arrays.sort(all);
+        return new Result(all, elapsed, unavailable.sum(), failed.sum());
+    }
+
+    private static final class Result {
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final long unavailable;
+        private final long failed;
+
+        private Result(long[] sortedLatencies, long elapsedNanos, long unavailable, long failed) {
+            this.sortedLatencies = sortedLatencies;
+            this.elapsedNanos = elapsedNanos;
+            this.unavailable = unavailable;
+            this.failed = failed;
+        }
+
+        private double perSecond() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        private double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(sortedLatencies.length * percentile) - 1;
+            return sortedLatencies[Math.max(index, 0)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
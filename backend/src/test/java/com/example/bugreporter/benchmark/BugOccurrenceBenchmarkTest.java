@@ -0,0 +1,94 @@
+package com.example.bugreporter.benchmark;
+
+import com.example.bugreporter.service.BugOccurrenceCounter;
+import com.example.bugreporter.service.BugService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Throughput of duplicate reports against one hot bug as writer threads are added,
+ * {@code -Dbenchmark.increments=...} per thread (5M by default). Every writer hits the
+ * same bug, which is what a row lock or a single shared counter would serialize. Runs
+ * with {@code ./gradlew benchmarkTest}; excluded from the regular test task.
+ */
+@Tag("benchmark")
+class BugOccurrenceBenchmarkTest {
+
+    private static final int INCREMENTS = Integer.getInteger("benchmark.increments", 5_000_000);
+    private static final long HOT_BUG_ID = 42L;
+
+    @Test
+    void throughputScalesWithWriterThreads() throws Exception {
+        BugService bugService = mock(BugService.class);
+        AtomicLong written = new AtomicLong();
+        when(bugService.addOccurrences(any())).thenAnswer(invocation -> {
+            SortedMap<Long, Long> counts = invocation.getArgument(0);
+            counts.values().forEach(written::addAndGet);
+            return Set.of();
+        });
+        // Flushes every 100 ms while the writers run, as in production but more often
+        BugOccurrenceCounter counter = new BugOccurrenceCounter(bugService, 100);
+        counter.start();
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        run(counter, 1); // warm-up
+        double single = 0;
+        long expected = INCREMENTS;
+        System.out.printf("%8s %16s %9s%n", "threads", "reports/s", "speedup");
+        for (int threads : threadCounts) {
+            double perSecond = run(counter, threads);
+            expected += (long) threads * INCREMENTS;
+            if (threads == 1) {
+                single = perSecond;
+            }
+            System.out.printf("%8d %16.0f %8.2fx%n", threads, perSecond, perSecond / single);
+        }
+        counter.stop();
+
+        assertThat(written.get()).isEqualTo(expected);
+    }
+
+    private static double run(BugOccurrenceCounter counter, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS; i++) {
+                    counter.increment(HOT_BUG_ID);
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+        return (double) threads * INCREMENTS / (elapsed / 1e9);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bugreporter.benchmark;
+
+import com.example.bugreporter.service.BugSearchPage;
+import com.example.bugreporter.service.BugService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search latency on a seeded table, 1M rows by default ({@code -Dbenchmark.rows=...}).
+ * Runs with {@code ./gradlew benchmarkTest}; excluded from the regular test task.
+ * The schema comes from the Flyway migrations, so the tsvector column and GIN index are real.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class BugSearchBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 20;
+
+    // Common terms match many rows, rare ones few; the mix covers both ends of the ranking cost
+    private static final List<String> QUERIES = List.of(
+            "login", "crash safari", "checkout timeout", "\"payment declined\"", "upload -image",
+            "memory leak dashboard", "zzyzx");
+
+    private static final String[] VOCABULARY = {
+            "login", "logout", "crash", "freeze", "safari", "chrome", "firefox", "android", "ios",
+            "checkout", "payment", "declined", "timeout", "upload", "image", "video", "dashboard",
+            "memory", "leak", "slow", "button", "modal", "layout", "font", "export", "import",
+            "search", "filter", "sort", "session", "token", "expired", "network", "offline",
+            "sync", "notification", "email", "password", "reset", "profile", "avatar", "cache"
+    };
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("benchmark")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.org.hibernate.SQL", () -> "INFO");
+        registry.add("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", () -> "INFO");
+    }
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeded server-side so a million rows take seconds, not minutes. One word in ten comes
+     * from the vocabulary and the rest from 20,000 synthetic terms, so a vocabulary term
+     * matches a few percent of the table rather than a third of it.
+     */
+    private void seed() {
+        String word = "(CASE WHEN random() < 0.1 "
+                + "THEN (ARRAY['" + String.join("','", VOCABULARY) + "'])[1 + floor(random() * " + VOCABULARY.length + ")::int] "
+                + "ELSE 't' || floor(random() * 20000)::int END)";
+        jdbcTemplate.execute("SELECT setseed(0.42)");
+        jdbcTemplate.update(
+                "INSERT INTO bugs (id, title, description, created_at, updated_at, change_seq, status, priority) "
+                + "SELECT nextval('bugs_id_seq'), "
+                + word + " || ' ' || " + word + " || ' ' || " + word + " || ' #' || g, "
+                // Referencing g makes the subquery run per row instead of once
+                + "(SELECT string_agg(" + word + ", ' ') FROM generate_series(1, 12) WHERE g > 0), "
+                + "now() - g * interval '1 second', now() - g * interval '1 second', 1, 'OPEN', 'MEDIUM' "
+                + "FROM generate_series(1, ?) g",
+                ROWS);
+        jdbcTemplate.execute("ANALYZE bugs");
+    }
+
+    @Test
+    void searchLatency() {
+        seed();
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            QUERIES.forEach(query -> bugService.searchBugs(query, 0, BugService.DEFAULT_PAGE_SIZE));
+        }
+
+        System.out.printf("%-24s %10s %10s %10s %10s%n", "query", "p50 ms", "p95 ms", "max ms", "hits");
+        for (String query : QUERIES) {
+            long[] nanos = new long[MEASURED_ROUNDS];
+            int hits = 0;
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                long start = System.nanoTime();
+                BugSearchPage page = bugService.searchBugs(query, 0, BugService.DEFAULT_PAGE_SIZE);
+                nanos[round] = System.nanoTime() - start;
+                hits = page.getBugs().size();
+            }
+            Arrays.sort(nanos);
+            long p95 = nanos[(int) Math.ceil(MEASURED_ROUNDS * 0.95) - 1];
+            System.out.printf("%-24s %10.1f %10.1f %10.1f %10d%n", query,
+                    millis(nanos[MEASURED_ROUNDS / 2]), millis(p95), millis(nanos[MEASURED_ROUNDS - 1]), hits);
+
+            // Loose ceiling: catches a lost index (a sequential scan takes seconds), not noise
+            assertThat(TimeUnit.NANOSECONDS.toMillis(p95)).as("p95 for '%s'", query).isLessThan(2_000);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
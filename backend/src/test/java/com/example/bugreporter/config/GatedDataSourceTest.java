@@ -0,0 +1,55 @@
+package com.example.bugreporter.config;
+
+import com.example.bugreporter.service.ConnectionGate;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class GatedDataSourceTest {
+
+    private final ConnectionGate gate = new ConnectionGate(1, 50);
+    private final DataSource pool = mock(DataSource.class);
+    private final GatedDataSource dataSource = new GatedDataSource(pool, gate);
+
+    @Test
+    void holdsThePermitUntilTheConnectionIsClosed() throws Exception {
+        // Given
+        Connection pooled = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(pooled);
+
+        // When
+        Connection connection = dataSource.getConnection();
+
+        // Then - a second caller can't get past the gate
+        assertThat(((ConnectionProxy) connection).getTargetConnection()).isSameAs(pooled);
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        // When - closed twice, the permit comes back once
+        connection.close();
+        connection.close();
+
+        // Then
+        verify(pooled, times(2)).close();
+        assertThat(gate.getStats().getInUse()).isZero();
+        dataSource.getConnection();
+        assertThat(gate.getStats().getInUse()).isEqualTo(1);
+    }
+
+    @Test
+    void givesThePermitBackWhenThePoolFails() throws Exception {
+        // Given
+        when(pool.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        // When & Then
+        assertThatThrownBy(dataSource::getConnection).hasMessage("connection refused");
+        assertThat(gate.getStats().getInUse()).isZero();
+    }
+}
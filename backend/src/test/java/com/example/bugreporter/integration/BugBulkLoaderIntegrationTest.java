@@ -0,0 +1,102 @@
+package com.example.bugreporter.integration;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugBulkLoader;
+import com.example.bugreporter.BugImportCheckpoint;
+import com.example.bugreporter.BugImportCheckpointRepository;
+import com.example.bugreporter.BugRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * COPY-based loading against a real Postgres
+ */
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BugBulkLoader.class)
+public class BugBulkLoaderIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BugBulkLoader loader;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Autowired
+    private BugImportCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void copiesBugsAndMetadataVerbatim() {
+        // Given - values that need CSV quoting, a NULL and an empty string
+        Bug tricky = new Bug("Says \"hi, there\"", "Line one\nLine two", "", Bug.Priority.CRITICAL);
+        tricky.setStatus(Bug.Status.IN_PROGRESS);
+        tricky.setCreatedAt(LocalDateTime.of(2019, 3, 4, 5, 6, 7, 123_456_000));
+        tricky.setUpdatedAt(LocalDateTime.of(2020, 1, 1, 0, 0));
+        tricky.setMetadata(new HashMap<>(Map.of("team", "mobile", "note", "a,b \"c\"")));
+        Bug plain = new Bug("Plain", null, null);
+        BugImportCheckpoint checkpoint = new BugImportCheckpoint("copy");
+        checkpoint.advance(2, 2, 0);
+
+        // When
+        loader.load(List.of(tricky, plain), checkpoint);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then
+        assertThat(tricky.getId()).isNotNull();
+        assertThat(plain.getId()).isNotEqualTo(tricky.getId());
+        assertThat(plain.getChangeSeq()).isEqualTo(tricky.getChangeSeq());
+
+        Bug loaded = bugRepository.findWithMetadataById(tricky.getId()).orElseThrow();
+        assertThat(loaded.getTitle()).isEqualTo("Says \"hi, there\"");
+        assertThat(loaded.getDescription()).isEqualTo("Line one\nLine two");
+        assertThat(loaded.getScreenshotUrl()).isEmpty();
+        assertThat(loaded.getStatus()).isEqualTo(Bug.Status.IN_PROGRESS);
+        assertThat(loaded.getPriority()).isEqualTo(Bug.Priority.CRITICAL);
+        assertThat(loaded.getCreatedAt()).isEqualTo(tricky.getCreatedAt());
+        assertThat(loaded.getUpdatedAt()).isEqualTo(tricky.getUpdatedAt());
+        assertThat(loaded.getMetadata()).containsEntry("team", "mobile").containsEntry("note", "a,b \"c\"");
+        assertThat(bugRepository.findById(plain.getId()).orElseThrow().getDescription()).isNull();
+        assertThat(checkpointRepository.findById("copy")).get()
+                .extracting(BugImportCheckpoint::getLineNumber).isEqualTo(2L);
+
+        // Hibernate's own id allocation doesn't collide with the copied block
+        Bug later = bugRepository.saveAndFlush(new Bug("Later", null, null));
+        assertThat(later.getId()).isNotIn(tricky.getId(), plain.getId());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bugreporter.integration;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Full-text search against the Postgres tsvector column. The test profile builds the
+ * schema with Hibernate, so the search migration is applied on top of it.
+ */
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Sql("classpath:db/vendor/postgresql/V7__Add_bug_search_vector.sql")
+public class BugSearchIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void registerPgProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Test
+    void shouldRankTitleMatchesFirstAndStemTerms() {
+        // Given
+        Bug descriptionMatch = new Bug("Page is blank", "Crashes right after logging in", null);
+        Bug titleMatch = new Bug("Login crashes the app", "Happens on every device", null);
+        Bug unrelated = new Bug("Typo in footer", "Copyright year is wrong", null);
+        bugRepository.saveAllAndFlush(List.of(descriptionMatch, titleMatch, unrelated));
+
+        // When - "crash" matches "crashes" through stemming
+        List<Long> ids = bugRepository.searchIds("crash", 0, 10);
+
+        // Then
+        assertThat(ids).containsExactly(titleMatch.getId(), descriptionMatch.getId());
+    }
+
+    @Test
+    void shouldAcceptWebSearchSyntax() {
+        // Given
+        Bug safari = new Bug("Login fails on Safari", null, null);
+        Bug chrome = new Bug("Login fails on Chrome", null, null);
+        bugRepository.saveAllAndFlush(List.of(safari, chrome));
+
+        // When
+        List<Long> ids = bugRepository.searchIds("login -chrome", 0, 10);
+        List<Long> unbalanced = bugRepository.searchIds("\"login & (", 0, 10);
+
+        // Then - user input never produces a tsquery syntax error
+        assertThat(ids).containsExactly(safari.getId());
+        assertThat(unbalanced).contains(safari.getId(), chrome.getId());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Set-based status/priority updates and the state that has to follow them, on H2
+ */
+class BugBulkUpdateTest extends H2ServiceTest {
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Autowired
+    private BugCache bugCache;
+
+    @Autowired
+    private BugStatsCounters counters;
+
+    private final List<Bug> bugs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        counters.reconcile();
+        // Bug i has status i % 3 and priority i % 4; bugs 0-5 are tagged release=1.4
+        for (int i = 0; i < 8; i++) {
+            Bug bug = new Bug("Bug " + i, null, null, Bug.Priority.values()[i % 4]);
+            bug.setStatus(Bug.Status.values()[i % 3]);
+            if (i < 6) {
+                bug.addMetadata("release", "1.4");
+            }
+            bugs.add(bugService.createBug(bug));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+        bugs.clear();
+    }
+
+    @Test
+    void closesListedBugsAndSkipsThoseAlreadyClosed() {
+        // Given - bug 2 is already CLOSED
+        List<Long> ids = List.of(bugs.get(0).getId(), bugs.get(1).getId(), bugs.get(2).getId());
+        long changeSeqBefore = bugRepository.findMaxChangeSeq();
+
+        // When
+        BugBulkUpdateResult result = bugService.bulkUpdate(BugFilter.none().setIds(ids), Bug.Status.CLOSED, null);
+
+        // Then
+        assertThat(result.getMatched()).isEqualTo(3);
+        assertThat(result.getUpdated()).isEqualTo(2);
+        List<Bug> reloaded = bugRepository.findAllById(ids);
+        assertThat(reloaded).extracting(Bug::getStatus).containsOnly(Bug.Status.CLOSED);
+        Bug first = bugRepository.findById(bugs.get(0).getId()).orElseThrow();
+        assertThat(first.getPriority()).isEqualTo(Bug.Priority.LOW);
+        assertThat(first.getChangeSeq()).isGreaterThan(changeSeqBefore);
+        assertThat(first.getUpdatedAt()).isAfterOrEqualTo(bugs.get(0).getUpdatedAt());
+        assertThat(bugRepository.findById(bugs.get(2).getId()).orElseThrow().getChangeSeq())
+                .isEqualTo(bugs.get(2).getChangeSeq());
+    }
+
+    @Test
+    void updatesEveryBugMatchingAFilter() {
+        // Given - bugs 0, 3 (OPEN) and 1, 4 (IN_PROGRESS) of release 1.4; 6 and 7 are untagged
+        BugFilter filter = BugFilter.none()
+                .addMetadata("release", "1.4")
+                .setStatuses(List.of(Bug.Status.OPEN, Bug.Status.IN_PROGRESS));
+
+        // When
+        BugBulkUpdateResult result = bugService.bulkUpdate(filter, Bug.Status.CLOSED, Bug.Priority.LOW);
+
+        // Then
+        assertThat(result.getMatched()).isEqualTo(4);
+        assertThat(result.getUpdated()).isEqualTo(4);
+        assertThat(bugService.getBugsByStatus(Bug.Status.CLOSED)).extracting(Bug::getTitle)
+                .containsExactlyInAnyOrder("Bug 0", "Bug 1", "Bug 2", "Bug 3", "Bug 4", "Bug 5");
+        assertThat(bugRepository.findById(bugs.get(6).getId()).orElseThrow().getStatus()).isEqualTo(Bug.Status.OPEN);
+    }
+
+    @Test
+    void evictsCachedCopiesAndKeepsStatsInStep() {
+        // Given - bug 0 is cached
+        Long id = bugs.get(0).getId();
+        assertThat(bugService.getBugById(id)).get().extracting(Bug::getStatus).isEqualTo(Bug.Status.OPEN);
+
+        // When - status and priority change together
+        bugService.bulkUpdate(BugFilter.none().setIds(List.of(id, bugs.get(1).getId())),
+                Bug.Status.CLOSED, Bug.Priority.CRITICAL);
+
+        // Then
+        assertThat(bugCache.peek(id)).isEmpty();
+        Bug fresh = bugService.getBugById(id).orElseThrow();
+        assertThat(fresh.getStatus()).isEqualTo(Bug.Status.CLOSED);
+        assertThat(fresh.getMetadata()).containsEntry("release", "1.4");
+
+        BugStats stats = counters.getStats();
+        BugStats counted = bugService.countBugs(stats.getCreatedPerDay().firstKey(), LocalDate.now());
+        assertThat(stats.getByStatusAndPriority()).isEqualTo(counted.getByStatusAndPriority());
+        assertThat(stats.getByStatusAndPriority().get(Bug.Status.CLOSED).get(Bug.Priority.CRITICAL)).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsUpdatesWithoutTargetOrSelection() {
+        BugFilter someIds = BugFilter.none().setIds(List.of(bugs.get(0).getId()));
+
+        assertThatThrownBy(() -> bugService.bulkUpdate(someIds, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bugService.bulkUpdate(BugFilter.none(), Bug.Status.CLOSED, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
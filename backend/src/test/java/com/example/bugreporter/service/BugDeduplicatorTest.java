@@ -0,0 +1,157 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Folding of duplicate reports, on H2
+ */
+class BugDeduplicatorTest extends H2ServiceTest {
+
+    @Autowired
+    private BugDeduplicator deduplicator;
+
+    @Autowired
+    private BugOccurrenceCounter occurrences;
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void foldsReportsThatDifferOnlyInFormattingAndOtherMetadata() {
+        // Given
+        Bug first = deduplicator.report(report("Checkout fails", "Payment   button\ndoes nothing", "/cart", "alice"));
+
+        // When - same content, different case, whitespace and reporter
+        Bug second = deduplicator.report(report("  checkout FAILS ", "payment button does nothing", "/cart", "bob"));
+        occurrences.flush();
+
+        // Then
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getMetadata()).containsEntry("reporter", "alice");
+        assertThat(bugRepository.count()).isEqualTo(1);
+        Bug written = bugService.getBugById(first.getId()).orElseThrow();
+        assertThat(written.getOccurrences()).isEqualTo(2);
+        assertThat(written.getChangeSeq()).isGreaterThan(first.getChangeSeq());
+    }
+
+    @Test
+    void keepsReportsWithDifferentKeyMetadataOrAClosedOriginalApart() {
+        // Given
+        Bug original = deduplicator.report(report("Checkout fails", null, "/cart", "alice"));
+
+        // When - another page, then the same page after the original was closed
+        Bug otherPage = deduplicator.report(report("Checkout fails", null, "/wishlist", "alice"));
+        Bug closeUpdate = new Bug();
+        closeUpdate.setStatus(Bug.Status.CLOSED);
+        bugService.updateBug(original.getId(), closeUpdate);
+        Bug regression = deduplicator.report(report("Checkout fails", null, "/cart", "alice"));
+        occurrences.flush();
+
+        // Then
+        assertThat(otherPage.getId()).isNotEqualTo(original.getId());
+        assertThat(regression.getId()).isNotIn(original.getId(), otherPage.getId());
+        assertThat(regression.getOccurrences()).isEqualTo(1);
+        assertThat(bugRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void duplicatesOfAKnownBugSkipTheDatabase() {
+        // Given
+        Bug original = deduplicator.report(report("Slow search", "Takes a minute", "/search", "user"));
+        long lookupsSkipped = deduplicator.getStats().getLookupsSkipped();
+        long falsePositives = deduplicator.getStats().getFalsePositives();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThat(deduplicator.report(report("Slow search", "Takes a minute", "/search", "user")).getId())
+                    .isEqualTo(original.getId());
+        }
+
+        // Then - counted in memory until the flush, which writes them with one statement
+        assertThat(occurrences.getPending()).isEqualTo(5);
+        assertThat(deduplicator.getStats().getLookupsSkipped()).isEqualTo(lookupsSkipped);
+        assertThat(deduplicator.getStats().getFalsePositives()).isEqualTo(falsePositives);
+        occurrences.flush();
+        assertThat(occurrences.getPending()).isZero();
+        assertThat(bugRepository.findById(original.getId()).orElseThrow().getOccurrences()).isEqualTo(6);
+    }
+
+    @Test
+    void concurrentDuplicatesCreateOneBug() throws Exception {
+        // Given
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Bug>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < 40; i++) {
+                results.add(pool.submit(() -> deduplicator.report(report("Outage", "503 everywhere", "/", "user"))));
+            }
+            for (Future<Bug> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        occurrences.flush();
+
+        // Then
+        assertThat(results.get(0).get().getId()).isNotNull();
+        List<Bug> bugs = bugRepository.findAll();
+        assertThat(bugs).hasSize(1);
+        assertThat(bugs.get(0).getOccurrences()).isEqualTo(40);
+    }
+
+    @Test
+    void filterNeverForgetsAFingerprint() {
+        // Given
+        FingerprintFilter filter = new FingerprintFilter(1000, 0.01);
+        BugFingerprinter fingerprinter = new BugFingerprinter(List.of());
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String fingerprint = fingerprinter.fingerprint(new Bug("Bug " + i, null, null));
+            filter.put(fingerprint);
+            added.add(fingerprint);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 1000; i < 11_000; i++) {
+            if (filter.mightContain(fingerprinter.fingerprint(new Bug("Bug " + i, null, null)))) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(added).allMatch(filter::mightContain);
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    private static Bug report(String title, String description, String url, String reporter) {
+        Bug bug = new Bug(title, description, null);
+        bug.addMetadata("url", url);
+        bug.addMetadata("reporter", reporter);
+        return bug;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BugEventStreamTest {
+
+    private static final int BUFFER_SIZE = 2;
+
+    private BugEventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new BugEventStream(BUFFER_SIZE, 2, 60_000, 60, 2, 60_000);
+        stream.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.stop();
+    }
+
+    @Test
+    void deliversEveryEvent() throws Exception {
+        // Given
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        assertThat(stream.register(emitter)).isTrue();
+
+        // When
+        for (long seq = 1; seq <= 5; seq++) {
+            publish(seq);
+        }
+
+        // Then
+        assertThat(emitter.awaitSends(5)).isTrue();
+        assertThat(stream.getStats().getPublished()).isEqualTo(5);
+        assertThat(stream.getStats().getEvicted()).isZero();
+    }
+
+    @Test
+    void slowSubscriberIsEvictedWithoutBlockingOthers() throws Exception {
+        // Given - one subscriber whose socket never drains
+        CountDownLatch stalled = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(stalled);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        stream.register(slow);
+        stream.register(fast);
+
+        // When - more events than the slow subscriber can buffer
+        long publishNanos = 0;
+        for (long seq = 1; seq <= BUFFER_SIZE + 3; seq++) {
+            publishNanos += publish(seq);
+        }
+
+        // Then - the writer never waited, the slow subscriber is gone, the fast one got everything
+        assertThat(TimeUnit.NANOSECONDS.toMillis(publishNanos)).isLessThan(1_000);
+        assertThat(fast.awaitSends(BUFFER_SIZE + 3)).isTrue();
+        assertThat(stream.getStats().getEvicted()).isEqualTo(1);
+        assertThat(stream.getStats().getSubscribers()).isEqualTo(1);
+        stalled.countDown();
+    }
+
+    @Test
+    void stuckSendsAreAbortedBeforeTheyStarveOthers() throws Exception {
+        // Given - as many stalled subscribers as sender threads, and room in the healthy one's buffer
+        stream.stop();
+        stream = new BugEventStream(64, 3, 60_000, 60, 2, 200);
+        stream.start();
+        CountDownLatch stalled = new CountDownLatch(1);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        stream.register(new RecordingEmitter(stalled));
+        stream.register(new RecordingEmitter(stalled));
+        stream.register(fast);
+
+        // When
+        for (long seq = 1; seq <= 5; seq++) {
+            publish(seq);
+        }
+
+        // Then - the stuck sends were interrupted and their subscribers disconnected
+        assertThat(fast.awaitSends(5)).isTrue();
+        assertThat(stream.getStats().getEvicted()).isEqualTo(2);
+        assertThat(stream.getStats().getSubscribers()).isEqualTo(1);
+        stalled.countDown();
+    }
+
+    @Test
+    void rejectsSubscribersOverTheLimit() {
+        // When
+        boolean first = stream.register(new RecordingEmitter(null));
+        boolean second = stream.register(new RecordingEmitter(null));
+        boolean third = stream.register(new RecordingEmitter(null));
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+    }
+
+    // Paced so a healthy subscriber never holds more than one event in its buffer
+    private long publish(long seq) throws InterruptedException {
+        Bug bug = new Bug("Bug " + seq, null, null);
+        bug.setId(seq);
+        long start = System.nanoTime();
+        stream.onChange(BugChangeEvent.deleted(bug, seq));
+        long elapsed = System.nanoTime() - start;
+        Thread.sleep(20);
+        return elapsed;
+    }
+
+    /**
+     * Emitter that records sends instead of writing to a response, optionally
+     * blocking every send until the latch opens, like a client that stopped reading
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch stall;
+        private final List<SseEventBuilder> sent = new CopyOnWriteArrayList<>();
+
+        RecordingEmitter(CountDownLatch stall) {
+            this.stall = stall;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (stall != null) {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            sent.add(builder);
+        }
+
+        boolean awaitSends(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return sent.size() >= count;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Export on H2, with a fetch size smaller than the table so rows span several fetches
+ */
+class BugExporterTest extends H2ServiceTest {
+
+    @Autowired
+    private BugExporter exporter;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Bug tagged;
+    private Bug plain;
+    private Bug quoted;
+
+    @BeforeEach
+    void setUp() {
+        tagged = new Bug("Checkout fails", "Card declined", null, Bug.Priority.HIGH);
+        tagged.setMetadata(new HashMap<>(Map.of("team", "payments", "browser", "Safari")));
+        plain = new Bug("Typo", null, null);
+        quoted = new Bug("Says \"hello, world\"", "Line one\nLine two", null);
+        quoted.setMetadata(new HashMap<>(Map.of("team", "web")));
+        quoted.setUpdatedAt(LocalDateTime.now().plusDays(1));
+        bugRepository.saveAll(List.of(tagged, plain, quoted));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerBugWithMetadataInline() throws Exception {
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.export(BugFilter.none(), BugExportFormat.NDJSON, out);
+
+        // Then - id order, each bug with exactly its own metadata
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).extracting(line -> line.get("id").asLong())
+                .containsExactly(tagged.getId(), plain.getId(), quoted.getId());
+        assertThat(lines.get(0).get("metadata").get("team").asText()).isEqualTo("payments");
+        assertThat(lines.get(0).get("metadata").get("browser").asText()).isEqualTo("Safari");
+        assertThat(lines.get(0).get("priority").asText()).isEqualTo("HIGH");
+        assertThat(lines.get(1).get("metadata").isEmpty()).isTrue();
+        assertThat(lines.get(1).get("description").isNull()).isTrue();
+        assertThat(lines.get(2).get("title").asText()).isEqualTo("Says \"hello, world\"");
+    }
+
+    @Test
+    void csvQuotesFieldsThatNeedIt() throws Exception {
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(BugFilter.none(), BugExportFormat.CSV, out);
+
+        // Then
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(csv).startsWith("id,title,description,screenshotUrl,thumbnailUrl,status,priority,"
+                + "createdAt,updatedAt,changeSeq,occurrences,version,metadata\r\n");
+        assertThat(csv).contains("\r\n" + plain.getId() + ",Typo,,,,OPEN,MEDIUM,");
+        assertThat(csv).contains("\r\n" + quoted.getId() + ",\"Says \"\"hello, world\"\"\",\"Line one\nLine two\",,");
+        assertThat(csv).contains(",\"{\"\"team\"\":\"\"web\"\"}\"\r\n");
+    }
+
+    @Test
+    void filtersSelectAnIncrementalExport() throws Exception {
+        // Given - only one bug was written after the previous export
+        BugFilter since = BugFilter.none().setUpdatedFrom(LocalDateTime.now().plusHours(1));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.export(since, BugExportFormat.NDJSON, out);
+
+        // Then
+        JsonNode only = objectMapper.readTree(out.toString(StandardCharsets.UTF_8).trim());
+        assertThat(rows).isEqualTo(1);
+        assertThat(only.get("id").asLong()).isEqualTo(quoted.getId());
+        assertThat(only.get("metadata").get("team").asText()).isEqualTo("web");
+    }
+}
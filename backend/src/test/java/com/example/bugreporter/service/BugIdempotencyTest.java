@@ -0,0 +1,172 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugIdempotencyKeyRepository;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Idempotency-Key replays, on H2
+ */
+class BugIdempotencyTest extends H2ServiceTest {
+
+    @Autowired
+    private BugIdempotency idempotency;
+
+    @Autowired
+    private BugIdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private BugDeduplicator deduplicator;
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM bug_idempotency_keys");
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void retryReturnsTheOriginalBugWithoutWriting() {
+        // Given
+        Bug first = idempotency.create("widget-1", () -> deduplicator.report(new Bug("Timeout", "First try", null)))
+                .orElseThrow();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        Bug retry = idempotency.create("widget-1", () -> {
+            attempts.incrementAndGet();
+            return deduplicator.report(new Bug("Timeout", "First try", null));
+        }).orElseThrow();
+
+        // Then - not even counted as another occurrence
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(retry.getOccurrences()).isEqualTo(1);
+        assertThat(attempts).hasValue(0);
+        assertThat(bugRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRetriesInsertOnce() throws Exception {
+        // Given
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger inserts = new AtomicInteger();
+        List<Future<Bug>> results = new ArrayList<>();
+
+        // When - the same request arrives 16 times at once
+        try {
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return idempotency.create("storm", () -> {
+                        inserts.incrementAndGet();
+                        return bugService.createBug(new Bug("Storm", null, null));
+                    }).orElseThrow();
+                }));
+            }
+            start.countDown();
+            Set<Long> ids = new HashSet<>();
+            for (Future<Bug> result : results) {
+                ids.add(result.get().getId());
+            }
+
+            // Then
+            assertThat(ids).hasSize(1);
+            assertThat(inserts).hasValue(1);
+            assertThat(bugRepository.count()).isEqualTo(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void batchRetryReturnsTheSameIds() {
+        // Given
+        List<Long> first = idempotency.createAll("import-7", 3, () -> createIds(3));
+
+        // When
+        List<Long> retry = idempotency.createAll("import-7", 3, () -> createIds(3));
+
+        // Then
+        assertThat(retry).containsExactlyElementsOf(first);
+        assertThat(bugRepository.count()).isEqualTo(3);
+        assertThatThrownBy(() -> idempotency.createAll("import-7", 2, () -> createIds(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> idempotency.createAll("import-7", 4, () -> createIds(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void failedAttemptReleasesTheKey() {
+        // Given
+        assertThatThrownBy(() -> idempotency.create("flaky", () -> {
+            throw new IllegalStateException("database went away");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // When
+        Bug retry = idempotency.create("flaky", () -> bugService.createBug(new Bug("Flaky", null, null))).orElseThrow();
+
+        // Then
+        assertThat(bugRepository.findById(retry.getId())).isPresent();
+    }
+
+    @Test
+    void keyHeldElsewhereIsAConflictUntilAbandoned() {
+        // Given - another instance claimed the key and hasn't finished
+        keyRepository.insert("elsewhere");
+
+        // When & Then - still running
+        assertThatThrownBy(() -> idempotency.create("elsewhere", () -> bugService.createBug(new Bug("Lost", null, null))))
+                .isInstanceOf(IdempotencyKeyInUseException.class);
+        assertThat(bugRepository.count()).isZero();
+
+        // When & Then - silent for longer than abandon-after-seconds
+        jdbcTemplate.update("UPDATE bug_idempotency_keys SET created_at = ? WHERE idempotency_key = ?",
+                LocalDateTime.now().minusMinutes(5), "elsewhere");
+        assertThat(idempotency.create("elsewhere", () -> bugService.createBug(new Bug("Found", null, null))))
+                .map(Bug::getTitle).hasValue("Found");
+    }
+
+    @Test
+    void rejectsMalformedKeys() {
+        assertThatThrownBy(() -> idempotency.create("has spaces", () -> null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> idempotency.create("x".repeat(256), () -> null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Long> createIds(int count) {
+        List<Bug> bugs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            bugs.add(new Bug("Batch bug " + i, null, null));
+        }
+        return bugService.createBugs(bugs).stream().map(Bug::getId).collect(Collectors.toList());
+    }
+}
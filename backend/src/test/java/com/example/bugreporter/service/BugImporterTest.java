@@ -0,0 +1,128 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugImportCheckpoint;
+import com.example.bugreporter.BugImportCheckpointRepository;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Import on H2, which loads through JDBC batches instead of COPY
+ */
+class BugImporterTest extends H2ServiceTest {
+
+    private static final List<String> LINES = List.of(
+            "{\"id\":\"JIRA-1\",\"title\":\"Crash on start\",\"status\":\"CLOSED\",\"priority\":\"HIGH\","
+                    + "\"createdAt\":\"2019-03-04T05:06:07\",\"thumbnailUrl\":\"https://example.com/1/thumbnail\","
+                    + "\"version\":4,\"metadata\":{\"team\":\"mobile\"}}",
+            "{\"title\":\"Says \\\"hi, there\\\"\",\"description\":\"Line one\\nLine two\"}",
+            "{\"title\":",
+            "",
+            "{\"description\":\"No title\"}",
+            "{\"title\":\"Bad status\",\"status\":\"WONTFIX\"}",
+            "{\"title\":\"Slow search\",\"priority\":\"LOW\"}");
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private BugImporter importer;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Autowired
+    private BugImportCheckpointRepository checkpointRepository;
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+        checkpointRepository.deleteAll();
+    }
+
+    @Test
+    void loadsValidRecordsAndReportsInvalidOnes() throws Exception {
+        // Given
+        Path file = write(LINES);
+
+        // When
+        BugImporter.ImportResult result = importer.importFile(file, "history");
+
+        // Then
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors()).hasSize(3);
+        assertThat(result.getErrors().get(0)).startsWith("line 3: invalid record");
+        assertThat(result.getErrors().get(1)).isEqualTo("line 5: title is required");
+        assertThat(result.getErrors().get(2)).startsWith("line 6: invalid record");
+
+        List<Bug> bugs = bugRepository.findAllByOrderByCreatedAtDesc();
+        assertThat(bugs).hasSize(3);
+        Bug historical = bugs.get(bugs.size() - 1);
+        assertThat(historical.getTitle()).isEqualTo("Crash on start");
+        assertThat(historical.getStatus()).isEqualTo(Bug.Status.CLOSED);
+        assertThat(historical.getPriority()).isEqualTo(Bug.Priority.HIGH);
+        assertThat(historical.getCreatedAt()).isEqualTo(LocalDateTime.of(2019, 3, 4, 5, 6, 7));
+        assertThat(historical.getUpdatedAt()).isEqualTo(historical.getCreatedAt());
+        assertThat(historical.getThumbnailUrl()).isEqualTo("https://example.com/1/thumbnail");
+        assertThat(historical.getVersion()).isEqualTo(4);
+        assertThat(historical.getMetadata())
+                .containsEntry("team", "mobile")
+                .containsEntry(BugImporter.SOURCE_ID_METADATA_KEY, "JIRA-1");
+        assertThat(bugs).extracting(Bug::getTitle).contains("Says \"hi, there\"");
+        assertThat(bugs).extracting(Bug::getId).doesNotHaveDuplicates();
+
+        BugImportCheckpoint checkpoint = checkpointRepository.findById("history").orElseThrow();
+        assertThat(checkpoint.getLineNumber()).isEqualTo(LINES.size());
+        assertThat(checkpoint.getImported()).isEqualTo(3);
+    }
+
+    @Test
+    void resumesAfterTheLastCommittedLine() throws Exception {
+        // Given - an earlier run committed the first two lines and then died
+        BugImportCheckpoint earlier = new BugImportCheckpoint("history");
+        earlier.advance(2, 2, 0);
+        checkpointRepository.save(earlier);
+        Path file = write(LINES);
+
+        // When
+        BugImporter.ImportResult result = importer.importFile(file, "history");
+
+        // Then - only lines 3 onwards are read, totals include the earlier run
+        assertThat(result.getImportedThisRun()).isEqualTo(1);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(bugRepository.findAll()).extracting(Bug::getTitle).containsExactly("Slow search");
+    }
+
+    @Test
+    void rerunningAFinishedImportLoadsNothing() throws Exception {
+        // Given
+        Path file = write(LINES);
+        importer.importFile(file, "history");
+
+        // When
+        BugImporter.ImportResult again = importer.importFile(file, "history");
+
+        // Then
+        assertThat(again.getImportedThisRun()).isZero();
+        assertThat(bugRepository.count()).isEqualTo(3);
+    }
+
+    private Path write(List<String> lines) throws Exception {
+        Path file = tempDir.resolve("bugs.ndjson");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BugIngestQueueTest {
+
+    @Mock
+    private BugService bugService;
+
+    private BugIngestQueue ingestQueue;
+
+    @AfterEach
+    void tearDown() {
+        if (ingestQueue != null) {
+            ingestQueue.stop();
+        }
+    }
+
+    @Test
+    void groupsQueuedBugsIntoBatches() {
+        // Given
+        ingestQueue = new BugIngestQueue(bugService, 100, 10, 200);
+        ingestQueue.start();
+
+        // When
+        for (int i = 0; i < 25; i++) {
+            assertThat(ingestQueue.offer(new Bug("Bug " + i, null, null))).isTrue();
+        }
+        ingestQueue.stop();
+
+        // Then - everything was written, never more than one batch size per commit
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Bug>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bugService, atLeast(3)).createBugs(captor.capture());
+        assertThat(captor.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10));
+        assertThat(captor.getAllValues().stream().mapToInt(List::size).sum()).isEqualTo(25);
+
+        BugIngestQueue.IngestStats stats = ingestQueue.getStats();
+        assertThat(stats.getAccepted()).isEqualTo(25);
+        assertThat(stats.getWritten()).isEqualTo(25);
+        assertThat(stats.getDepth()).isZero();
+    }
+
+    @Test
+    void rejectsWhenFull() throws Exception {
+        // Given - the writer blocks inside its first commit, so nothing else drains
+        CountDownLatch release = new CountDownLatch(1);
+        when(bugService.createBugs(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return invocation.getArgument(0);
+        });
+        ingestQueue = new BugIngestQueue(bugService, 2, 1, 0);
+        ingestQueue.start();
+        assertThat(ingestQueue.offer(new Bug("In flight", null, null))).isTrue();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (ingestQueue.getStats().getDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // When
+        boolean second = ingestQueue.offer(new Bug("Queued 1", null, null));
+        boolean third = ingestQueue.offer(new Bug("Queued 2", null, null));
+        boolean overflow = ingestQueue.offer(new Bug("Overflow", null, null));
+        release.countDown();
+
+        // Then
+        assertThat(second).isTrue();
+        assertThat(third).isTrue();
+        assertThat(overflow).isFalse();
+        assertThat(ingestQueue.getStats().getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenNotRunning() {
+        // Given
+        ingestQueue = new BugIngestQueue(bugService, 2, 10, 50);
+
+        // When & Then
+        assertThat(ingestQueue.offer(new Bug("Bug", null, null))).isFalse();
+        assertThat(ingestQueue.getStats().getRejected()).isEqualTo(1);
+        verify(bugService, never()).createBugs(anyList());
+    }
+
+    @Test
+    void countsDroppedBugsWhenWriteFails() {
+        // Given
+        when(bugService.createBugs(anyList())).thenThrow(new IllegalStateException("database down"));
+        ingestQueue = new BugIngestQueue(bugService, 10, 10, 10);
+        ingestQueue.start();
+
+        // When
+        ingestQueue.offer(new Bug("Bug", null, null));
+        ingestQueue.stop();
+
+        // Then
+        BugIngestQueue.IngestStats stats = ingestQueue.getStats();
+        assertThat(stats.getDropped()).isEqualTo(1);
+        assertThat(stats.getWritten()).isZero();
+    }
+
+    @Test
+    void dropsOnlyTheBugsTheDatabaseRejects() {
+        // Given - a title over the column limit fails any group it is in
+        when(bugService.createBugs(anyList())).thenAnswer(invocation -> {
+            List<Bug> bugs = invocation.getArgument(0);
+            if (bugs.stream().anyMatch(bug -> bug.getTitle().startsWith("Too long"))) {
+                throw new DataIntegrityViolationException("value too long for column title");
+            }
+            return bugs;
+        });
+        ingestQueue = new BugIngestQueue(bugService, 20, 10, 200);
+        ingestQueue.start();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            ingestQueue.offer(new Bug(i == 3 || i == 7 ? "Too long " + i : "Bug " + i, null, null));
+        }
+        ingestQueue.stop();
+
+        // Then
+        BugIngestQueue.IngestStats stats = ingestQueue.getStats();
+        assertThat(stats.getWritten()).isEqualTo(8);
+        assertThat(stats.getDropped()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Server-side filtering and sorting through the Criteria query, on H2
+ */
+class BugListFilterTest extends H2ServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Bug i is created i hours after START and last updated (12 - i) hours after it
+        List<Bug> bugs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Bug bug = new Bug("Bug " + i, null, null);
+            bug.setCreatedAt(START.plusHours(i));
+            bug.setUpdatedAt(START.plusHours(12 - i));
+            bug.setStatus(Bug.Status.values()[i % 3]);
+            bug.setPriority(Bug.Priority.values()[i % 4]);
+            bugs.add(bug);
+        }
+        bugRepository.saveAll(bugs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void filtersByStatusPriorityAndCreatedRange() {
+        // Given
+        BugFilter filter = BugFilter.none()
+                .setStatuses(List.of(Bug.Status.OPEN, Bug.Status.IN_PROGRESS))
+                .setPriorities(List.of(Bug.Priority.LOW, Bug.Priority.MEDIUM))
+                .setCreatedFrom(START.plusHours(1))
+                .setCreatedTo(START.plusHours(9));
+
+        // When
+        BugPage page = bugService.getBugsPage(filter, BugSort.DEFAULT, null, 50);
+
+        // Then - bug 1 (IN_PROGRESS, MEDIUM), 4 (IN_PROGRESS, LOW) and 9 is outside the range
+        assertThat(page.getBugs()).extracting(Bug::getTitle).containsExactly("Bug 4", "Bug 1");
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void pagesInAscendingOrderOfUpdatedAt() {
+        // Given
+        BugFilter openOnly = BugFilter.none().setStatuses(List.of(Bug.Status.OPEN));
+
+        // When
+        BugPage first = bugService.getBugsPage(openOnly, BugSort.UPDATED_AT_ASC, null, 2);
+        BugPage second = bugService.getBugsPage(openOnly, BugSort.UPDATED_AT_ASC, first.getNextCursor(), 2);
+
+        // Then - OPEN bugs are 0, 3, 6, 9; the least recently updated is the newest
+        assertThat(first.getBugs()).extracting(Bug::getTitle).containsExactly("Bug 9", "Bug 6");
+        assertThat(second.getBugs()).extracting(Bug::getTitle).containsExactly("Bug 3", "Bug 0");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void sortsWithoutFilters() {
+        // When
+        BugPage page = bugService.getBugsPage(BugFilter.none(), BugSort.CREATED_AT_ASC, null, 3);
+
+        // Then
+        assertThat(page.getBugs()).extracting(Bug::getTitle).containsExactly("Bug 0", "Bug 1", "Bug 2");
+        assertThat(page.getNextCursor().getSort()).isEqualTo(BugSort.CREATED_AT_ASC);
+    }
+
+    @Test
+    void rejectsCursorFromAnotherSort() {
+        // Given
+        BugPage page = bugService.getBugsPage(BugFilter.none(), BugSort.CREATED_AT_ASC, null, 3);
+
+        // When & Then
+        assertThatThrownBy(() -> bugService.getBugsPage(BugFilter.none(), BugSort.DEFAULT, page.getNextCursor(), 3))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the list read path against N+1 metadata loading.
+ * The test is deliberately not transactional so any lazy collection left
+ * uninitialized would fail during serialization instead of silently loading.
+ */
+class BugListQueryCountTest extends H2ServiceTest {
+
+    private static final int PAGE_SIZE = 500;
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Bug> bugs = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE + 10; i++) {
+            Bug bug = new Bug("Bug " + i, "Description " + i, null);
+            bug.addMetadata("appVersion", "1." + (i % 7));
+            bug.addMetadata("browser", "Chrome");
+            bug.addMetadata("userId", "user-" + i);
+            bugs.add(bug);
+        }
+        bugRepository.saveAll(bugs);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void pageOfBugsWithMetadataLoadsInBoundedStatements() throws Exception {
+        // When
+        BugPage page = bugService.getBugsPage(null, PAGE_SIZE);
+        String json = objectMapper.writeValueAsString(page.getBugs());
+
+        // Then - one statement for the ids, one for bugs joined with metadata
+        assertThat(page.getBugs()).hasSize(PAGE_SIZE);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(json).contains("\"appVersion\"");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    void metadataFilteredPageLoadsInBoundedStatements() throws Exception {
+        // Given
+        BugFilter filter = BugFilter.none().addMetadata("appVersion", "1.3").addMetadata("browser", "Chrome");
+
+        // When
+        BugPage page = bugService.getBugsPage(filter, BugSort.DEFAULT, null, 50);
+        objectMapper.writeValueAsString(page.getBugs());
+
+        // Then - the filters are semi-joins inside the id query, not loaded maps
+        assertThat(page.getBugs()).hasSize(50);
+        assertThat(page.getBugs()).allSatisfy(bug -> assertThat(bug.getMetadata()).containsEntry("appVersion", "1.3"));
+        assertThat(page.hasNext()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+
+        // When - a second page continues where the first stopped
+        BugPage next = bugService.getBugsPage(filter, BugSort.DEFAULT, page.getNextCursor(), 50);
+
+        // Then - 510 bugs, every 7th on 1.3: 73 in total
+        assertThat(next.getBugs()).hasSize(23);
+        assertThat(next.hasNext()).isFalse();
+    }
+
+    @Test
+    void unpagedListLoadsInSingleStatement() throws Exception {
+        // When
+        List<Bug> bugs = bugService.getAllBugs();
+        objectMapper.writeValueAsString(bugs);
+
+        // Then
+        assertThat(bugs).hasSize(PAGE_SIZE + 10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+}
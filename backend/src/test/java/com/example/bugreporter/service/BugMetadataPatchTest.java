@@ -0,0 +1,126 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Metadata patches against H2's MERGE, with statement counts from Hibernate statistics
+ */
+class BugMetadataPatchTest extends H2ServiceTest {
+
+    private static final int ENTRIES = 300;
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+
+    private Long bugId;
+
+    @BeforeEach
+    void setUp() {
+        Bug bug = new Bug("Crash on save", null, null);
+        for (int i = 0; i < ENTRIES; i++) {
+            bug.addMetadata("key" + i, "value" + i);
+        }
+        bugId = bugService.createBug(bug).getId();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void patchWritesOnlyTheNamedEntries() {
+        // Given
+        Map<String, String> changes = new HashMap<>();
+        changes.put("key1", "changed");
+        changes.put("key2", null);
+        changes.put("added", "new");
+
+        // When
+        Bug patched = bugService.updateBugMetadata(bugId, changes).orElseThrow();
+
+        // Then - the rest of the collection is neither rewritten nor lost
+        assertThat(patched.getMetadata())
+                .hasSize(ENTRIES)
+                .containsEntry("key0", "value0")
+                .containsEntry("key1", "changed")
+                .containsEntry("added", "new")
+                .doesNotContainKey("key2");
+        assertThat(statistics.getCollectionRemoveCount()).isZero();
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        // change sequence, bug stamp, delete, upsert, read back
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(5);
+        assertThat(metadataRows()).isEqualTo(ENTRIES);
+    }
+
+    @Test
+    void patchOfMissingBugWritesNothing() {
+        // When & Then
+        assertThat(bugService.updateBugMetadata(bugId + 1000, Map.of("key", "value"))).isEmpty();
+        assertThat(metadataRows()).isEqualTo(ENTRIES);
+    }
+
+    @Test
+    void concurrentPatchesOfDifferentKeysAreAllKept() {
+        // Given
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        // When - triagers tag the same bug at once
+        try {
+            CompletableFuture<?>[] patches = new CompletableFuture<?>[40];
+            for (int i = 0; i < patches.length; i++) {
+                Map<String, String> change = Map.of("tag" + i, "yes");
+                patches[i] = CompletableFuture.runAsync(() -> bugService.updateBugMetadata(bugId, change), pool);
+            }
+            CompletableFuture.allOf(patches).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        // Then
+        assertThat(metadataRows()).isEqualTo(ENTRIES + 40);
+    }
+
+    @Test
+    void rejectsEntriesOverTheColumnLimits() {
+        assertThatThrownBy(() -> bugService.updateBugMetadata(bugId, Map.of("", "value")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bugService.updateBugMetadata(bugId, Map.of("key", "x".repeat(1025))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long metadataRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bug_metadata WHERE bug_id = ?", Long.class, bugId);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.bugreporter.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BugOccurrenceCounterTest {
+
+    @Mock
+    private BugService bugService;
+
+    private final Map<Long, Long> written = new ConcurrentHashMap<>();
+
+    private BugOccurrenceCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new BugOccurrenceCounter(bugService, 3_600_000);
+    }
+
+    private void recordWrites() {
+        when(bugService.addOccurrences(any())).thenAnswer(invocation -> {
+            SortedMap<Long, Long> counts = invocation.getArgument(0);
+            counts.forEach((id, count) -> written.merge(id, count, Long::sum));
+            return Set.of();
+        });
+    }
+
+    @Test
+    void noIncrementIsLostWhileFlushesRun() throws Exception {
+        // Given
+        recordWrites();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        // When - two hot bugs incremented from every thread while another thread keeps flushing
+        Thread flusher = new Thread(() -> {
+            while (writing.get()) {
+                counter.flush();
+            }
+        });
+        flusher.start();
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    counter.increment(i % 2 == 0 ? 1L : 2L);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        writing.set(false);
+        flusher.join();
+        pool.shutdown();
+        counter.flush();
+
+        // Then
+        assertThat(written).containsEntry(1L, threads * perThread / 2L).containsEntry(2L, threads * perThread / 2L);
+        assertThat(counter.getPending()).isZero();
+        assertThat(counter.getFlushed()).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void flushForgetsTheBugsItWrote() {
+        // Given
+        recordWrites();
+        for (long id = 1; id <= 100; id++) {
+            counter.increment(id);
+        }
+
+        // When
+        counter.flush();
+
+        // Then - nothing is kept for bugs that are not reported again
+        assertThat(written).hasSize(100);
+        assertThat(counter.getTrackedBugs()).isZero();
+        counter.increment(1L);
+        assertThat(counter.getTrackedBugs()).isEqualTo(1);
+    }
+
+    @Test
+    void failedFlushKeepsCountsForTheNextOne() {
+        // Given
+        counter.increment(7L);
+        counter.increment(7L);
+        when(bugService.addOccurrences(any())).thenThrow(new IllegalStateException("database down"));
+
+        // When
+        counter.flush();
+
+        // Then
+        assertThat(counter.getPending()).isEqualTo(2);
+        reset(bugService);
+        recordWrites();
+        counter.increment(7L);
+        counter.flush();
+        assertThat(written).containsExactly(Map.entry(7L, 3L));
+    }
+
+    @Test
+    void stopWritesWhatIsPending() {
+        // Given
+        recordWrites();
+        counter.start();
+        counter.increment(3L);
+
+        // When
+        counter.stop();
+
+        // Then
+        assertThat(written).containsExactly(Map.entry(3L, 1L));
+        assertThat(counter.isRunning()).isFalse();
+    }
+
+    @Test
+    void countsOfDeletedBugsAreDropped() {
+        // Given
+        when(bugService.addOccurrences(any())).thenReturn(Set.of(5L));
+        counter.increment(5L);
+
+        // When
+        counter.flush();
+        counter.flush();
+
+        // Then - the second flush has nothing to write
+        verify(bugService, times(1)).addOccurrences(any());
+        assertThat(counter.getPending()).isZero();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search on H2, which uses the substring fallback instead of the Postgres tsvector index
+ */
+class BugSearchTest extends H2ServiceTest {
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    private Bug titleMatch;
+    private Bug descriptionMatch;
+
+    @BeforeEach
+    void setUp() {
+        descriptionMatch = new Bug("Page is blank", "Happens right after Login on Safari", null);
+        titleMatch = new Bug("Login fails on Safari", "Spinner never stops", null);
+        Bug unrelated = new Bug("Typo in footer", "Copyright year is wrong", null);
+        Bug wildcard = new Bug("Discount shows 100%", "Rounding error", null);
+        bugRepository.saveAll(List.of(descriptionMatch, titleMatch, unrelated, wildcard));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() {
+        // When
+        BugSearchPage page = bugService.searchBugs("login", 0, 10);
+
+        // Then
+        assertThat(page.getBugs()).extracting(Bug::getId)
+                .containsExactly(titleMatch.getId(), descriptionMatch.getId());
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        // When
+        BugSearchPage page = bugService.searchBugs("safari spinner", 0, 10);
+
+        // Then
+        assertThat(page.getBugs()).extracting(Bug::getId).containsExactly(titleMatch.getId());
+    }
+
+    @Test
+    void likeWildcardsInTheQueryAreLiteral() {
+        // When
+        BugSearchPage percent = bugService.searchBugs("100%", 0, 10);
+        BugSearchPage underscore = bugService.searchBugs("_", 0, 10);
+
+        // Then
+        assertThat(percent.getBugs()).extracting(Bug::getTitle).containsExactly("Discount shows 100%");
+        assertThat(underscore.getBugs()).isEmpty();
+    }
+
+    @Test
+    void pagesByOffset() {
+        // When
+        BugSearchPage first = bugService.searchBugs("safari", 0, 1);
+        BugSearchPage second = bugService.searchBugs("safari", first.getNextOffset(), 1);
+
+        // Then
+        assertThat(first.getBugs()).extracting(Bug::getId).containsExactly(titleMatch.getId());
+        assertThat(first.getNextOffset()).isEqualTo(1);
+        assertThat(second.getBugs()).extracting(Bug::getId).containsExactly(descriptionMatch.getId());
+        assertThat(second.hasNext()).isFalse();
+    }
+}
@@ -2,21 +2,32 @@ package com.example.bugreporter.service;
 
 import com.example.bugreporter.Bug;
 import com.example.bugreporter.BugRepository;
+import com.example.bugreporter.BugTombstone;
+import com.example.bugreporter.BugTombstoneRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +36,15 @@ class BugServiceTest {
     @Mock
     private BugRepository bugRepository;
 
+    @Mock
+    private BugTombstoneRepository tombstoneRepository;
+
+    @Spy
+    private BugCache bugCache = new BugCache(100, 60);
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BugService bugService;
 
@@ -52,6 +72,64 @@ class BugServiceTest {
         verify(bugRepository).findAllByOrderByCreatedAtDesc();
     }
 
+    @Test
+    void getBugsPage() {
+        // Given - one row more than requested signals another page
+        Bug second = new Bug("Second", "Older", null);
+        second.setId(2L);
+        second.setCreatedAt(testBug.getCreatedAt().minusMinutes(1));
+        Bug third = new Bug("Third", "Oldest", null);
+        third.setId(3L);
+        third.setCreatedAt(testBug.getCreatedAt().minusMinutes(2));
+        when(bugRepository.findFirstPageIds(any(Pageable.class))).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(bugRepository.findAllWithMetadataByIdIn(Arrays.asList(1L, 2L)))
+                .thenReturn(Arrays.asList(second, testBug));
+
+        // When
+        BugPage page = bugService.getBugsPage(null, 2);
+
+        // Then
+        assertThat(page.getBugs()).containsExactly(testBug, second); // keyset order, not load order
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.getNextCursor().getId()).isEqualTo(2L);
+        assertThat(page.getNextCursor().getSortValue()).isEqualTo(second.getCreatedAt());
+        verify(bugRepository).findFirstPageIds(PageRequest.of(0, 3));
+    }
+
+    @Test
+    void getBugsPageAfterCursor() {
+        // Given
+        BugCursor cursor = BugCursor.after(testBug);
+        when(bugRepository.findPageIdsAfter(eq(testBug.getCreatedAt()), eq(1L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        // When
+        BugPage page = bugService.getBugsPage(cursor, 10);
+
+        // Then
+        assertThat(page.getBugs()).isEmpty();
+        assertThat(page.hasNext()).isFalse();
+        verify(bugRepository, never()).findFirstPageIds(any(Pageable.class));
+        verify(bugRepository, never()).findAllWithMetadataByIdIn(any());
+    }
+
+    @Test
+    void searchBugs() {
+        // Given - ranked ids, one more than the page
+        Bug second = new Bug("Second", null, null);
+        second.setId(2L);
+        when(bugRepository.searchIds("login", 0, 3)).thenReturn(Arrays.asList(2L, 1L, 3L));
+        when(bugRepository.findAllWithMetadataByIdIn(Arrays.asList(2L, 1L)))
+                .thenReturn(Arrays.asList(testBug, second));
+
+        // When
+        BugSearchPage page = bugService.searchBugs("login", 0, 2);
+
+        // Then
+        assertThat(page.getBugs()).containsExactly(second, testBug); // rank order, not load order
+        assertThat(page.getNextOffset()).isEqualTo(2);
+    }
+
     @Test
     void getBugsByStatus() {
         // Given
@@ -69,8 +147,8 @@ class BugServiceTest {
     @Test
     void getBugById() {
         // Given
-        when(bugRepository.findById(1L)).thenReturn(Optional.of(testBug));
-        when(bugRepository.findById(2L)).thenReturn(Optional.empty());
+        when(bugRepository.findWithMetadataById(1L)).thenReturn(Optional.of(testBug));
+        when(bugRepository.findWithMetadataById(2L)).thenReturn(Optional.empty());
 
         // When
         Optional<Bug> foundBug = bugService.getBugById(1L);
@@ -80,8 +158,45 @@ class BugServiceTest {
         assertThat(foundBug).isPresent();
         assertThat(foundBug.get()).isEqualTo(testBug);
         assertThat(notFoundBug).isEmpty();
-        verify(bugRepository).findById(1L);
-        verify(bugRepository).findById(2L);
+        verify(bugRepository).findWithMetadataById(1L);
+        verify(bugRepository).findWithMetadataById(2L);
+    }
+
+    @Test
+    void getBugByIdServedFromCacheUntilWrite() {
+        // Given
+        when(bugRepository.findWithMetadataById(1L)).thenReturn(Optional.of(testBug));
+        when(bugRepository.findById(1L)).thenReturn(Optional.of(testBug));
+        when(bugRepository.save(any(Bug.class))).thenReturn(testBug);
+
+        // When - two reads, a write, another read
+        bugService.getBugById(1L);
+        bugService.getBugById(1L);
+        Bug statusChange = new Bug();
+        statusChange.setStatus(Bug.Status.CLOSED);
+        bugService.updateBug(1L, statusChange);
+        Optional<Bug> afterWrite = bugService.getBugById(1L);
+
+        // Then - the write forced a reload
+        assertThat(afterWrite.get().getStatus()).isEqualTo(Bug.Status.CLOSED);
+        verify(bugRepository, times(2)).findWithMetadataById(1L);
+        assertThat(bugCache.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void getBugVersion() {
+        // Given
+        LocalDateTime stored = testBug.getUpdatedAt().minusSeconds(5);
+        when(bugRepository.findUpdatedAtById(1L)).thenReturn(Optional.of(stored));
+        when(bugRepository.findWithMetadataById(1L)).thenReturn(Optional.of(testBug));
+
+        // When & Then - not cached: single-column lookup
+        assertThat(bugService.getBugVersion(1L)).contains(stored);
+
+        // When & Then - cached: no query at all
+        bugService.getBugById(1L);
+        assertThat(bugService.getBugVersion(1L)).contains(testBug.getUpdatedAt());
+        verify(bugRepository, times(1)).findUpdatedAtById(1L);
     }
 
     @Test
@@ -97,6 +212,24 @@ class BugServiceTest {
         verify(bugRepository).save(testBug);
     }
 
+    @Test
+    void createBugs() {
+        // Given
+        List<Bug> bugs = Arrays.asList(testBug, new Bug("Another", null, null));
+        when(bugRepository.saveAll(bugs)).thenReturn(bugs);
+        when(bugRepository.nextChangeSeq()).thenReturn(11L);
+
+        // When
+        List<Bug> created = bugService.createBugs(bugs);
+
+        // Then
+        assertThat(created).hasSize(2);
+        assertThat(created).extracting(Bug::getChangeSeq).containsOnly(11L);
+        verify(bugRepository).nextChangeSeq(); // one sequence value per batch, not per bug
+        verify(bugRepository).saveAll(bugs);
+        verify(bugRepository, never()).save(any(Bug.class));
+    }
+
     @Test
     void updateBug() {
         // Given
@@ -133,12 +266,56 @@ class BugServiceTest {
         verify(bugRepository).save(any(Bug.class));
     }
 
+    @Test
+    void updateBugMetadata() {
+        // Given
+        Map<String, String> changes = new HashMap<>();
+        changes.put("newKey", "newValue");
+        changes.put("staleKey", null);
+        when(bugRepository.markUpdated(eq(1L), any(LocalDateTime.class), anyLong())).thenReturn(1);
+        Bug written = new Bug("Test Bug", "This is a test", null);
+        written.setId(1L);
+        written.addMetadata("initialKey", "initialValue");
+        written.addMetadata("newKey", "newValue");
+        when(bugRepository.findWithMetadataById(1L)).thenReturn(Optional.of(written));
+
+        // When
+        Optional<Bug> result = bugService.updateBugMetadata(1L, changes);
+
+        // Then - only the named entries are written, and the collection is never loaded for writing
+        assertThat(result).isPresent();
+        assertThat(result.get().getMetadata())
+                .containsEntry("initialKey", "initialValue")
+                .containsEntry("newKey", "newValue");
+        verify(bugRepository).upsertMetadata(1L, Map.of("newKey", "newValue"));
+        verify(bugRepository).deleteMetadata(1L, List.of("staleKey"));
+        verify(bugRepository, never()).findById(any());
+        verify(bugRepository, never()).save(any(Bug.class));
+        verify(eventPublisher).publishEvent(any(BugChangeEvent.class));
+    }
+
+    @Test
+    void updateBugMetadataOfMissingBug() {
+        // Given
+        when(bugRepository.markUpdated(eq(2L), any(LocalDateTime.class), anyLong())).thenReturn(0);
+
+        // When
+        Optional<Bug> result = bugService.updateBugMetadata(2L, Map.of("key", "value"));
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(bugRepository, never()).upsertMetadata(any(), any());
+        verify(eventPublisher, never()).publishEvent(any(BugChangeEvent.class));
+    }
+
     @Test
     void deleteBug() {
         // Given
-        when(bugRepository.existsById(1L)).thenReturn(true);
-        when(bugRepository.existsById(2L)).thenReturn(false);
-        doNothing().when(bugRepository).deleteById(any(Long.class));
+        when(bugRepository.findById(1L)).thenReturn(Optional.of(testBug));
+        when(bugRepository.findById(2L)).thenReturn(Optional.empty());
+        BugTombstone tombstone = mock(BugTombstone.class);
+        when(tombstone.getChangeSeq()).thenReturn(12L);
+        when(tombstoneRepository.save(any(BugTombstone.class))).thenReturn(tombstone);
 
         // When
         boolean existingDeleted = bugService.deleteBug(1L);
@@ -148,10 +325,115 @@ class BugServiceTest {
         assertThat(existingDeleted).isTrue();
         assertThat(nonExistingDeleted).isFalse();
         
-        verify(bugRepository).existsById(1L);
-        verify(bugRepository).existsById(2L);
-        verify(bugRepository).deleteById(1L);
-        verify(bugRepository, never()).deleteById(2L);
+        verify(bugRepository).findById(1L);
+        verify(bugRepository).findById(2L);
+        verify(bugRepository, times(1)).delete(any(Bug.class));
+        verify(bugRepository).delete(testBug);
+        verify(tombstoneRepository, times(1)).save(any(BugTombstone.class));
+        ArgumentCaptor<BugChangeEvent> event = ArgumentCaptor.forClass(BugChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getType()).isEqualTo(BugChangeEvent.Type.DELETED);
+        assertThat(event.getValue().getBugId()).isEqualTo(1L);
+        assertThat(event.getValue().getChangeSeq()).isEqualTo(12L);
+        assertThat(event.getValue().getBug().getStatus()).isEqualTo(Bug.Status.OPEN); // last state, for stats
+    }
+
+    @Test
+    void updateBugPublishesOneEventPerKindOfChange() {
+        // Given
+        testBug.setPriority(Bug.Priority.LOW);
+        when(bugRepository.findById(1L)).thenReturn(Optional.of(testBug));
+        when(bugRepository.save(any(Bug.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Bug change = new Bug();
+        change.setStatus(Bug.Status.IN_PROGRESS);
+        change.setPriority(Bug.Priority.HIGH);
+
+        // When
+        bugService.updateBug(1L, change);
+
+        // Then
+        ArgumentCaptor<BugChangeEvent> events = ArgumentCaptor.forClass(BugChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        BugChangeEvent statusChanged = events.getAllValues().get(0);
+        assertThat(statusChanged.getType()).isEqualTo(BugChangeEvent.Type.STATUS_CHANGED);
+        assertThat(statusChanged.getPreviousStatus()).isEqualTo(Bug.Status.OPEN);
+        assertThat(statusChanged.getBug().getStatus()).isEqualTo(Bug.Status.IN_PROGRESS);
+        assertThat(statusChanged.getBug()).isNotSameAs(testBug); // detached copy, safe after commit
+        BugChangeEvent priorityChanged = events.getAllValues().get(1);
+        assertThat(priorityChanged.getType()).isEqualTo(BugChangeEvent.Type.PRIORITY_CHANGED);
+        assertThat(priorityChanged.getPreviousPriority()).isEqualTo(Bug.Priority.LOW);
+        assertThat(statusChanged.getPreviousPriority()).isEqualTo(Bug.Priority.LOW);
+    }
+
+    @Test
+    void updateBugAdvancesChangeSeq() {
+        // Given
+        testBug.setChangeSeq(3L);
+        when(bugRepository.findById(1L)).thenReturn(Optional.of(testBug));
+        when(bugRepository.nextChangeSeq()).thenReturn(7L);
+        when(bugRepository.save(any(Bug.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Bug statusChange = new Bug();
+        statusChange.setStatus(Bug.Status.CLOSED);
+
+        // When
+        Optional<Bug> result = bugService.updateBug(1L, statusChange);
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().getChangeSeq()).isEqualTo(7L);
+    }
+
+    @Test
+    void getChangesMergesUpdatesAndTombstonesInSequenceOrder() {
+        // Given - bug 1 at change 4, bug 5 deleted at change 5, bug 2 at change 6
+        LocalDateTime settled = LocalDateTime.now().minusMinutes(1);
+        testBug.setChangeSeq(4L);
+        testBug.setUpdatedAt(settled);
+        Bug second = new Bug("Second", null, null);
+        second.setId(2L);
+        second.setChangeSeq(6L);
+        second.setUpdatedAt(settled);
+        BugTombstone tombstone = mock(BugTombstone.class);
+        when(tombstone.getChangeSeq()).thenReturn(5L);
+        when(tombstone.getBugId()).thenReturn(5L);
+        when(tombstone.getDeletedAt()).thenReturn(settled);
+        when(bugRepository.findIdsChangedAfter(eq(3L), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(Arrays.asList(1L, 2L));
+        when(bugRepository.findAllWithMetadataByIdIn(Arrays.asList(1L, 2L)))
+                .thenReturn(Arrays.asList(second, testBug));
+        when(tombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeqAsc(eq(3L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(tombstone));
+
+        // When - the limit stops the page after the tombstone
+        BugChanges changes = bugService.getChanges(ChangeToken.afterTombstone(3L), 2);
+
+        // Then
+        assertThat(changes.getChanged()).containsExactly(testBug);
+        assertThat(changes.getDeleted()).containsExactly(5L);
+        assertThat(changes.isHasMore()).isTrue();
+        ChangeToken next = ChangeToken.decode(changes.getNextToken());
+        assertThat(next.getChangeSeq()).isEqualTo(5L);
+        assertThat(next.getBugId()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void getChangesHoldsTokenBeforeUnsettledChanges() {
+        // Given - a change from just now may still have lower-numbered writers in flight
+        testBug.setChangeSeq(9L);
+        testBug.setUpdatedAt(LocalDateTime.now());
+        when(bugRepository.findIdsChangedAfter(eq(8L), eq(1L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(1L));
+        when(bugRepository.findAllWithMetadataByIdIn(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(testBug));
+        ChangeToken since = new ChangeToken(8L, 1L);
+
+        // When
+        BugChanges changes = bugService.getChanges(since, 50);
+
+        // Then - the change is delivered, but will be delivered again next time
+        assertThat(changes.getChanged()).containsExactly(testBug);
+        assertThat(changes.isHasMore()).isFalse();
+        assertThat(changes.getNextToken()).isEqualTo(since.encode());
     }
 
     @Test
@@ -0,0 +1,83 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Incremental stats against a real count of the table, on H2
+ */
+class BugStatsCountersTest extends H2ServiceTest {
+
+    @Autowired
+    private BugStatsCounters counters;
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    @BeforeEach
+    void setUp() {
+        counters.reconcile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+        bugRepository.flush();
+    }
+
+    @Test
+    void countersFollowEveryServiceWrite() {
+        // Given
+        bugService.createBug(new Bug("Kept", null, null, Bug.Priority.LOW));
+        Bug moved = bugService.createBug(new Bug("Moved", null, null, Bug.Priority.LOW));
+        Bug deleted = bugService.createBug(new Bug("Deleted", null, null, Bug.Priority.HIGH));
+
+        // When - status and priority change in one write, then a delete
+        Bug change = new Bug();
+        change.setStatus(Bug.Status.IN_PROGRESS);
+        change.setPriority(Bug.Priority.CRITICAL);
+        bugService.updateBug(moved.getId(), change);
+        bugService.deleteBug(deleted.getId());
+
+        // Then
+        BugStats stats = counters.getStats();
+        assertThat(stats.getTotal()).isEqualTo(2);
+        assertThat(stats.getByStatusAndPriority().get(Bug.Status.OPEN).get(Bug.Priority.LOW)).isEqualTo(1);
+        assertThat(stats.getByStatusAndPriority().get(Bug.Status.IN_PROGRESS).get(Bug.Priority.CRITICAL))
+                .isEqualTo(1);
+        assertThat(stats.getByStatusAndPriority().get(Bug.Status.OPEN).get(Bug.Priority.HIGH)).isZero();
+        assertThat(stats.getCreatedPerDay().get(LocalDate.now())).isEqualTo(2);
+        assertThat(stats.getCreatedPerDay().lastKey()).isEqualTo(LocalDate.now());
+
+        BugStats counted = bugService.countBugs(stats.getCreatedPerDay().firstKey(), LocalDate.now());
+        assertThat(stats.getByStatusAndPriority()).isEqualTo(counted.getByStatusAndPriority());
+        assertThat(stats.getCreatedPerDay()).isEqualTo(counted.getCreatedPerDay());
+    }
+
+    @Test
+    void reconciliationRepairsWritesThatBypassedTheService() {
+        // Given - rows the counters never heard about
+        bugRepository.save(new Bug("Imported", null, null, Bug.Priority.MEDIUM));
+        assertThat(counters.getStats().getTotal()).isZero();
+
+        // When
+        counters.reconcile();
+
+        // Then
+        BugStats stats = counters.getStats();
+        assertThat(stats.getTotal()).isEqualTo(1);
+        assertThat(stats.getByStatusAndPriority().get(Bug.Status.OPEN).get(Bug.Priority.MEDIUM)).isEqualTo(1);
+        assertThat(stats.getReconciledAt()).isNotNull();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.bugreporter.service;
+
+import com.example.bugreporter.Bug;
+import com.example.bugreporter.BugRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Version checks and targeted status/priority updates, on H2
+ */
+class BugTriageUpdateTest extends H2ServiceTest {
+
+    @Autowired
+    private BugService bugService;
+
+    @Autowired
+    private BugRepository bugRepository;
+
+    private Bug bug;
+
+    @BeforeEach
+    void setUp() {
+        bug = bugService.createBug(new Bug("Checkout hangs", null, null, Bug.Priority.MEDIUM));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bugRepository.deleteAll();
+    }
+
+    @Test
+    void everyWriteRaisesTheVersion() {
+        // Given
+        assertThat(bug.getVersion()).isZero();
+
+        // When
+        Bug triaged = bugService.updateTriage(bug.getId(), Bug.Status.IN_PROGRESS, null, 0L).orElseThrow();
+        Bug tagged = bugService.updateBugMetadata(bug.getId(), Map.of("team", "payments")).orElseThrow();
+        Bug unchanged = bugService.updateTriage(bug.getId(), Bug.Status.IN_PROGRESS, null, null).orElseThrow();
+
+        // Then - setting the status it already has writes nothing
+        assertThat(triaged.getVersion()).isEqualTo(1);
+        assertThat(tagged.getVersion()).isEqualTo(2);
+        assertThat(unchanged.getVersion()).isEqualTo(2);
+        assertThat(unchanged.getStatus()).isEqualTo(Bug.Status.IN_PROGRESS);
+    }
+
+    @Test
+    void staleVersionIsAConflictWithTheCurrentBug() {
+        // Given - someone else raised the priority since version 0 was read
+        bugService.updateTriage(bug.getId(), null, Bug.Priority.HIGH, 0L);
+
+        // When & Then
+        assertThatThrownBy(() -> bugService.updateTriage(bug.getId(), Bug.Status.CLOSED, null, 0L))
+                .isInstanceOfSatisfying(BugVersionConflictException.class, conflict -> {
+                    assertThat(conflict.getCurrent().getVersion()).isEqualTo(1);
+                    assertThat(conflict.getCurrent().getPriority()).isEqualTo(Bug.Priority.HIGH);
+                });
+        assertThat(bugRepository.findById(bug.getId())).get()
+                .extracting(Bug::getStatus).isEqualTo(Bug.Status.OPEN);
+        assertThat(bugService.updateTriage(bug.getId() + 1000, Bug.Status.CLOSED, null, null)).isEmpty();
+    }
+
+    @Test
+    void concurrentStatusAndPriorityChangesAreBothKept() throws Exception {
+        // Given
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When - two triagers change different fields at once, without versions
+        try {
+            CompletableFuture<?> status = CompletableFuture.runAsync(() -> {
+                await(start);
+                bugService.updateTriage(bug.getId(), Bug.Status.CLOSED, null, null);
+            }, pool);
+            CompletableFuture<?> priority = CompletableFuture.runAsync(() -> {
+                await(start);
+                bugService.updateTriage(bug.getId(), null, Bug.Priority.CRITICAL, null);
+            }, pool);
+            start.countDown();
+            CompletableFuture.allOf(status, priority).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        // Then
+        Bug stored = bugRepository.findById(bug.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(Bug.Status.CLOSED);
+        assertThat(stored.getPriority()).isEqualTo(Bug.Priority.CRITICAL);
+        assertThat(stored.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void entityWriteAfterATargetedUpdateFailsInsteadOfOverwriting() {
+        // Given - a whole-entity save of a copy read before the status changed
+        Bug stale = bugRepository.findById(bug.getId()).orElseThrow();
+        bugService.updateTriage(bug.getId(), Bug.Status.CLOSED, null, null);
+        stale.setTitle("Checkout hangs on submit");
+
+        // When & Then
+        assertThatThrownBy(() -> bugRepository.save(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(bugRepository.findById(bug.getId())).get()
+                .extracting(Bug::getStatus).isEqualTo(Bug.Status.CLOSED);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bugreporter.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionGateTest {
+
+    @Test
+    void neverLetsMoreThanThePermitsThrough() throws Exception {
+        // Given
+        ConnectionGate gate = new ConnectionGate(4, 10_000);
+        AtomicInteger holding = new AtomicInteger();
+        AtomicInteger mostHolding = new AtomicInteger();
+        int callers = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When - every caller takes a permit at once and holds it briefly
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                gate.acquire();
+                try {
+                    mostHolding.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                    Thread.sleep(2);
+                    holding.decrementAndGet();
+                } finally {
+                    gate.release();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+
+        // Then - the rest queued at the gate, and their waits were recorded
+        assertThat(mostHolding.get()).isEqualTo(4);
+        ConnectionGate.GateStats stats = gate.getStats();
+        assertThat(stats.getAcquired()).isEqualTo(callers);
+        assertThat(stats.getInUse()).isZero();
+        assertThat(stats.getWaiting()).isZero();
+        assertThat(stats.getTimeouts()).isZero();
+        assertThat(stats.getMaxWaitMicros()).isPositive();
+        assertThat(stats.getP99WaitMicros()).isPositive();
+    }
+
+    @Test
+    void givesUpAfterTheTimeout() throws Exception {
+        // Given - the only permit is taken
+        ConnectionGate gate = new ConnectionGate(1, 50);
+        gate.acquire();
+
+        // When & Then
+        assertThatThrownBy(gate::acquire).isInstanceOf(SQLTransientConnectionException.class);
+        ConnectionGate.GateStats stats = gate.getStats();
+        assertThat(stats.getTimeouts()).isEqualTo(1);
+        assertThat(stats.getAcquired()).isEqualTo(1);
+        assertThat(stats.getInUse()).isEqualTo(1);
+        assertThat(stats.getMaxWaitMicros()).isGreaterThanOrEqualTo(50_000);
+
+        // And the permit is usable again once released
+        gate.release();
+        gate.acquire();
+        assertThat(gate.getStats().getAcquired()).isEqualTo(2);
+    }
+}
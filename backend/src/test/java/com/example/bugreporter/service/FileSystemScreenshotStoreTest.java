@@ -0,0 +1,81 @@
+package com.example.bugreporter.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemScreenshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storesTheSameImageOnce() throws Exception {
+        // Given
+        FileSystemScreenshotStore store = new FileSystemScreenshotStore(dir.toString());
+        byte[] image = new byte[200_000];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) (i * 31);
+        }
+
+        // When - the same screenshot is attached to 500 duplicate reports
+        String first = store.put(new ByteArrayInputStream(image), image.length);
+        for (int i = 1; i < 500; i++) {
+            assertThat(store.put(new ByteArrayInputStream(image), image.length)).isEqualTo(first);
+        }
+        String other = store.put(new ByteArrayInputStream(new byte[] {1, 2, 3}), image.length);
+
+        // Then - one file per distinct image, named by its SHA-256, and no leftovers
+        assertThat(first).matches("[0-9a-f]{64}").isNotEqualTo(other);
+        assertThat(storedFiles()).hasSize(2);
+        assertThat(storedFiles()).contains(dir.resolve(first.substring(0, 2)).resolve(first.substring(2, 4)).resolve(first));
+        assertThat(store.find(first).orElseThrow().size()).isEqualTo(image.length);
+    }
+
+    @Test
+    void rejectsOversizedUploadsWithoutStoringThem() throws Exception {
+        // Given
+        FileSystemScreenshotStore store = new FileSystemScreenshotStore(dir.toString());
+
+        // When & Then
+        assertThatThrownBy(() -> store.put(new ByteArrayInputStream(new byte[1025]), 1024))
+                .isInstanceOf(ScreenshotTooLargeException.class);
+        assertThat(storedFiles()).isEmpty();
+        assertThat(store.put(new ByteArrayInputStream(new byte[1024]), 1024)).isNotNull();
+    }
+
+    @Test
+    void transfersRequestedRange() throws Exception {
+        // Given
+        FileSystemScreenshotStore store = new FileSystemScreenshotStore(dir.toString());
+        String hash = store.put(new ByteArrayInputStream("0123456789".getBytes()), 100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        ScreenshotStore.Blob blob = store.find(hash).orElseThrow();
+        blob.transferTo(3, 4, Channels.newChannel(out));
+
+        // Then
+        assertThat(out.toString()).isEqualTo("3456");
+        assertThat(blob.file()).isPresent();
+        assertThat(store.find("../../etc/passwd")).isEmpty();
+        assertThat(store.find("0".repeat(64))).isEmpty();
+    }
+
+    // Every regular file under the store, temporary uploads included
+    private List<Path> storedFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bugreporter.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Application context shared by the service tests that run against H2. Keep overrides
+ * here rather than on the test classes: every distinct set of properties starts another
+ * context, with its own connection pool and background threads. Each test class
+ * deletes what it wrote, since they all use the same database.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:services",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Several batches and fetches out of a handful of rows
+        "bugreporter.import.batch-size=2",
+        "bugreporter.export.fetch-size=2",
+        // Tests flush and reconcile explicitly
+        "bugreporter.dedup.flush-ms=3600000",
+        "bugreporter.stats.reconcile-seconds=3600",
+        "bugreporter.idempotency.wait-ms=200"
+})
+abstract class H2ServiceTest {
+}
@@ -0,0 +1,105 @@
+package com.example.bugreporter.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScreenshotThumbnailsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void generatesOneThumbnailPerScreenshot() throws Exception {
+        // Given
+        FileSystemScreenshotStore store = new FileSystemScreenshotStore(dir.toString());
+        String hash = store.put(new ByteArrayInputStream(png(1920, 1080)), Long.MAX_VALUE);
+        ScreenshotThumbnails thumbnails = new ScreenshotThumbnails(store, 2, 100, 320, 50_000_000);
+        thumbnails.start();
+
+        // When - the same screenshot is attached to many duplicate reports at once
+        try {
+            for (int i = 0; i < 500; i++) {
+                assertThat(thumbnails.submit(hash)).isTrue();
+            }
+            awaitIdle(thumbnails);
+            thumbnails.submit(hash);
+            awaitIdle(thumbnails);
+        } finally {
+            thumbnails.stop();
+        }
+
+        // Then - one thumbnail, generated once and scaled to fit
+        ScreenshotThumbnails.ThumbnailStats stats = thumbnails.getStats();
+        assertThat(stats.getGenerated()).isEqualTo(1);
+        assertThat(stats.getFailed()).isZero();
+        assertThat(stats.getAccepted() + stats.getDeduplicated()).isEqualTo(501);
+        ScreenshotStore.Blob thumbnail = store.findThumbnail(hash).orElseThrow();
+        try (InputStream in = thumbnail.openStream()) {
+            BufferedImage image = ImageIO.read(in);
+            assertThat(image.getWidth()).isEqualTo(320);
+            assertThat(image.getHeight()).isEqualTo(180);
+        }
+    }
+
+    @Test
+    void neverScalesUpAndRejectsHugeImages() throws Exception {
+        // Given
+        FileSystemScreenshotStore store = new FileSystemScreenshotStore(dir.toString());
+        ScreenshotStore.Blob small = store.find(store.put(new ByteArrayInputStream(png(100, 40)), Long.MAX_VALUE))
+                .orElseThrow();
+        ScreenshotStore.Blob large = store.find(store.put(new ByteArrayInputStream(png(3000, 3000)), Long.MAX_VALUE))
+                .orElseThrow();
+
+        // When
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(ScreenshotThumbnails.render(small, 320, 1_000_000)));
+
+        // Then
+        assertThat(thumbnail.getWidth()).isEqualTo(100);
+        assertThat(thumbnail.getHeight()).isEqualTo(40);
+        assertThatThrownBy(() -> ScreenshotThumbnails.render(large, 320, 1_000_000))
+                .hasMessageContaining("3000x3000");
+    }
+
+    @Test
+    void rejectsWorkWhenStopped() {
+        // Given
+        ScreenshotThumbnails thumbnails = new ScreenshotThumbnails(null, 1, 1, 320, 50_000_000);
+
+        // When & Then
+        assertThat(thumbnails.submit("ab".repeat(32))).isFalse();
+        assertThat(thumbnails.getStats().getRejected()).isEqualTo(1);
+    }
+
+    private static void awaitIdle(ScreenshotThumbnails thumbnails) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (thumbnails.pending() == 0) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Thumbnail workers did not finish");
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -7,7 +7,7 @@ import { useBugs } from './hooks/useBugs';
 import { CUSTOM_CONFIG } from './components/BugReporterConfig';
 
 function App() {
-  const { bugs, loading, error, addBug, removeBug, loadBugs } = useBugs();
+  const { bugs, loading, error, hasMore, addBug, removeBug, loadBugs, loadMore } = useBugs();
   const [showMetadataView, setShowMetadataView] = useState(false);
 
   // Handle successful submission from BugReporter
@@ -53,6 +53,8 @@ function App() {
           loading={loading} 
           error={error} 
           onDelete={removeBug} 
+          hasMore={hasMore}
+          onLoadMore={loadMore}
         />
       </div>
     </Layout>
@@ -1,11 +1,32 @@
 import axios from 'axios';
-import type { Bug, CreateBugRequest, UpdateStatusRequest } from '../types/bug';
+import type {
+  Bug,
+  BugChangeEvent,
+  BugChangeType,
+  BugListQuery,
+  BugPage,
+  BugStats,
+  CreateBugRequest,
+  UpdateStatusRequest
+} from '../types/bug';
 
 const API_URL = 'http://localhost:8080/api/bugs';
 
-export const fetchBugs = async (): Promise<Bug[]> => {
-  const response = await axios.get<Bug[]>(API_URL);
-  return response.data;
+// Filtering happens on the server; multi-valued filters are sent comma-separated.
+// The list is paged; pass the returned nextCursor as `after` for the next page.
+export const fetchBugs = async (query: BugListQuery = {}): Promise<BugPage> => {
+  const params: Record<string, string | number> = {};
+  Object.entries(query).forEach(([name, value]) => {
+    if (Array.isArray(value)) {
+      if (value.length > 0) {
+        params[name] = value.join(',');
+      }
+    } else if (value !== undefined) {
+      params[name] = value;
+    }
+  });
+  const response = await axios.get<Bug[]>(API_URL, { params });
+  return { bugs: response.data, nextCursor: response.headers['x-next-cursor'] ?? null };
 };
 
 export const fetchBugById = async (id: number): Promise<Bug> => {
@@ -13,6 +34,12 @@ export const fetchBugById = async (id: number): Promise<Bug> => {
   return response.data;
 };
 
+// Aggregates maintained by the server, so dashboards don't need the full list
+export const fetchBugStats = async (): Promise<BugStats> => {
+  const response = await axios.get<BugStats>(`${API_URL}/stats`);
+  return response.data;
+};
+
 export const createBug = async (bug: CreateBugRequest): Promise<Bug> => {
   const response = await axios.post<Bug>(API_URL, bug);
   return response.data;
@@ -25,4 +52,43 @@ export const updateBugStatus = async (id: number, statusRequest: UpdateStatusReq
 
 export const deleteBug = async (id: number): Promise<void> => {
   await axios.delete(`${API_URL}/${id}`);
-}; 
\ No newline at end of file
+}; 
+
+const CHANGE_TYPES: BugChangeType[] = [
+  'CREATED',
+  'UPDATED',
+  'STATUS_CHANGED',
+  'PRIORITY_CHANGED',
+  'METADATA_CHANGED',
+  'DELETED'
+];
+
+/**
+ * Subscribes to the server's change feed. onReconnect fires when the stream comes back
+ * after a drop, since events sent in between are lost. Returns a function that closes it.
+ */
+export const subscribeToBugChanges = (
+  onChange: (event: BugChangeEvent) => void,
+  onReconnect: () => void
+): (() => void) => {
+  if (typeof EventSource === 'undefined') {
+    return () => {};
+  }
+  const source = new EventSource(`${API_URL}/stream`);
+  let dropped = false;
+  CHANGE_TYPES.forEach(type => {
+    source.addEventListener(type, event => {
+      onChange(JSON.parse((event as MessageEvent<string>).data) as BugChangeEvent);
+    });
+  });
+  source.onerror = () => {
+    dropped = true;
+  };
+  source.onopen = () => {
+    if (dropped) {
+      dropped = false;
+      onReconnect();
+    }
+  };
+  return () => source.close();
+};
@@ -6,9 +6,11 @@ interface BugListProps {
   loading: boolean;
   error: string | null;
   onDelete: (id: number) => Promise<boolean>;
+  hasMore?: boolean;
+  onLoadMore?: () => void;
 }
 
-export const BugList = ({ bugs, loading, error, onDelete }: BugListProps) => {
+export const BugList = ({ bugs, loading, error, onDelete, hasMore = false, onLoadMore }: BugListProps) => {
   if (loading) {
     return (
       <div className="flex justify-center items-center py-8">
@@ -107,6 +109,14 @@ export const BugList = ({ bugs, loading, error, onDelete }: BugListProps) => {
               rel="noopener noreferrer"
               className="mt-2 inline-block text-sm text-blue-600 hover:underline"
             >
+              {bug.thumbnailUrl && (
+                <img
+                  src={bug.thumbnailUrl}
+                  alt=""
+                  loading="lazy"
+                  className="mb-1 block max-h-40 rounded border border-gray-200"
+                />
+              )}
               View Screenshot
             </a>
           )}
@@ -127,6 +137,16 @@ export const BugList = ({ bugs, loading, error, onDelete }: BugListProps) => {
           )}
         </div>
       ))}
+      {hasMore && onLoadMore && (
+        <div className="flex justify-center">
+          <button
+            onClick={onLoadMore}
+            className="px-4 py-2 text-sm text-blue-600 border border-blue-600 rounded hover:bg-blue-50"
+          >
+            Load more
+          </button>
+        </div>
+      )}
     </div>
   );
 }; 
\ No newline at end of file
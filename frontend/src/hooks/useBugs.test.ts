@@ -3,13 +3,14 @@ import { renderHook, waitFor, act } from '@testing-library/react';
 import { useBugs } from './useBugs';
 import * as bugApi from '../api/bugApi';
 import { mockBugs } from '../test/mocks/handlers';
-import type {Bug, CreateBugRequest} from '../types/bug';
+import type {Bug, BugChangeEvent, CreateBugRequest} from '../types/bug';
 
 // Mock the API module
 vi.mock('../api/bugApi', () => ({
   fetchBugs: vi.fn(),
   createBug: vi.fn(),
   deleteBug: vi.fn(),
+  subscribeToBugChanges: vi.fn(),
 }));
 
 describe('useBugs Hook', () => {
@@ -18,7 +19,7 @@ describe('useBugs Hook', () => {
   });
   
   it('should fetch bugs on mount', async () => {
-    const mockFetchBugs = vi.mocked(bugApi.fetchBugs).mockResolvedValue(mockBugs);
+    const mockFetchBugs = vi.mocked(bugApi.fetchBugs).mockResolvedValue({ bugs: mockBugs, nextCursor: null });
     
     const { result } = renderHook(() => useBugs());
     
@@ -34,6 +35,28 @@ describe('useBugs Hook', () => {
     expect(result.current.error).toBeNull();
   });
   
+  it('should load the next page on demand', async () => {
+    const older: Bug = { ...mockBugs[2], id: 9, title: 'Older bug' };
+    vi.mocked(bugApi.fetchBugs)
+      .mockResolvedValueOnce({ bugs: mockBugs, nextCursor: 'cursor-1' })
+      .mockResolvedValueOnce({ bugs: [mockBugs[2], older], nextCursor: null });
+    
+    const { result } = renderHook(() => useBugs());
+    
+    await waitFor(() => {
+      expect(result.current.loading).toBe(false);
+    });
+    expect(result.current.hasMore).toBe(true);
+    
+    await act(async () => {
+      await result.current.loadMore();
+    });
+    
+    expect(bugApi.fetchBugs).toHaveBeenLastCalledWith({ after: 'cursor-1' });
+    expect(result.current.bugs).toEqual([...mockBugs, older]);
+    expect(result.current.hasMore).toBe(false);
+  });
+  
   it('should handle fetch error', async () => {
     const errorMessage = 'Network error';
     vi.mocked(bugApi.fetchBugs).mockRejectedValue(new Error(errorMessage));
@@ -49,7 +72,7 @@ describe('useBugs Hook', () => {
   });
   
   it('should add a new bug', async () => {
-    vi.mocked(bugApi.fetchBugs).mockResolvedValue(mockBugs);
+    vi.mocked(bugApi.fetchBugs).mockResolvedValue({ bugs: mockBugs, nextCursor: null });
     
     const newBug: Bug = {
       id: 4,
@@ -85,7 +108,7 @@ describe('useBugs Hook', () => {
   });
   
   it('should handle add bug error', async () => {
-    vi.mocked(bugApi.fetchBugs).mockResolvedValue(mockBugs);
+    vi.mocked(bugApi.fetchBugs).mockResolvedValue({ bugs: mockBugs, nextCursor: null });
     vi.mocked(bugApi.createBug).mockRejectedValue(new Error('Failed to create bug'));
     
     const { result } = renderHook(() => useBugs());
@@ -106,7 +129,7 @@ describe('useBugs Hook', () => {
   });
   
   it('should remove a bug', async () => {
-    vi.mocked(bugApi.fetchBugs).mockResolvedValue(mockBugs);
+    vi.mocked(bugApi.fetchBugs).mockResolvedValue({ bugs: mockBugs, nextCursor: null });
     vi.mocked(bugApi.deleteBug).mockResolvedValue();
     
     const { result } = renderHook(() => useBugs());
@@ -127,7 +150,7 @@ describe('useBugs Hook', () => {
   });
   
   it('should handle remove bug error', async () => {
-    vi.mocked(bugApi.fetchBugs).mockResolvedValue(mockBugs);
+    vi.mocked(bugApi.fetchBugs).mockResolvedValue({ bugs: mockBugs, nextCursor: null });
     vi.mocked(bugApi.deleteBug).mockRejectedValue(new Error('Failed to delete bug'));
     
     const { result } = renderHook(() => useBugs());
@@ -146,4 +169,47 @@ describe('useBugs Hook', () => {
     expect(result.current.error).toBe('Failed to delete bug. Please try again.');
     expect(result.current.bugs).toEqual(initialBugs);
   });
-}); 
\ No newline at end of file
+
+  it('should apply changes pushed by the server', async () => {
+    vi.mocked(bugApi.fetchBugs).mockResolvedValue({ bugs: mockBugs, nextCursor: null });
+    let push: (event: BugChangeEvent) => void = () => {};
+    const unsubscribe = vi.fn();
+    vi.mocked(bugApi.subscribeToBugChanges).mockImplementation(onChange => {
+      push = onChange;
+      return unsubscribe;
+    });
+    
+    const { result, unmount } = renderHook(() => useBugs());
+    
+    await waitFor(() => {
+      expect(result.current.loading).toBe(false);
+    });
+    
+    const updated: Bug = { ...mockBugs[0], status: 'CLOSED' };
+    act(() => {
+      push({
+        type: 'STATUS_CHANGED',
+        bugId: updated.id,
+        changeSeq: 10,
+        bug: updated,
+        previousStatus: mockBugs[0].status,
+        previousPriority: null
+      });
+      push({
+        type: 'DELETED',
+        bugId: mockBugs[1].id,
+        changeSeq: 11,
+        bug: null,
+        previousStatus: null,
+        previousPriority: null
+      });
+    });
+    
+    expect(result.current.bugs).toHaveLength(mockBugs.length - 1);
+    expect(result.current.bugs.find(bug => bug.id === updated.id)?.status).toBe('CLOSED');
+    expect(result.current.bugs.find(bug => bug.id === mockBugs[1].id)).toBeUndefined();
+    
+    unmount();
+    expect(unsubscribe).toHaveBeenCalled();
+  });
+});
@@ -1,18 +1,27 @@
 import { useState, useEffect, useCallback } from 'react';
-import type { Bug, CreateBugRequest } from '../types/bug';
-import { fetchBugs, createBug, deleteBug } from '../api/bugApi';
+import type { Bug, BugChangeEvent, CreateBugRequest } from '../types/bug';
+import { fetchBugs, createBug, deleteBug, subscribeToBugChanges } from '../api/bugApi';
+
+// Replaces the bug with the same id, or puts a new one first
+const upsertBug = (bugs: Bug[], bug: Bug): Bug[] =>
+  bugs.some(existing => existing.id === bug.id)
+    ? bugs.map(existing => (existing.id === bug.id ? bug : existing))
+    : [bug, ...bugs];
 
 export const useBugs = () => {
   const [bugs, setBugs] = useState<Bug[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState<string | null>(null);
 
+  // Reloads from the first page
   const loadBugs = useCallback(async () => {
     try {
       setLoading(true);
       setError(null);
-      const data = await fetchBugs();
-      setBugs(data);
+      const page = await fetchBugs();
+      setBugs(page.bugs);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       setError('Failed to fetch bugs. Please try again later.');
       console.error('Error fetching bugs:', err);
@@ -25,11 +34,49 @@ export const useBugs = () => {
     loadBugs();
   }, [loadBugs]);
 
+  // Appends the next page; bugs already shown (e.g. pushed by the change feed) are not repeated
+  const loadMore = useCallback(async () => {
+    if (!nextCursor) {
+      return;
+    }
+    try {
+      setError(null);
+      const page = await fetchBugs({ after: nextCursor });
+      setBugs(prevBugs => [
+        ...prevBugs,
+        ...page.bugs.filter(bug => !prevBugs.some(existing => existing.id === bug.id))
+      ]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      setError('Failed to fetch bugs. Please try again later.');
+      console.error('Error fetching bugs:', err);
+    }
+  }, [nextCursor]);
+
+  // Live updates from the server replace polling
+  const applyChange = useCallback((event: BugChangeEvent) => {
+    if (event.type === 'DELETED') {
+      setBugs(prevBugs => prevBugs.filter(bug => bug.id !== event.bugId));
+    } else if (event.bug) {
+      const bug = event.bug;
+      // A bug changed on a page not loaded yet shows up when that page is
+      setBugs(prevBugs => event.type === 'CREATED' || prevBugs.some(existing => existing.id === bug.id)
+        ? upsertBug(prevBugs, bug)
+        : prevBugs);
+    }
+  }, []);
+
+  useEffect(() => {
+    const unsubscribe = subscribeToBugChanges(applyChange, loadBugs);
+    return () => unsubscribe?.();
+  }, [applyChange, loadBugs]);
+
   const addBug = useCallback(async (newBug: CreateBugRequest) => {
     try {
       setError(null);
       const createdBug = await createBug(newBug);
-      setBugs(prevBugs => [createdBug, ...prevBugs]);
+      // The change feed may already have delivered it
+      setBugs(prevBugs => [createdBug, ...prevBugs.filter(bug => bug.id !== createdBug.id)]);
       return true;
     } catch (err) {
       setError('Failed to create bug. Please try again.');
@@ -55,7 +102,9 @@ export const useBugs = () => {
     bugs,
     loading,
     error,
+    hasMore: nextCursor !== null,
     loadBugs,
+    loadMore,
     addBug,
     removeBug
   };
@@ -14,12 +14,61 @@ export interface Bug {
   title: string;
   description: string | null;
   screenshotUrl: string | null;
+  thumbnailUrl?: string | null;
   createdAt: string;
+  updatedAt?: string;
+  changeSeq?: number;
+  version?: number;
+  occurrences?: number;
   status: BugStatus;
   priority: BugPriority;
   metadata?: BugMetadata;
 }
 
+export type BugChangeType =
+  | 'CREATED'
+  | 'UPDATED'
+  | 'STATUS_CHANGED'
+  | 'PRIORITY_CHANGED'
+  | 'METADATA_CHANGED'
+  | 'DELETED';
+
+// Pushed by GET /api/bugs/stream after each committed change
+export interface BugChangeEvent {
+  type: BugChangeType;
+  bugId: number;
+  changeSeq: number;
+  bug: Bug | null;
+  previousStatus: BugStatus | null;
+  previousPriority: BugPriority | null;
+}
+
+// Returned by GET /api/bugs/stats; every status/priority pair and day is present
+export interface BugStats {
+  total: number;
+  byStatusAndPriority: Record<BugStatus, Record<BugPriority, number>>;
+  createdPerDay: Record<string, number>;
+  changeSeq: number;
+  reconciledAt: string | null;
+}
+
+// Server-side filters and ordering for GET /api/bugs
+export interface BugListQuery {
+  status?: BugStatus[];
+  priority?: BugPriority[];
+  createdFrom?: string;
+  createdTo?: string;
+  sort?: 'createdAt,desc' | 'createdAt,asc' | 'updatedAt,desc' | 'updatedAt,asc';
+  limit?: number;
+  after?: string;
+}
+
+// One page of GET /api/bugs; nextCursor is null on the last page
+export interface BugPage {
+  bugs: Bug[];
+  nextCursor: string | null;
+}
+
 export interface CreateBugRequest {
   title: string;
   description?: string;
@@ -30,6 +79,8 @@ export interface CreateBugRequest {
 
 export interface UpdateStatusRequest {
   status: BugStatus;
+  // Version last read; a stale one is rejected with 409 and the current bug
+  version?: number;
 }
 
 export interface UpdateMetadataRequest {